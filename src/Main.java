@@ -4,11 +4,40 @@ import gui.game.GamePanel;
 import javax.swing.SwingUtilities;
 
 public class Main {
+    // Options: --seed <n> fixes the game's randomness, so the enemies replay the same decisions
     public static void main(String[] args) {
+        Long seed = parseSeed(args);
         SwingUtilities.invokeLater(() -> {
             BattleCityGame game = new BattleCityGame();
+            if (seed != null) {
+                game.setSeed(seed);
+            }
             game.showMainMenu();
             game.setVisible(true);
         });
     }
+
+    // The --seed value, null if the option isn't given. A missing or malformed value is a usage
+    // error - the game doesn't start.
+    private static Long parseSeed(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].equals("--seed")) continue;
+
+            if (i + 1 == args.length) {
+                usage("--seed needs a value");
+            }
+            try {
+                return Long.parseLong(args[i + 1]);
+            } catch (NumberFormatException e) {
+                usage("--seed value is not a whole number: " + args[i + 1]);
+            }
+        }
+        return null;
+    }
+
+    private static void usage(String problem) {
+        System.err.println(problem);
+        System.err.println("Usage: java Main [--seed <n>]");
+        System.exit(2);
+    }
 }
\ No newline at end of file
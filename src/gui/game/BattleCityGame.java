@@ -15,7 +15,7 @@ import java.text.DecimalFormat;
 /**
  * Main game class that controls the Battle City game
  */
-public class BattleCityGame extends JFrame {
+public class BattleCityGame extends JFrame implements GameEvents {
     private GamePanel gamePanel;
     private InfoPanel infoPanel;
     private boolean gameRunning = false;
@@ -137,7 +137,7 @@ public class BattleCityGame extends JFrame {
 
         // Optimize game timer - reduce update frequency from 100ms to 16ms (approx 60fps)
         // This makes movement smoother while maintaining performance
-        gameTimer = new javax.swing.Timer(16, e -> updateGame());
+        gameTimer = new javax.swing.Timer(GamePanel.TICK_MILLIS, e -> updateGame());
     }
 
     // New method to update player controls more frequently for better responsiveness
@@ -327,6 +327,9 @@ public class BattleCityGame extends JFrame {
             gamePanel.loadMapFromStream(is);
             is.close();
 
+            // Load the level's wave definitions if it has any - otherwise the default waves stay
+            loadWaves(level);
+
             // Update info panel
             infoPanel.updateLevel(level);
         } catch (IOException e) {
@@ -336,6 +339,29 @@ public class BattleCityGame extends JFrame {
         }
     }
 
+    // Load levelN.waves next to the map file
+    private void loadWaves(int level) {
+        String wavesFile = "/resources/maps/level" + level + ".waves";
+        InputStream is = getClass().getResourceAsStream(wavesFile);
+
+        if (is == null) {
+            // Try alternate path
+            try {
+                is = new FileInputStream("src" + wavesFile);
+            } catch (FileNotFoundException e) {
+                System.out.println("No wave file for level " + level + ", using default waves.");
+                return;
+            }
+        }
+
+        try {
+            gamePanel.loadWavesFromStream(is, "level" + level + ".waves");
+            is.close();
+        } catch (IOException e) {
+            System.err.println("Error loading waves: " + e.getMessage());
+        }
+    }
+
     // Method to update the game (called by timer)
     private void updateGame() {
         if (!gameRunning || gamePaused) return;
@@ -469,6 +495,7 @@ public class BattleCityGame extends JFrame {
     }
 
     // Method to add points to score
+    @Override
     public void addScore(int points) {
         score += points;
         infoPanel.updateScore(score);
@@ -480,6 +507,7 @@ public class BattleCityGame extends JFrame {
     }
 
     // Method to update player lives
+    @Override
     public void updatePlayerLives(int lives) {
         playerLives = lives;
         infoPanel.updateLives(playerLives);
@@ -591,6 +619,11 @@ public class BattleCityGame extends JFrame {
                 JOptionPane.INFORMATION_MESSAGE);
     }
 
+    // Seed the game's randomness so a session can be replayed (see GamePanel.setSeed)
+    public void setSeed(long seed) {
+        gamePanel.setSeed(seed);
+    }
+
     // Method to show main menu
     public void showMainMenu() {
         // Create menu panel
@@ -0,0 +1,10 @@
+package gui.game;
+
+/**
+ * What the game panel reports to the game around it - points scored and the player's lives
+ */
+public interface GameEvents {
+    void addScore(int points);
+
+    void updatePlayerLives(int lives);
+}
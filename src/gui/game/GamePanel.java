@@ -3,22 +3,43 @@ package gui.game;
 import tut01.tanks.*;
 import tut01.powerups.*;
 import tut01.environments.*;
+import tut01.engine.ObjectPool;
+import tut01.engine.PrecomputePipeline;
+import tut01.engine.WaveDirector;
+import tut01.ai.AiBlackboard;
+import tut01.ai.BulletThreatMap;
+import tut01.ai.CooperativePlanner;
+import tut01.ai.FlowField;
+import tut01.ai.HierarchicalPathfinder;
+import tut01.ai.InfluenceMap;
+import tut01.ai.PathRequestQueue;
+import tut01.ai.TileCosts;
+import tut01.physics.BulletCollider;
+import tut01.physics.BulletSweep;
+import tut01.physics.ConfigurationSpace;
+import tut01.physics.LineOfFireTable;
+import tut01.physics.PhysicsQueries;
+import tut01.physics.SpatialHash;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.io.*;
 import java.util.Map;
 import java.util.Iterator;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Game panel class that handles the main game display and logic
  */
 public class GamePanel extends JPanel {
-    private BattleCityGame game;
+    private GameEvents game;
     private int width = 640; // 16 cells * 40 pixels
     private int height = 640; // 16 cells * 40 pixels
     private int cellSize = 40;
@@ -27,56 +48,163 @@ public class GamePanel extends JPanel {
     private PlayerTank player1;
     private PlayerTank player2;
     private List<EnemyTank> enemyTanks;
-    private List<Bullet> bullets;
-    private List<Environment> environments;
+    private final BulletStore bullets = new BulletStore();
+    private TerrainGrid terrain;
     private List<PowerUp> powerUps;
     private boolean baseDestroyed = false;
     private boolean twoPlayerMode = false;
     private Point baseLocation;
 
-    // Enemy spawn management
-    private int maxEnemiesOnScreen = 4;
+    // Enemy spawn management - the wave director owns the compiled spawn schedule
+    private static final int DEFAULT_TOTAL_ENEMIES = 20;
+    private WaveDirector waveDirector = new WaveDirector();
     private int enemiesSpawned = 0;
-    private int totalEnemies = 20;
+    private int totalEnemies = DEFAULT_TOTAL_ENEMIES;
     private int enemiesDefeated = 0;
-    private long lastEnemySpawnTime = 0;
-    private long enemySpawnDelay = 3000; // 3 seconds
     private List<Point> enemySpawnPoints;
 
     // Enemy tank tracking - for debugging disappearing tanks
     private Map<EnemyTank, Long> enemySpawnTimes = new HashMap<>();
     private List<String> enemyDestroyLog = new ArrayList<>();
 
-    // Power-up timer
+    // Power-up timer - the timed power-ups wear off at these game clock times, -1 if not running
     private PowerUp activePowerUp = null;
-    private javax.swing.Timer powerUpTimer = null;
     private int powerUpDuration = 15000; // 15 seconds
+    private long freezeEndsAt = -1;
+    private long shovelEndsAt = -1;
 
     // Debug flag
     private boolean debug = false;
 
     // Game effects
     private List<Effect> effects = new ArrayList<>();
+    private static final Color[] EXPLOSION_COLORS = {Color.WHITE, Color.YELLOW, Color.ORANGE, Color.RED, Color.GRAY};
+    private static final Color[] SMALL_EXPLOSION_COLORS = {Color.WHITE, Color.YELLOW, Color.ORANGE, Color.GRAY};
+
+    // Pools for transient entities - recycled through acquire/reset/release instead of reallocated.
+    // Enemy pools are indexed by TankType code, power-up pools by PowerUp type code.
+    private final List<ObjectPool<EnemyTank>> enemyPools = new ArrayList<>();
+    private final List<ObjectPool<PowerUp>> powerUpPools = new ArrayList<>();
+    private final ObjectPool<Effect> explosionPool = new ObjectPool<>("Explosions", () -> new ExplosionEffect());
+    private final ObjectPool<Effect> smallExplosionPool = new ObjectPool<>("Small explosions", () -> new SmallExplosionEffect());
+    private final List<EnemyTank> enemyTanksToRemove = new ArrayList<>();
+
+    // Terrain change tracking and the cached terrain images that depend on it
+    private TerrainJournal terrainJournal = new TerrainJournal();
+    private TerrainRenderLayer terrainLayer;
+
+    // Derived level data, built by the precompute pipeline when a level loads
+    private ConfigurationSpace tankSpace;
+    private TileCosts tileCosts;
+    private FlowField baseFlowField;
+    private HierarchicalPathfinder pathfinder;
+    private LineOfFireTable lineOfFire;
+    private PhysicsQueries physics;
+
+    // Waypoint path searches, run within a CPU budget per tick so many tanks replanning at
+    // once don't stall the frame
+    private static final long PATH_BUDGET_MICROS = 300;
+    private static final int SEEDED_PATH_SLICES = 16; // Budget for a seeded, replayable game
+    private PathRequestQueue pathQueue;
+
+    // Space-time cell reservations the enemies plan around each other with - the players hold
+    // the cells they cover too
+    private CooperativePlanner cooperation;
+    private int[] playerReservations;
+
+    // Player threat, bullet lanes, base pull and enemy crowding per tile, restamped every tick
+    private InfluenceMap influence;
+
+    // Where the players' bullets are headed over the next ticks, projected once per tick
+    private BulletThreatMap bulletThreats;
+
+    // What every enemy reads this tick - players, base, squads and the structures above
+    private AiBlackboard aiBoard;
+
+    // Enemies decide their moves in parallel once there are this many of them. Each tank draws
+    // on its own random stream split off aiRandom, so a given seed plays out the same either way.
+    private static final int PARALLEL_THINK_MIN = 8;
+
+    // Game clock - every game timer (fire cooldowns, invulnerability, spawn delays, the AI's
+    // state changes) reads this, never the wall clock, so a seeded game replays tick for tick
+    public static final int TICK_MILLIS = 16;
+    private long gameTime = 0;
+    private SplittableRandom aiRandom = new SplittableRandom();
+    private SplittableRandom dropRandom = new SplittableRandom(); // Power-up drops
+
+    // Enemies whose think step threw this tick - their intents are half-written, so they sit
+    // out the act step. Filled from the think workers.
+    private final Set<EnemyTank> failedThinks = ConcurrentHashMap.newKeySet();
+
+    // Broadphase for tank and power-up overlap queries
+    private SpatialHash<Tank> tankHash;
+    private SpatialHash<PowerUp> powerUpHash;
+    private final List<Tank> nearbyTanks = new ArrayList<>();
+    private final List<PowerUp> nearbyPowerUps = new ArrayList<>();
+    private final BulletCollider bulletCollider = new BulletCollider();
+    private BulletSweep bulletSweep;
+    private int[] bulletOrder = new int[64];
+    private final BitSet bulletRemovals = new BitSet();
+    private String precomputeSummary = "";
 
     // FPS calculation
     private long lastTime = System.nanoTime();
     private double fps = 0;
 
-    public GamePanel(BattleCityGame game) {
+    public GamePanel(GameEvents game) {
         this.game = game;
         setPreferredSize(new Dimension(width, height));
         setBackground(Color.BLACK);
 
         // Initialize lists
         enemyTanks = new ArrayList<>();
-        bullets = new ArrayList<>();
-        environments = new ArrayList<>();
         powerUps = new ArrayList<>();
         enemySpawnPoints = new ArrayList<>();
         effects = new ArrayList<>();
-
-        // Set base location (center bottom of map)
-        baseLocation = new Point(width / 2 - cellSize / 2, height - cellSize);
+        tankHash = new SpatialHash<>(width, height, 2 * cellSize);
+        powerUpHash = new SpatialHash<>(width, height, 2 * cellSize);
+
+        // Pools are indexed by type code (TankType / PowerUp)
+        enemyPools.add(new ObjectPool<>("Basic tanks", () -> new BasicTank(0, 0)));
+        enemyPools.add(new ObjectPool<>("Fast tanks", () -> new FastTank(0, 0)));
+        enemyPools.add(new ObjectPool<>("Power tanks", () -> new PowerTank(0, 0)));
+        enemyPools.add(new ObjectPool<>("Armor tanks", () -> new ArmorTank(0, 0)));
+
+        powerUpPools.add(new ObjectPool<>("Grenades", () -> new Grenade(0, 0)));
+        powerUpPools.add(new ObjectPool<>("Helmets", () -> new Helmet(0, 0)));
+        powerUpPools.add(new ObjectPool<>("Shovels", () -> new Shovel(0, 0)));
+        powerUpPools.add(new ObjectPool<>("Stars", () -> new Star(0, 0)));
+        powerUpPools.add(new ObjectPool<>("Tank power-ups", () -> new TankPowerUp(0, 0)));
+        powerUpPools.add(new ObjectPool<>("Timers", () -> new TimerPowerUp(0, 0)));
+
+        // Derived terrain data - registered in dependency order so updates cascade correctly
+        terrain = new TerrainGrid(width / cellSize, height / cellSize, cellSize);
+        terrain.setJournal(terrainJournal);
+        tankSpace = new ConfigurationSpace(terrain, cellSize);
+        tileCosts = new TileCosts(terrain, tankSpace);
+        baseFlowField = new FlowField(tileCosts);
+        pathfinder = new HierarchicalPathfinder(tileCosts);
+        pathQueue = new PathRequestQueue(pathfinder, PATH_BUDGET_MICROS);
+        cooperation = new CooperativePlanner(terrain.getCols(), terrain.getRows(), cellSize);
+        playerReservations = new int[] {cooperation.register(), cooperation.register()};
+        bulletSweep = new BulletSweep(terrain, tankHash);
+        lineOfFire = new LineOfFireTable(terrain);
+        physics = new PhysicsQueries(terrain, tankSpace, tankHash, lineOfFire);
+        influence = new InfluenceMap(terrain.getCols(), terrain.getRows(), cellSize, lineOfFire);
+        bulletThreats = new BulletThreatMap(terrain.getCols(), terrain.getRows(), cellSize, lineOfFire);
+        aiBoard = new AiBlackboard(physics, tileCosts, baseFlowField, pathfinder, pathQueue, cooperation, influence,
+                bulletThreats);
+        terrainJournal.addListener(tankSpace);
+        terrainJournal.addListener(tileCosts);
+        terrainJournal.addListener(baseFlowField);
+        terrainJournal.addListener(lineOfFire);
+
+        // Static terrain is pre-rendered and only repainted where the journal reports changes
+        terrainLayer = new TerrainRenderLayer(terrain, width, height);
+        terrainJournal.addListener(terrainLayer);
+
+        // Set base location (center bottom of map, on the tile grid)
+        baseLocation = new Point(width / 2, height - cellSize);
         setBorder(BorderFactory.createLineBorder(Color.BLACK, 2));
     }
 
@@ -87,9 +215,9 @@ public class GamePanel extends JPanel {
     // Load map from input stream
     public void loadMapFromStream(InputStream is) throws IOException {
         // Clear existing data
-        environments.clear();
+        terrain.clear();
         enemySpawnPoints.clear();
-        enemyTanks.clear();
+        releaseAllEnemies();
         enemySpawnTimes.clear();
         enemyDestroyLog.clear();
 
@@ -106,19 +234,19 @@ public class GamePanel extends JPanel {
 
                 switch (c) {
                     case 'B': // Brick wall
-                        environments.add(new BrickWall(x, y));
+                        terrain.setTileAt(x, y, TerrainGrid.BRICK);
                         break;
                     case 'S': // Steel wall
-                        environments.add(new SteelWall(x, y));
+                        terrain.setTileAt(x, y, TerrainGrid.STEEL);
                         break;
                     case 'W': // Water
-                        environments.add(new Water(x, y));
+                        terrain.setTileAt(x, y, TerrainGrid.WATER);
                         break;
                     case 'T': // Trees
-                        environments.add(new Trees(x, y));
+                        terrain.setTileAt(x, y, TerrainGrid.TREES);
                         break;
                     case 'I': // Ice
-                        environments.add(new Ice(x, y));
+                        terrain.setTileAt(x, y, TerrainGrid.ICE);
                         break;
                     case 'E': // Enemy spawn point
                         enemySpawnPoints.add(new Point(x, y));
@@ -151,6 +279,12 @@ public class GamePanel extends JPanel {
         // Protect base with brick walls
         createBaseProtection();
 
+        // Classic waves unless the level ships its own wave file
+        useDefaultWaves();
+
+        // Build the distance field and terrain images before the first tick
+        precomputeLevelData();
+
         // Reset game state
         resetGameState();
     }
@@ -158,68 +292,68 @@ public class GamePanel extends JPanel {
     // Create default map if no file available
     public void createDefaultMap() {
         // Clear existing data
-        environments.clear();
+        terrain.clear();
         enemySpawnPoints.clear();
-        enemyTanks.clear();
+        releaseAllEnemies();
         enemySpawnTimes.clear();
         enemyDestroyLog.clear();
 
         // Add some brick walls - adjusted for larger map
         for (int i = 0; i < 10; i++) {
-            environments.add(new BrickWall(i * cellSize, 2 * cellSize));
-            environments.add(new BrickWall((width - cellSize) - i * cellSize, 2 * cellSize));
-            environments.add(new BrickWall(i * cellSize, height - 3 * cellSize));
-            environments.add(new BrickWall((width - cellSize) - i * cellSize, height - 3 * cellSize));
+            terrain.setTileAt(i * cellSize, 2 * cellSize, TerrainGrid.BRICK);
+            terrain.setTileAt((width - cellSize) - i * cellSize, 2 * cellSize, TerrainGrid.BRICK);
+            terrain.setTileAt(i * cellSize, height - 3 * cellSize, TerrainGrid.BRICK);
+            terrain.setTileAt((width - cellSize) - i * cellSize, height - 3 * cellSize, TerrainGrid.BRICK);
         }
 
         // Add some steel walls
-        environments.add(new SteelWall(width / 2 - cellSize, height / 2));
-        environments.add(new SteelWall(width / 2, height / 2));
-        environments.add(new SteelWall(width / 2 + cellSize, height / 2));
+        terrain.setTileAt(width / 2 - cellSize, height / 2, TerrainGrid.STEEL);
+        terrain.setTileAt(width / 2, height / 2, TerrainGrid.STEEL);
+        terrain.setTileAt(width / 2 + cellSize, height / 2, TerrainGrid.STEEL);
 
         // Add additional steel walls
-        environments.add(new SteelWall(width / 4, height / 4));
-        environments.add(new SteelWall(3 * width / 4, height / 4));
-        environments.add(new SteelWall(width / 4, 3 * height / 4));
-        environments.add(new SteelWall(3 * width / 4, 3 * height / 4));
+        terrain.setTileAt(width / 4, height / 4, TerrainGrid.STEEL);
+        terrain.setTileAt(3 * width / 4, height / 4, TerrainGrid.STEEL);
+        terrain.setTileAt(width / 4, 3 * height / 4, TerrainGrid.STEEL);
+        terrain.setTileAt(3 * width / 4, 3 * height / 4, TerrainGrid.STEEL);
 
         // Add steel wall foundation at bottom
         for (int i = 0; i < width/cellSize; i++) {
             if (i % 3 == 0) {
-                environments.add(new SteelWall(i * cellSize, height - cellSize));
+                terrain.setTileAt(i * cellSize, height - cellSize, TerrainGrid.STEEL);
             }
         }
 
         // Add some water
         for (int i = 0; i < 4; i++) {
-            environments.add(new Water(2 * cellSize, 5 * cellSize + i * cellSize));
-            environments.add(new Water(width - 3 * cellSize, 5 * cellSize + i * cellSize));
+            terrain.setTileAt(2 * cellSize, 5 * cellSize + i * cellSize, TerrainGrid.WATER);
+            terrain.setTileAt(width - 3 * cellSize, 5 * cellSize + i * cellSize, TerrainGrid.WATER);
         }
 
         // Add more water to create a river
         for (int i = 0; i < 3; i++) {
-            environments.add(new Water(3 * cellSize + i * cellSize, 9 * cellSize));
-            environments.add(new Water(width - 4 * cellSize - i * cellSize, 9 * cellSize));
+            terrain.setTileAt(3 * cellSize + i * cellSize, 9 * cellSize, TerrainGrid.WATER);
+            terrain.setTileAt(width - 4 * cellSize - i * cellSize, 9 * cellSize, TerrainGrid.WATER);
         }
 
         // Add some trees for cover
         for (int i = 0; i < 4; i++) {
-            environments.add(new Trees(width / 2 - cellSize - i * cellSize, 4 * cellSize));
-            environments.add(new Trees(width / 2 + cellSize + i * cellSize, 4 * cellSize));
-            environments.add(new Trees(3 * cellSize, 12 * cellSize + i * cellSize));
-            environments.add(new Trees(width - 4 * cellSize, 12 * cellSize + i * cellSize));
+            terrain.setTileAt(width / 2 - cellSize - i * cellSize, 4 * cellSize, TerrainGrid.TREES);
+            terrain.setTileAt(width / 2 + cellSize + i * cellSize, 4 * cellSize, TerrainGrid.TREES);
+            terrain.setTileAt(3 * cellSize, 12 * cellSize + i * cellSize, TerrainGrid.TREES);
+            terrain.setTileAt(width - 4 * cellSize, 12 * cellSize + i * cellSize, TerrainGrid.TREES);
         }
 
         // Add some ice for sliding
-        environments.add(new Ice(width / 2 - 2 * cellSize, height / 2 + 2 * cellSize));
-        environments.add(new Ice(width / 2 + 2 * cellSize, height / 2 + 2 * cellSize));
-        environments.add(new Ice(width / 2 - 2 * cellSize, height / 2 - 2 * cellSize));
-        environments.add(new Ice(width / 2 + 2 * cellSize, height / 2 - 2 * cellSize));
+        terrain.setTileAt(width / 2 - 2 * cellSize, height / 2 + 2 * cellSize, TerrainGrid.ICE);
+        terrain.setTileAt(width / 2 + 2 * cellSize, height / 2 + 2 * cellSize, TerrainGrid.ICE);
+        terrain.setTileAt(width / 2 - 2 * cellSize, height / 2 - 2 * cellSize, TerrainGrid.ICE);
+        terrain.setTileAt(width / 2 + 2 * cellSize, height / 2 - 2 * cellSize, TerrainGrid.ICE);
 
         // Add ice path
         for (int i = 0; i < 3; i++) {
-            environments.add(new Ice(width / 4 + i * cellSize, 10 * cellSize));
-            environments.add(new Ice(3 * width / 4 - i * cellSize, 10 * cellSize));
+            terrain.setTileAt(width / 4 + i * cellSize, 10 * cellSize, TerrainGrid.ICE);
+            terrain.setTileAt(3 * width / 4 - i * cellSize, 10 * cellSize, TerrainGrid.ICE);
         }
 
         // Set enemy spawn points (all four corners and additional points)
@@ -239,12 +373,18 @@ public class GamePanel extends JPanel {
             player2 = null;
         }
 
-        // Base location
-        baseLocation = new Point(width / 2 - cellSize / 2, height - cellSize);
+        // Base location - snapped to the tile grid so its walls line up with the cells
+        baseLocation = new Point(width / 2, height - cellSize);
 
         // Protect base with brick walls
         createBaseProtection();
 
+        // Classic waves unless the level ships its own wave file
+        useDefaultWaves();
+
+        // Build the distance field and terrain images before the first tick
+        precomputeLevelData();
+
         // Reset game state
         resetGameState();
     }
@@ -255,29 +395,72 @@ public class GamePanel extends JPanel {
         int baseX = (int) baseLocation.getX();
         int baseY = (int) baseLocation.getY();
 
-        // Top wall
-        environments.add(new BrickWall(baseX - cellSize, baseY - cellSize));
-        environments.add(new BrickWall(baseX, baseY - cellSize));
-        environments.add(new BrickWall(baseX + cellSize, baseY - cellSize));
+        setBaseWalls(baseX, baseY, TerrainGrid.BRICK);
+    }
 
-        // Side walls
-        environments.add(new BrickWall(baseX - cellSize, baseY));
-        environments.add(new BrickWall(baseX + cellSize, baseY));
+    // Compile the built-in wave schedule
+    private void useDefaultWaves() {
+        waveDirector.compileDefault(DEFAULT_TOTAL_ENEMIES);
+        totalEnemies = waveDirector.getTotalEnemies();
+    }
+
+    // Load and compile a level's wave sidecar file - replaces the default schedule
+    public void loadWavesFromStream(InputStream is, String sourceName) throws IOException {
+        try {
+            waveDirector.compile(is, sourceName);
+        } catch (IOException e) {
+            // Don't play a half-compiled schedule
+            useDefaultWaves();
+            throw e;
+        }
+        totalEnemies = waveDirector.getTotalEnemies();
+        enemiesSpawned = 0;
+    }
+
+    // Run the expensive derived-data builds concurrently and wait for all of them
+    private void precomputeLevelData() {
+        long version = terrainJournal.reset();
+        baseFlowField.setGoal((int) baseLocation.getX() / cellSize, (int) baseLocation.getY() / cellSize);
+        cooperation.reset();
+        pathQueue.reset();
+        influence.setBase((int) baseLocation.getX() / cellSize, (int) baseLocation.getY() / cellSize);
+
+        PrecomputePipeline pipeline = new PrecomputePipeline();
+        pipeline.addStage("tank c-space", () -> tankSpace.onTerrainReset(version));
+        pipeline.addStage("tile costs", () -> tileCosts.onTerrainReset(version), "tank c-space");
+        pipeline.addStage("base flow field", () -> baseFlowField.onTerrainReset(version), "tile costs");
+        pipeline.addStage("cluster graph", () -> pathfinder.update(), "tile costs");
+        pipeline.addStage("line of fire", () -> lineOfFire.onTerrainReset(version));
+        pipeline.addStage("terrain layer", () -> terrainLayer.onTerrainReset(version));
+        pipeline.run();
+
+        precomputeSummary = pipeline.getSummary();
+        System.out.println("Level precompute: " + precomputeSummary);
     }
 
     // Reset game state for new game or level
     private void resetGameState() {
-        // Clear bullets and power-ups
+        // Clear bullets, and power-ups returning them to their pools
+        freezeEndsAt = -1;
+        shovelEndsAt = -1;
         bullets.clear();
+        for (PowerUp powerUp : powerUps) {
+            powerUpPools.get(powerUp.getType()).release(powerUp);
+        }
         powerUps.clear();
+        powerUpHash.clear();
+        for (Effect effect : effects) {
+            effect.release();
+        }
         effects.clear();
 
         // Reset enemy data
-        enemyTanks.clear();
+        releaseAllEnemies();
         enemySpawnTimes.clear();
         enemyDestroyLog.clear();
         enemiesSpawned = 0;
         enemiesDefeated = 0;
+        waveDirector.restart();
 
         // Reset flags
         baseDestroyed = false;
@@ -309,6 +492,13 @@ public class GamePanel extends JPanel {
 
     // Update game state
     public void updateGame() {
+        gameTime += TICK_MILLIS;
+        expirePowerUps();
+
+        // File every tank in the broadphase - spawning files the new tank, updateTank keeps it
+        // current as tanks move
+        rebuildTankHash();
+
         // Spawn enemies if needed
         spawnEnemyIfNeeded();
 
@@ -329,8 +519,28 @@ public class GamePanel extends JPanel {
             }
         }
 
+        // Players reserve where they are - enemies plan around them and each other in turn
+        cooperation.advance();
+        holdPlayerCells(player1, playerReservations[0]);
+        holdPlayerCells(player2, playerReservations[1]);
+        updateInfluence();
+        long now = gameTime;
+        aiBoard.beginTick(player1, player2, baseLocation, now);
+        pathQueue.service();
+
+        // Every enemy decides its move from the same frozen view of the world first
+        failedThinks.clear();
+        for (EnemyTank enemyTank : enemyTanks) {
+            enemyTank.checkInvulnerabilityExpired(now);
+        }
+        if (enemyTanks.size() >= PARALLEL_THINK_MIN) {
+            enemyTanks.parallelStream().forEach(this::thinkEnemy);
+        } else {
+            enemyTanks.forEach(this::thinkEnemy);
+        }
+
         // Update enemy tanks with improved AI
-        List<EnemyTank> enemyTanksToRemove = new ArrayList<>();
+        enemyTanksToRemove.clear();
         Iterator<EnemyTank> tankIterator = enemyTanks.iterator();
 
         // Process each enemy tank - using iterator to avoid concurrent modification issues
@@ -338,21 +548,23 @@ public class GamePanel extends JPanel {
             EnemyTank enemyTank = tankIterator.next();
 
             try {
-                // Check invulnerability status first
-                enemyTank.checkInvulnerabilityExpired();
-
-                // Update AI with player and base information
-                enemyTank.updateAI(player1, player2, baseLocation, environments);
+                // Carry out the AI's decision, in list order - the AI may snap the tank onto
+                // a grid line, so re-file it in the broadphase if it moved
+                boolean thought = failedThinks.isEmpty() || !failedThinks.contains(enemyTank);
+                Rectangle beforeAI = enemyTank.getBounds();
+                if (thought) {
+                    enemyTank.act(aiBoard);
+                }
+                if (enemyTank.getX() != beforeAI.x || enemyTank.getY() != beforeAI.y) {
+                    tankHash.move(enemyTank, beforeAI, enemyTank.getBounds());
+                }
 
                 // Update movement - only move in cardinal directions
                 updateTank(enemyTank);
 
-                // Handle enemy shooting
-                if (shouldEnemyFire(enemyTank)) {
-                    Bullet bullet = enemyTank.fire();
-                    if (bullet != null) {
-                        bullets.add(bullet);
-                    }
+                // Handle enemy shooting - the AI decided whether it has a target in its line of fire
+                if (thought && enemyTank.shouldFire(now)) {
+                    enemyTank.fire(bullets);
                 }
 
                 // Check if tank is destroyed - only due to damage, not from other causes
@@ -364,7 +576,7 @@ public class GamePanel extends JPanel {
                     // Track when and why the tank was removed
                     if (debug) {
                         Long spawnTime = enemySpawnTimes.get(enemyTank);
-                        long lifespan = spawnTime != null ? System.currentTimeMillis() - spawnTime : -1;
+                        long lifespan = spawnTime != null ? gameTime - spawnTime : -1;
                         String logEntry = "Tank destroyed after " + lifespan + "ms. Health: " +
                                 enemyTank.getHealth() + ", Last action: " + enemyTank.getLastAction();
                         System.out.println(logEntry);
@@ -375,7 +587,7 @@ public class GamePanel extends JPanel {
                     addExplosionEffect(enemyTank.getX(), enemyTank.getY());
 
                     // Randomly spawn power-up (20% chance)
-                    if (enemyTank.isFlashing() || Math.random() < 0.2) {
+                    if (enemyTank.isFlashing() || dropRandom.nextDouble() < 0.2) {
                         spawnPowerUp(enemyTank.getX(), enemyTank.getY());
                     }
                 }
@@ -386,7 +598,9 @@ public class GamePanel extends JPanel {
                     e.printStackTrace();
 
                     // Add to removal list so we don't keep processing a broken tank
-                    enemyTanksToRemove.add(enemyTank);
+                    if (!enemyTanksToRemove.contains(enemyTank)) {
+                        enemyTanksToRemove.add(enemyTank);
+                    }
                 }
             }
         }
@@ -395,7 +609,7 @@ public class GamePanel extends JPanel {
         if (!enemyTanksToRemove.isEmpty()) {
             for (EnemyTank tank : enemyTanksToRemove) {
                 enemyTanks.remove(tank);
-                enemySpawnTimes.remove(tank);
+                releaseEnemy(tank);
             }
 
             if (debug) {
@@ -407,7 +621,7 @@ public class GamePanel extends JPanel {
         // Update bullets
         updateBullets();
 
-        // Check for bullet-to-bullet collisions (bullets from opposite directions)
+        // Check for bullet-to-bullet collisions (head-on, crossing, or passing between ticks)
         checkBulletCollisions();
 
         // Update effects
@@ -416,6 +630,9 @@ public class GamePanel extends JPanel {
         // Check for collisions
         checkCollisions();
 
+        // Publish this tick's terrain changes to the caches that depend on them
+        terrainJournal.commit();
+
         // Repaint the panel
         repaint();
     }
@@ -464,354 +681,217 @@ public class GamePanel extends JPanel {
                 dx = 0; // Move vertically only
             }
 
-            if (debug && tank instanceof EnemyTank) {
+            if (debug && TankType.isEnemy(tank.getType())) {
                 System.out.println("Fixed diagonal movement in enemy tank.");
             }
         }
 
-        // Apply movement
-        tank.setX(tank.getX() + dx);
-        tank.setY(tank.getY() + dy);
-
-        // Check boundary collision
-        if (tank.getX() < 0) {
-            tank.setX(0);
-        } else if (tank.getX() + tank.getSize() > width) {
-            tank.setX(width - tank.getSize());
-        }
-
-        if (tank.getY() < 0) {
-            tank.setY(0);
-        } else if (tank.getY() + tank.getSize() > height) {
-            tank.setY(height - tank.getSize());
-        }
-
-        // Check environment collision - THIS IS THE CRITICAL FIX
-        boolean collided = false;
+        // Move as far along the direction as the configuration space allows - the tank slides
+        // into contact with walls, water and the map edge instead of stopping short
+        int distance = Math.abs(dx + dy);
+        int stepX = Integer.signum(dx);
+        int stepY = Integer.signum(dy);
+        int moved = tankSpace.travel(oldX, oldY, stepX, stepY, distance);
+        tank.setX(oldX + stepX * moved);
+        tank.setY(oldY + stepY * moved);
         Rectangle tankBounds = tank.getBounds();
-        for (Environment env : environments) {
-            // Only check for collision with non-passable environments
-            if (!env.isPassable() && env.getBounds().intersects(tankBounds)) {
-                // For brick walls with sections, check more precise collision
-                if (env instanceof BrickWall) {
-                    BrickWall brickWall = (BrickWall)env;
-                    // Check each corner of the tank against the brick wall sections
-                    int[] tankCornerX = {tank.getX(), tank.getX() + tank.getSize() - 1,
-                            tank.getX(), tank.getX() + tank.getSize() - 1};
-                    int[] tankCornerY = {tank.getY(), tank.getY(),
-                            tank.getY() + tank.getSize() - 1, tank.getY() + tank.getSize() - 1};
-
-                    for (int i = 0; i < 4; i++) {
-                        if (!brickWall.isPositionPassable(tankCornerX[i], tankCornerY[i])) {
-                            collided = true;
-                            break;
-                        }
-                    }
-                } else if (env instanceof SteelWall) {
-                    SteelWall steelWall = (SteelWall)env;
-                    // Similar precise collision for steel walls
-                    int[] tankCornerX = {tank.getX(), tank.getX() + tank.getSize() - 1,
-                            tank.getX(), tank.getX() + tank.getSize() - 1};
-                    int[] tankCornerY = {tank.getY(), tank.getY(),
-                            tank.getY() + tank.getSize() - 1, tank.getY() + tank.getSize() - 1};
-
-                    for (int i = 0; i < 4; i++) {
-                        if (!steelWall.isPositionPassable(tankCornerX[i], tankCornerY[i])) {
-                            collided = true;
-                            break;
-                        }
-                    }
-                } else {
-                    // Standard collision for other environment types
-                    collided = true;
-                    break;
-                }
-            }
-        }
-
-        // If collision occurred with any non-passable environment, revert position
-        if (collided) {
-            tank.setX(oldX);
-            tank.setY(oldY);
-        }
 
-        // Check tank-tank collision - keep separate to better track collision sources
-        for (EnemyTank enemyTank : enemyTanks) {
-            if (tank != enemyTank && tankBounds.intersects(enemyTank.getBounds())) {
+        // Check tank-tank collision through the broadphase - enemies block every tank,
+        // players block enemies
+        if (moved > 0) {
+            Rectangle oldBounds = new Rectangle(oldX, oldY, tank.getSize(), tank.getSize());
+            if (isBlockedByTank(tank, tankBounds)) {
                 tank.setX(oldX);
                 tank.setY(oldY);
-                break;
+            } else {
+                tankHash.move(tank, oldBounds, tankBounds);
             }
         }
+    }
 
-        // Check player-player collision
-        if (player1 != null && player2 != null && player1 != tank && player2 != tank) {
-            if (tankBounds.intersects(player1.getBounds()) || tankBounds.intersects(player2.getBounds())) {
-                tank.setX(oldX);
-                tank.setY(oldY);
+    // Does any other tank block this one at the given bounds?
+    private boolean isBlockedByTank(Tank tank, Rectangle bounds) {
+        nearbyTanks.clear();
+        tankHash.query(bounds, nearbyTanks);
+        for (Tank other : nearbyTanks) {
+            if (other == tank) continue;
+            if (TankType.isBlockedBy(tank.getType(), other.getType())) {
+                return true;
             }
         }
+        return false;
+    }
 
-        // Additional check for player tanks with enemy tanks
-        if (tank instanceof PlayerTank) {
-            for (EnemyTank enemyTank : enemyTanks) {
-                if (tankBounds.intersects(enemyTank.getBounds())) {
-                    tank.setX(oldX);
-                    tank.setY(oldY);
-                    break;
-                }
-            }
+    // Re-file all live tanks in the broadphase
+    private void rebuildTankHash() {
+        tankHash.clear();
+        if (player1 != null) tankHash.insert(player1, player1.getBounds());
+        if (player2 != null) tankHash.insert(player2, player2.getBounds());
+        for (EnemyTank enemyTank : enemyTanks) {
+            tankHash.insert(enemyTank, enemyTank.getBounds());
         }
     }
 
     // Check if tank is on ice
     private boolean isOnIce(Tank tank) {
-        Rectangle tankBounds = tank.getBounds();
-        for (Environment env : environments) {
-            if (env instanceof Ice && env.getBounds().intersects(tankBounds)) {
-                return true;
-            }
-        }
-        return false;
+        return physics.overlaps(tank.getBounds(), PhysicsQueries.SLIPPERY);
     }
 
-    // Update bullets
+    // Update bullets - one pass over the position columns. Collisions are swept back along the
+    // move afterwards, and bullets that left the map are dropped once they've been resolved.
     private void updateBullets() {
-        List<Bullet> bulletsToRemove = new ArrayList<>();
-
-        for (Bullet bullet : bullets) {
-            // Move bullet
-            bullet.move();
-
-            // Check if bullet is out of bounds
-            if (bullet.getX() < 0 || bullet.getX() > width ||
-                    bullet.getY() < 0 || bullet.getY() > height) {
-                bulletsToRemove.add(bullet);
-            }
-        }
-
-        bullets.removeAll(bulletsToRemove);
+        bullets.advance();
     }
 
-    // Check for bullet-to-bullet collisions
+    // Check for bullet-to-bullet collisions - bullets that meet cancel each other out
     private void checkBulletCollisions() {
-        List<Bullet> bulletsToRemove = new ArrayList<>();
+        int pairs = bulletCollider.collide(bullets);
+        if (pairs == 0) return;
 
-        // Compare each bullet with every other bullet
-        for (int i = 0; i < bullets.size(); i++) {
-            Bullet bullet1 = bullets.get(i);
-
-            // Skip if this bullet is already marked for removal
-            if (bulletsToRemove.contains(bullet1)) continue;
-
-            for (int j = i + 1; j < bullets.size(); j++) {
-                Bullet bullet2 = bullets.get(j);
-
-                // Skip if this bullet is already marked for removal
-                if (bulletsToRemove.contains(bullet2)) continue;
-
-                // Check if bullets are traveling in opposite directions
-                boolean oppositeDirections =
-                        (bullet1.getDirection() == Tank.Direction.UP && bullet2.getDirection() == Tank.Direction.DOWN) ||
-                                (bullet1.getDirection() == Tank.Direction.DOWN && bullet2.getDirection() == Tank.Direction.UP) ||
-                                (bullet1.getDirection() == Tank.Direction.LEFT && bullet2.getDirection() == Tank.Direction.RIGHT) ||
-                                (bullet1.getDirection() == Tank.Direction.RIGHT && bullet2.getDirection() == Tank.Direction.LEFT);
-
-                // Check if bullets are close enough to collide
-                // Use a small collision radius for more accurate collision
-                int collisionRadius = 10;
-                boolean closeEnough =
-                        Math.abs(bullet1.getX() - bullet2.getX()) < collisionRadius &&
-                                Math.abs(bullet1.getY() - bullet2.getY()) < collisionRadius;
-
-                if (oppositeDirections && closeEnough) {
-                    // Mark both bullets for removal
-                    bulletsToRemove.add(bullet1);
-                    bulletsToRemove.add(bullet2);
-
-                    // Add small explosion effect
-                    addSmallExplosionEffect((bullet1.getX() + bullet2.getX()) / 2,
-                            (bullet1.getY() + bullet2.getY()) / 2);
-
-                    break; // Found a collision for bullet1, no need to check more
-                }
-            }
+        // Add small explosion effect where each pair met
+        for (int pair = 0; pair < pairs; pair++) {
+            int bullet1 = bulletCollider.getPairFirst(pair);
+            int bullet2 = bulletCollider.getPairSecond(pair);
+            addSmallExplosionEffect((bullets.getX(bullet1) + bullets.getX(bullet2)) / 2,
+                    (bullets.getY(bullet1) + bullets.getY(bullet2)) / 2);
         }
 
-        // Remove collided bullets
-        bullets.removeAll(bulletsToRemove);
+        // Remove every bullet in the removal set
+        bullets.removeAll(bulletCollider.getRemoved());
     }
 
     // Update visual effects
     private void updateEffects() {
-        List<Effect> effectsToRemove = new ArrayList<>();
-        for (Effect effect : effects) {
+        // Compact in place, releasing finished effects to their pools
+        int live = 0;
+        for (int i = 0; i < effects.size(); i++) {
+            Effect effect = effects.get(i);
             effect.update();
             if (effect.isFinished()) {
-                effectsToRemove.add(effect);
+                effect.release();
+            } else {
+                effects.set(live++, effect);
             }
         }
-        effects.removeAll(effectsToRemove);
+        while (effects.size() > live) {
+            effects.remove(effects.size() - 1);
+        }
     }
 
     // Add explosion effect
     private void addExplosionEffect(int x, int y) {
-        effects.add(new ExplosionEffect(x, y));
+        Effect effect = explosionPool.acquire();
+        effect.reset(x, y);
+        effects.add(effect);
     }
 
     // Add small explosion effect for bullet collisions
     private void addSmallExplosionEffect(int x, int y) {
-        effects.add(new SmallExplosionEffect(x, y));
+        Effect effect = smallExplosionPool.acquire();
+        effect.reset(x, y);
+        effects.add(effect);
     }
 
     // Check for collisions
     private void checkCollisions() {
-        // Lists for removing objects after processing collisions
-        List<Bullet> bulletsToRemove = new ArrayList<>();
-        List<Environment> environmentsToRemove = new ArrayList<>();
-
-        // Process each bullet
-        bulletLoop: for (Bullet bullet : bullets) {
-            Rectangle bulletBounds = bullet.getBounds();
-            int bulletCenterX = bullet.getX();
-            int bulletCenterY = bullet.getY();
-            boolean bulletHitSolid = false;
-
-            // Check if bullet hits environment objects
-            for (Environment env : environments) {
-                if (bulletBounds.intersects(env.getBounds())) {
-                    // Trees and water don't affect bullets - SKIP them
-                    if (env instanceof Trees || env instanceof Water) {
-                        continue;  // Skip collision for trees and water
-                    }
-
-                    // Special handling for brick walls
-                    if (env instanceof BrickWall) {
-                        BrickWall brickWall = (BrickWall) env;
-                        boolean destroyed = false;
-
-                        // Use position-aware hit method for precise wall section destruction
-                        destroyed = brickWall.hitByBulletWithPosition(
-                                bullet.getDamage(), bulletCenterX, bulletCenterY);
-
-                        // Check if the entire wall is destroyed
-                        if (destroyed) {
-                            environmentsToRemove.add(env);
-                        }
+        // Tanks were spawned, moved and removed since the start of the tick
+        rebuildTankHash();
+
+        // The base is the last thing a bullet can hit
+        Rectangle baseBounds = new Rectangle(
+                (int) baseLocation.getX(),
+                (int) baseLocation.getY(),
+                cellSize,
+                cellSize
+        );
+        bulletSweep.setBase(baseBounds);
+
+        // Bulk pass over the bullet columns: mark the bullets whose move touches a tank or the base,
+        // only those are swept against them
+        bullets.clearMarks();
+        bullets.markSweptOverlaps(baseBounds);
+        for (EnemyTank enemyTank : enemyTanks) {
+            bullets.markSweptOverlaps(enemyTank.getBounds());
+        }
+        if (player1 != null) bullets.markSweptOverlaps(player1.getBounds());
+        if (player2 != null) bullets.markSweptOverlaps(player2.getBounds());
 
-                        // Important: We mark the bullet as hitting something solid
-                        bulletHitSolid = true;
+        // Detect what every bullet hits - read-only, runs in parallel when there are many bullets
+        bulletSweep.detect(bullets);
 
-                        // For high power bullets (level 2+), allow penetration through brick
-                        // For level 0-1, remove the bullet
-                        if (bullet.getPowerLevel() < 2) {
-                            bulletsToRemove.add(bullet);
-                            continue bulletLoop;
-                        }
-                    }
-                    // Steel walls and other environments
-                    else if (env instanceof SteelWall) {
-                        SteelWall steelWall = (SteelWall) env;
-                        boolean destroyed = false;
-
-                        // For steel walls, only max power bullets do damage
-                        if (bullet.getPowerLevel() >= 3) {
-                            destroyed = steelWall.hitByBulletWithPosition(
-                                    bullet.getDamage(), bulletCenterX, bulletCenterY);
-
-                            if (destroyed) {
-                                environmentsToRemove.add(env);
-                            }
-                        }
-
-                        // All bullets stop at steel walls regardless of power
-                        bulletsToRemove.add(bullet);
-                        continue bulletLoop;
-                    } else {
-                        // For other destructible environments
-                        boolean destroyed = env.hitByBullet(bullet.getDamage());
-                        if (destroyed) {
-                            environmentsToRemove.add(env);
-                        }
+        // Resolve the hits one bullet at a time in firing order, so the outcome never depends
+        // on how detection was split up. Walls are broken here (trees, water and ice don't
+        // affect bullets); bullets are only removed once every hit has been applied.
+        if (bulletOrder.length < bullets.size()) {
+            bulletOrder = new int[Math.max(bullets.size(), bulletOrder.length * 2)];
+        }
+        int count = bullets.orderById(bulletOrder);
+        bulletRemovals.clear();
+        for (int n = 0; n < count; n++) {
+            int i = bulletOrder[n];
+            int hit = bulletSweep.resolve(bullets, i);
+            if (hit == BulletSweep.HIT_NONE) continue;
 
-                        // All bullets stop at other environments
-                        bulletsToRemove.add(bullet);
-                        continue bulletLoop;
-                    }
-                }
-            }
+            int damage = bullets.getDamage(i);
+            bulletRemovals.set(i);
 
-            // If bullet hit solid environment and is still being processed,
-            // check for additional collisions (penetration case)
+            if (hit == BulletSweep.HIT_TANK) {
+                Tank tank = bulletSweep.getHitTank();
 
-            // Check enemy tank collisions
-            for (EnemyTank enemyTank : enemyTanks) {
-                if (bulletBounds.intersects(enemyTank.getBounds())) {
-                    bulletsToRemove.add(bullet);
+                // Check enemy tank collisions
+                if (TankType.isEnemy(tank.getType())) {
+                    EnemyTank enemyTank = (EnemyTank) tank;
 
                     // Check if tank is invulnerable (for newly spawned tanks)
                     if (!enemyTank.isInvulnerable()) {
-                        boolean destroyed = enemyTank.takeDamage(bullet.getDamage());
+                        boolean destroyed = enemyTank.takeDamage(damage);
                         if (destroyed && debug) {
-                            System.out.println("Tank took " + bullet.getDamage() + " damage, health now: " + enemyTank.getHealth());
+                            System.out.println("Tank took " + damage + " damage, health now: " + enemyTank.getHealth());
                         }
                     }
-                    continue bulletLoop;
-                }
-            }
-
-            // Check player tank collisions
-            if (player1 != null && bulletBounds.intersects(player1.getBounds())) {
-                bulletsToRemove.add(bullet);
-                if (player1.takeDamage(bullet.getDamage())) {
-                    // Add explosion effect
-                    addExplosionEffect(player1.getX(), player1.getY());
-
-                    // Player 1 tank destroyed
-                    if (player1.loseLife()) {
-                        player1 = null;
-                    } else {
-                        // Respawn
-                        player1.setX(width / 2 - 2 * cellSize);
-                        player1.setY(height - 2 * cellSize);
-                        player1.setHealth(1);
-                        player1.resetSliding(); // Reset sliding when respawning
-                        game.updatePlayerLives(player1.getLives());
+                } else if (tank == player1) {
+                    if (player1.takeDamage(damage)) {
+                        // Add explosion effect
+                        addExplosionEffect(player1.getX(), player1.getY());
+
+                        // Player 1 tank destroyed
+                        bulletSweep.invalidate(player1);
+                        if (player1.loseLife()) {
+                            tankHash.remove(player1, player1.getBounds());
+                            player1 = null;
+                        } else {
+                            // Respawn
+                            Rectangle oldBounds = player1.getBounds();
+                            player1.setX(width / 2 - 2 * cellSize);
+                            player1.setY(height - 2 * cellSize);
+                            player1.setHealth(1);
+                            player1.resetSliding(); // Reset sliding when respawning
+                            tankHash.move(player1, oldBounds, player1.getBounds());
+                            game.updatePlayerLives(player1.getLives());
+                        }
                     }
-                }
-                continue bulletLoop;
-            }
-
-            if (player2 != null && bulletBounds.intersects(player2.getBounds())) {
-                bulletsToRemove.add(bullet);
-                if (player2.takeDamage(bullet.getDamage())) {
-                    // Add explosion effect
-                    addExplosionEffect(player2.getX(), player2.getY());
-
-                    // Player 2 tank destroyed
-                    if (player2.loseLife()) {
-                        player2 = null;
-                    } else {
-                        // Respawn
-                        player2.setX(width / 2 + 2 * cellSize);
-                        player2.setY(height - 2 * cellSize);
-                        player2.setHealth(1);
-                        player2.resetSliding(); // Reset sliding when respawning
+                } else if (tank == player2) {
+                    if (player2.takeDamage(damage)) {
+                        // Add explosion effect
+                        addExplosionEffect(player2.getX(), player2.getY());
+
+                        // Player 2 tank destroyed
+                        bulletSweep.invalidate(player2);
+                        if (player2.loseLife()) {
+                            tankHash.remove(player2, player2.getBounds());
+                            player2 = null;
+                        } else {
+                            // Respawn
+                            Rectangle oldBounds = player2.getBounds();
+                            player2.setX(width / 2 + 2 * cellSize);
+                            player2.setY(height - 2 * cellSize);
+                            player2.setHealth(1);
+                            player2.resetSliding(); // Reset sliding when respawning
+                            tankHash.move(player2, oldBounds, player2.getBounds());
+                        }
                     }
                 }
-                continue bulletLoop;
-            }
-
-            // Check base collision
-            Rectangle baseBounds = new Rectangle(
-                    (int) baseLocation.getX(),
-                    (int) baseLocation.getY(),
-                    cellSize,
-                    cellSize
-            );
-
-            if (bulletBounds.intersects(baseBounds)) {
-                bulletsToRemove.add(bullet);
+            } else if (hit == BulletSweep.HIT_BASE) {
                 baseDestroyed = true;
 
                 // Add explosion effects for base
@@ -820,436 +900,240 @@ public class GamePanel extends JPanel {
             }
         }
 
-        // Apply all removals
-        bullets.removeAll(bulletsToRemove);
-        environments.removeAll(environmentsToRemove);
+        // Bullets that hit something, then those that flew on and left the map
+        bullets.removeAll(bulletRemovals);
+        bullets.removeOutOfBounds(width, height);
 
-        // Handle power-up collection
-        List<PowerUp> powerUpsToRemove = new ArrayList<>();
-        for (PowerUp powerUp : powerUps) {
-            // Check player 1
-            if (player1 != null && powerUp.getBounds().intersects(player1.getBounds())) {
-                powerUp.apply(player1);
-                powerUpsToRemove.add(powerUp);
-                game.addScore(powerUp.getPoints());
-                handleSpecialPowerUp(powerUp);
-            }
-            // Check player 2
-            else if (player2 != null && powerUp.getBounds().intersects(player2.getBounds())) {
-                powerUp.apply(player2);
-                powerUpsToRemove.add(powerUp);
-                game.addScore(powerUp.getPoints());
-                handleSpecialPowerUp(powerUp);
-            }
-        }
-        powerUps.removeAll(powerUpsToRemove);
+        // Handle power-up collection - collected power-ups go back to their pools
+        collectPowerUps(player1);
+        collectPowerUps(player2);
     }
 
-    // Handle special power-ups that affect the game globally
-    private void handleSpecialPowerUp(PowerUp powerUp) {
-        if (powerUp instanceof Grenade) {
-            // Destroy all enemies
-            for (EnemyTank enemyTank : enemyTanks) {
-                game.addScore(enemyTank.getPoints());
-                // Add explosion effect for each tank
-                addExplosionEffect(enemyTank.getX(), enemyTank.getY());
-            }
-            int enemiesCount = enemyTanks.size();
-            enemyTanks.clear();
-            enemySpawnTimes.clear();
-            enemiesDefeated += enemiesCount;
-
-            if (debug) {
-                System.out.println("Grenade power-up destroyed " + enemiesCount + " tanks");
-            }
-        } else if (powerUp instanceof TimerPowerUp) {
-            // Freeze all enemies for a duration
-            for (EnemyTank enemyTank : enemyTanks) {
-                enemyTank.setMoving(false);
-            }
-
-            // Set up timer to unfreeze
-            if (powerUpTimer != null) {
-                powerUpTimer.stop();
-            }
-
-            powerUpTimer = new Timer(powerUpDuration, e -> {
-                // Unfreeze enemies
-                for (EnemyTank enemyTank : enemyTanks) {
-                    enemyTank.setMoving(true);
-                }
-                powerUpTimer.stop();
-            });
-            powerUpTimer.setRepeats(false);
-            powerUpTimer.start();
-        } else if (powerUp instanceof Helmet) {
-            // Make players invulnerable temporarily
-            // This would require more state tracking that we'll skip for now
-        } else if (powerUp instanceof Shovel) {
-            // Convert base protection to steel walls temporarily
-            List<Environment> baseWalls = new ArrayList<>();
-            int baseX = (int) baseLocation.getX();
-            int baseY = (int) baseLocation.getY();
-
-            for (Environment env : environments) {
-                if (env instanceof BrickWall) {
-                    // Check if this is part of the base protection
-                    int envX = env.getX();
-                    int envY = env.getY();
-
-                    if ((envX == baseX - cellSize && envY == baseY - cellSize) ||
-                            (envX == baseX && envY == baseY - cellSize) ||
-                            (envX == baseX + cellSize && envY == baseY - cellSize) ||
-                            (envX == baseX - cellSize && envY == baseY) ||
-                            (envX == baseX + cellSize && envY == baseY)) {
-
-                        baseWalls.add(env);
-                    }
-                }
-            }
+    // Apply and release every power-up under a player, found through the broadphase
+    private void collectPowerUps(PlayerTank collector) {
+        if (collector == null || powerUps.isEmpty()) return;
 
-            // Remove the brick walls
-            environments.removeAll(baseWalls);
-
-            // Add steel walls in their place
-            environments.add(new SteelWall(baseX - cellSize, baseY - cellSize));
-            environments.add(new SteelWall(baseX, baseY - cellSize));
-            environments.add(new SteelWall(baseX + cellSize, baseY - cellSize));
-            environments.add(new SteelWall(baseX - cellSize, baseY));
-            environments.add(new SteelWall(baseX + cellSize, baseY));
-
-            // Set up a timer to revert the walls after a duration
-            Timer shovelTimer = new Timer(powerUpDuration, e -> {
-                // Remove the steel walls
-                List<Environment> steelWalls = new ArrayList<>();
-                for (Environment env : environments) {
-                    if (env instanceof SteelWall) {
-                        int envX = env.getX();
-                        int envY = env.getY();
-
-                        if ((envX == baseX - cellSize && envY == baseY - cellSize) ||
-                                (envX == baseX && envY == baseY - cellSize) ||
-                                (envX == baseX + cellSize && envY == baseY - cellSize) ||
-                                (envX == baseX - cellSize && envY == baseY) ||
-                                (envX == baseX + cellSize && envY == baseY)) {
-
-                            steelWalls.add(env);
-                        }
-                    }
-                }
-                environments.removeAll(steelWalls);
-
-                // Add brick walls back
-                environments.add(new BrickWall(baseX - cellSize, baseY - cellSize));
-                environments.add(new BrickWall(baseX, baseY - cellSize));
-                environments.add(new BrickWall(baseX + cellSize, baseY - cellSize));
-                environments.add(new BrickWall(baseX - cellSize, baseY));
-                environments.add(new BrickWall(baseX + cellSize, baseY));
-            });
-            shovelTimer.setRepeats(false);
-            shovelTimer.start();
+        nearbyPowerUps.clear();
+        powerUpHash.query(collector.getBounds(), nearbyPowerUps);
+        for (PowerUp powerUp : nearbyPowerUps) {
+            powerUp.apply(collector);
+            game.addScore(powerUp.getPoints());
+            handleSpecialPowerUp(powerUp);
+            powerUps.remove(powerUp);
+            powerUpHash.remove(powerUp, powerUp.getBounds());
+            powerUpPools.get(powerUp.getType()).release(powerUp);
         }
     }
 
-    // Spawn enemy if needed
-    private void spawnEnemyIfNeeded() {
-        long currentTime = System.currentTimeMillis();
-
-        // Increase the number of enemies for larger map
-        if (enemiesSpawned < totalEnemies &&
-                enemyTanks.size() < maxEnemiesOnScreen &&
-                currentTime - lastEnemySpawnTime > enemySpawnDelay) {
-
-            // Select a random spawn point
-            if (!enemySpawnPoints.isEmpty()) {
-                int index = (int) (Math.random() * enemySpawnPoints.size());
-                Point spawnPoint = enemySpawnPoints.get(index);
-
-                // Check if spawn point is clear
-                Rectangle spawnRect = new Rectangle(
-                        (int)spawnPoint.getX(), (int)spawnPoint.getY(), cellSize, cellSize);
-
-                boolean spawnClear = true;
-
-                // Check for collisions with existing tanks
-                for (EnemyTank tank : enemyTanks) {
-                    if (tank.getBounds().intersects(spawnRect)) {
-                        spawnClear = false;
-                        break;
-                    }
-                }
-
-                if (player1 != null && player1.getBounds().intersects(spawnRect)) {
-                    spawnClear = false;
-                }
-
-                if (player2 != null && player2.getBounds().intersects(spawnRect)) {
-                    spawnClear = false;
+    // Handle special power-ups that affect the game globally
+    private void handleSpecialPowerUp(PowerUp powerUp) {
+        switch (powerUp.getType()) {
+            case PowerUp.GRENADE:
+                // Destroy all enemies
+                for (EnemyTank enemyTank : enemyTanks) {
+                    game.addScore(enemyTank.getPoints());
+                    // Add explosion effect for each tank
+                    addExplosionEffect(enemyTank.getX(), enemyTank.getY());
                 }
+                int enemiesCount = enemyTanks.size();
+                releaseAllEnemies();
+                enemiesDefeated += enemiesCount;
 
-                // Additional check for environment objects
-                for (Environment env : environments) {
-                    if (!env.isPassable() && env.getBounds().intersects(spawnRect)) {
-                        spawnClear = false;
-                        break;
-                    }
+                if (debug) {
+                    System.out.println("Grenade power-up destroyed " + enemiesCount + " tanks");
                 }
-
-                // Check if any bullets are near this spawn point
-                for (Bullet bullet : bullets) {
-                    if (bullet.getBounds().intersects(spawnRect)) {
-                        spawnClear = false;
-                        break;
-                    }
+                break;
+            case PowerUp.TIMER:
+                // Freeze all enemies for a duration
+                for (EnemyTank enemyTank : enemyTanks) {
+                    enemyTank.setMoving(false);
                 }
 
-                if (spawnClear) {
-                    // Create a random enemy type
-                    EnemyTank enemy = null;
-                    double rand = Math.random();
-
-                    // Adjust enemy type distribution based on level progression
-                    double basicTankChance = 0.6 - (enemiesSpawned / (double)totalEnemies) * 0.4;
-                    double fastTankChance = 0.2 + (enemiesSpawned / (double)totalEnemies) * 0.1;
-                    double powerTankChance = 0.1 + (enemiesSpawned / (double)totalEnemies) * 0.1;
-                    double armorTankChance = 0.1 + (enemiesSpawned / (double)totalEnemies) * 0.2;
-
-                    if (rand < basicTankChance) {
-                        enemy = new BasicTank((int) spawnPoint.getX(), (int) spawnPoint.getY());
-                    } else if (rand < basicTankChance + fastTankChance) {
-                        enemy = new FastTank((int) spawnPoint.getX(), (int) spawnPoint.getY());
-                    } else if (rand < basicTankChance + fastTankChance + powerTankChance) {
-                        enemy = new PowerTank((int) spawnPoint.getX(), (int) spawnPoint.getY());
-                    } else {
-                        enemy = new ArmorTank((int) spawnPoint.getX(), (int) spawnPoint.getY());
-                    }
-
-                    // Set some tanks to flash (for power-up generation)
-                    if (enemiesSpawned == 3 || enemiesSpawned == 10 || enemiesSpawned == 17) {
-                        enemy.setFlashing(true);
-                    }
-
-                    // Set initial invulnerability period - critical for preventing disappearing tanks
-                    enemy.setInvulnerable(true);
-
-                    // Track spawn time
-                    enemySpawnTimes.put(enemy, currentTime);
-
-                    if (debug) {
-                        System.out.println("Spawned enemy tank: " + enemy.getClass().getSimpleName() +
-                                " Health: " + enemy.getHealth() + ", Total spawned: " + enemiesSpawned);
-                    }
-
-                    enemyTanks.add(enemy);
-                    enemiesSpawned++;
-                    lastEnemySpawnTime = currentTime;
-                }
-            }
+                // Unfreeze when the time is up - a second timer restarts the countdown
+                freezeEndsAt = gameTime + powerUpDuration;
+                break;
+            case PowerUp.HELMET:
+                // Make players invulnerable temporarily
+                // This would require more state tracking that we'll skip for now
+                break;
+            case PowerUp.SHOVEL:
+                // Convert base protection to steel walls temporarily
+                int baseX = (int) baseLocation.getX();
+                int baseY = (int) baseLocation.getY();
+                setBaseWalls(baseX, baseY, TerrainGrid.STEEL);
+
+                // Revert the walls after a duration
+                shovelEndsAt = gameTime + powerUpDuration;
+                break;
         }
     }
 
-    // Spawn a power-up at the given location
-    private void spawnPowerUp(int x, int y) {
-        PowerUp powerUp = null;
-        double rand = Math.random();
-
-        if (rand < 0.17) {
-            powerUp = new Grenade(x, y);
-        } else if (rand < 0.34) {
-            powerUp = new Helmet(x, y);
-        } else if (rand < 0.5) {
-            powerUp = new Shovel(x, y);
-        } else if (rand < 0.67) {
-            powerUp = new Star(x, y);
-        } else if (rand < 0.84) {
-            powerUp = new TankPowerUp(x, y);
-        } else {
-            powerUp = new TimerPowerUp(x, y);
+    // Wear off the timed power-ups whose time on the game clock is up
+    private void expirePowerUps() {
+        if (freezeEndsAt >= 0 && gameTime >= freezeEndsAt) {
+            freezeEndsAt = -1;
+            for (EnemyTank enemyTank : enemyTanks) {
+                enemyTank.setMoving(true);
+            }
         }
-
-        powerUps.add(powerUp);
-    }
-
-    // Method for player to fire
-    public void playerFire(PlayerTank player) {
-        Bullet bullet = player.fire();
-
-        // Only add bullet if one was created (not in cooldown)
-        if (bullet != null) {
-            bullets.add(bullet);
+        if (shovelEndsAt >= 0 && gameTime >= shovelEndsAt) {
+            shovelEndsAt = -1;
+            setBaseWalls((int) baseLocation.getX(), (int) baseLocation.getY(), TerrainGrid.BRICK);
         }
     }
 
-    private Map<EnemyTank, Long> enemyFireCooldowns = new HashMap<>();
+    // Replace the five tiles around the base - the grid journals each swap
+    private void setBaseWalls(int baseX, int baseY, int type) {
+        terrain.setTileAt(baseX - cellSize, baseY - cellSize, type);
+        terrain.setTileAt(baseX, baseY - cellSize, type);
+        terrain.setTileAt(baseX + cellSize, baseY - cellSize, type);
+        terrain.setTileAt(baseX - cellSize, baseY, type);
+        terrain.setTileAt(baseX + cellSize, baseY, type);
+    }
 
-    // Determine when enemies should fire
-    private boolean shouldEnemyFire(EnemyTank tank) {
-        long currentTime = System.currentTimeMillis();
+    // Spawn enemy if needed - O(1) per tick: the wave director answers "is one due?" from
+    // its compiled schedule and one spawn point is checked against the tank hash and bullets
+    private void spawnEnemyIfNeeded() {
+        long currentTime = gameTime;
 
-        // Don't fire if tank is invulnerable (newly spawned)
-        if (tank.isInvulnerable()) {
-            return false;
+        if (enemySpawnPoints.isEmpty() || !waveDirector.isSpawnDue(currentTime, enemyTanks.size())) {
+            return;
         }
 
-        // Each tank type has a different cooldown period
-        long cooldownPeriod;
-        if (tank instanceof PowerTank) {
-            cooldownPeriod = 2000; // 2 seconds for power tanks
-        } else if (tank instanceof FastTank) {
-            cooldownPeriod = 2500; // 2.5 seconds for fast tanks
-        } else if (tank instanceof ArmorTank) {
-            cooldownPeriod = 3000; // 3 seconds for armor tanks
-        } else {
-            cooldownPeriod = 3500; // 3.5 seconds for basic tanks
-        }
+        // Select a spawn point according to the level's spawn rule
+        int index = waveDirector.pickSpawnPoint(enemySpawnPoints.size());
+        Point spawnPoint = enemySpawnPoints.get(index);
 
-        // Check if the tank is still in cooldown
-        Long lastFireTime = enemyFireCooldowns.get(tank);
-        if (lastFireTime != null && (currentTime - lastFireTime) < cooldownPeriod) {
-            return false; // Still in cooldown
+        // Check if spawn point is clear of terrain, tanks and bullets
+        Rectangle spawnRect = new Rectangle(
+                (int)spawnPoint.getX(), (int)spawnPoint.getY(), cellSize, cellSize);
+        if (physics.overlaps(spawnRect, PhysicsQueries.TANK_BLOCKING | PhysicsQueries.TANKS) ||
+                bullets.anyOverlaps(spawnRect)) {
+            waveDirector.spawnBlocked();
+            return;
         }
 
-        // Get AI state to determine firing probability
-        int aiState = getEnemyAIState(tank);
+        EnemyTank enemy = createEnemy(waveDirector.nextType(), (int) spawnPoint.getX(), (int) spawnPoint.getY());
 
-        // Determine if the tank should fire based on alignment and state
-        boolean shouldFire = false;
+        // Flashing tanks drop a power-up when destroyed
+        enemy.setFlashing(waveDirector.nextIsFlashing());
 
-        if (aiState == 1 && isAlignedWithPlayer(tank)) {
-            // In chase player state and aligned with player - high chance to fire
-            shouldFire = Math.random() < 0.8;
-        } else if (aiState == 2 && isAlignedWithBase(tank)) {
-            // In attack base state and aligned with base - very high chance to fire
-            shouldFire = Math.random() < 0.9;
-        } else {
-            // In patrol state or not aligned - low chance to fire
-            shouldFire = Math.random() < 0.1;
-        }
+        // Set initial invulnerability period - critical for preventing disappearing tanks
+        enemy.setInvulnerable(true, currentTime);
 
-        // If deciding to fire, update the cooldown timestamp
-        if (shouldFire) {
-            enemyFireCooldowns.put(tank, currentTime);
+        // Track spawn time
+        enemySpawnTimes.put(enemy, currentTime);
+
+        if (debug) {
+            System.out.println("Spawned enemy tank: " + enemy.getClass().getSimpleName() +
+                    " Health: " + enemy.getHealth() + ", Total spawned: " + enemiesSpawned);
         }
 
-        return shouldFire;
+        enemyTanks.add(enemy);
+        tankHash.insert(enemy, enemy.getBounds());
+        enemiesSpawned++;
+        waveDirector.spawned(currentTime);
     }
 
-
-    // Helper method to get AI state using reflection (since it's private in EnemyTank)
-    private int getEnemyAIState(EnemyTank tank) {
+    // One enemy's think step - it may run on a fork/join worker, so it only touches the tank.
+    // A failure is always reported, debug or not - it may be a race between think workers -
+    // and the tank skips this tick's act step.
+    private void thinkEnemy(EnemyTank enemyTank) {
         try {
-            java.lang.reflect.Field field = EnemyTank.class.getDeclaredField("aiState");
-            field.setAccessible(true);
-            return field.getInt(tank);
-        } catch (Exception e) {
-            return 0; // Default to patrol state if can't access
-        }
-    }
-
-    // Helper method to check if enemy is aligned with a player
-    private boolean isAlignedWithPlayer(EnemyTank tank) {
-        // Check alignment with player 1
-        if (player1 != null) {
-            if (isAligned(tank, player1)) {
-                return true;
-            }
-        }
-
-        // Check alignment with player 2
-        if (player2 != null) {
-            if (isAligned(tank, player2)) {
-                return true;
+            enemyTank.think(aiBoard);
+        } catch (RuntimeException e) {
+            failedThinks.add(enemyTank);
+            synchronized (System.err) {
+                System.err.println("Error in enemy tank AI: " + e);
+                e.printStackTrace();
             }
         }
-
-        return false;
     }
 
-    // Helper method to check if two tanks are aligned for shooting
-    private boolean isAligned(Tank shooter, Tank target) {
-        // Check if in the same column (x position)
-        boolean alignedX = Math.abs((shooter.getX() + shooter.getSize()/2) -
-                (target.getX() + target.getSize()/2)) < shooter.getSize()/2;
-
-        // Check if in the same row (y position)
-        boolean alignedY = Math.abs((shooter.getY() + shooter.getSize()/2) -
-                (target.getY() + target.getSize()/2)) < shooter.getSize()/2;
-
-        // Check if there's a clear line of sight (no walls in between)
-        if (alignedX) {
-            // Vertically aligned - check if path is clear
-            int startY = Math.min(shooter.getY(), target.getY());
-            int endY = Math.max(shooter.getY() + shooter.getSize(), target.getY() + target.getSize());
-            int x = shooter.getX() + shooter.getSize()/2;
+    // Seed the game's randomness - the enemy AI, the waves and the power-up drops. Given the
+    // same seed and the same player input, the enemies make the same decisions. Path searches
+    // then get a fixed amount of work per tick rather than a slice of the clock.
+    public void setSeed(long seed) {
+        aiRandom = new SplittableRandom(seed);
+        waveDirector.setRandom(aiRandom.split());
+        dropRandom = aiRandom.split();
+        pathQueue.setBudgetSlices(SEEDED_PATH_SLICES);
+    }
 
-            return isPathClear(x, x, startY, endY);
+    // Project the player bullets, then fade the influence layers and stamp this tick's
+    // players, enemies and bullet lanes
+    private void updateInfluence() {
+        bulletThreats.update(bullets);
+        influence.decay();
+        if (player1 != null) influence.stampPlayer(player1);
+        if (player2 != null) influence.stampPlayer(player2);
+        for (EnemyTank enemyTank : enemyTanks) {
+            influence.stampEnemy(enemyTank);
         }
-        else if (alignedY) {
-            // Horizontally aligned - check if path is clear
-            int startX = Math.min(shooter.getX(), target.getX());
-            int endX = Math.max(shooter.getX() + shooter.getSize(), target.getX() + target.getSize());
-            int y = shooter.getY() + shooter.getSize()/2;
+        influence.stampBulletLanes(bulletThreats);
+    }
 
-            return isPathClear(startX, endX, y, y);
+    private void holdPlayerCells(PlayerTank player, int owner) {
+        if (player != null) {
+            cooperation.hold(owner, player.getBounds(), cellSize / player.getSpeed());
+        } else {
+            cooperation.release(owner);
         }
+    }
 
-        return false;
+    // Take an enemy tank of a wave type code from its pool and place it
+    private EnemyTank createEnemy(int type, int x, int y) {
+        EnemyTank enemy = enemyPools.get(type).acquire();
+        enemy.reset(x, y);
+        enemy.setRandom(aiRandom.split());
+        return enemy;
     }
 
-    // Helper method to check if aligned with base
-    private boolean isAlignedWithBase(EnemyTank tank) {
-        int baseX = (int)baseLocation.getX() + cellSize/2;
-        int baseY = (int)baseLocation.getY() + cellSize/2;
-        int tankCenterX = tank.getX() + tank.getSize()/2;
-        int tankCenterY = tank.getY() + tank.getSize()/2;
+    // Forget per-tank bookkeeping and give a dead tank back to its pool
+    private void releaseEnemy(EnemyTank tank) {
+        enemySpawnTimes.remove(tank);
+        cooperation.release(tank.getReservationOwner());
+        pathQueue.cancel(tank.getPathRequest());
+        enemyPools.get(tank.getType()).release(tank);
+    }
 
-        // Check if in the same column (x position)
-        boolean alignedX = Math.abs(baseX - tankCenterX) < cellSize/2;
+    // Remove every enemy tank from the field
+    private void releaseAllEnemies() {
+        for (EnemyTank tank : enemyTanks) {
+            releaseEnemy(tank);
+        }
+        enemyTanks.clear();
+    }
 
-        // Check if in the same row (y position)
-        boolean alignedY = Math.abs(baseY - tankCenterY) < cellSize/2;
+    // Spawn a power-up at the given location
+    private void spawnPowerUp(int x, int y) {
+        int type;
+        double rand = dropRandom.nextDouble();
 
-        // Check for clear line of sight
-        if (alignedX) {
-            int startY = Math.min(tankCenterY, baseY);
-            int endY = Math.max(tankCenterY, baseY);
-            return isPathClear(tankCenterX, tankCenterX, startY, endY);
-        }
-        else if (alignedY) {
-            int startX = Math.min(tankCenterX, baseX);
-            int endX = Math.max(tankCenterX, baseX);
-            return isPathClear(startX, endX, tankCenterY, tankCenterY);
+        if (rand < 0.17) {
+            type = PowerUp.GRENADE;
+        } else if (rand < 0.34) {
+            type = PowerUp.HELMET;
+        } else if (rand < 0.5) {
+            type = PowerUp.SHOVEL;
+        } else if (rand < 0.67) {
+            type = PowerUp.STAR;
+        } else if (rand < 0.84) {
+            type = PowerUp.EXTRA_LIFE;
+        } else {
+            type = PowerUp.TIMER;
         }
 
-        return false;
+        PowerUp powerUp = powerUpPools.get(type).acquire();
+        powerUp.reset(x, y);
+        powerUps.add(powerUp);
+        powerUpHash.insert(powerUp, powerUp.getBounds());
     }
 
-    // Helper method to check if path is clear (no walls in between)
-    private boolean isPathClear(int startX, int endX, int startY, int endY) {
-        // Check for any walls in the path
-        for (Environment env : environments) {
-            // Trees don't block line of sight
-            if (!env.isPassable() && !(env instanceof Trees)) {
-                Rectangle envBounds = env.getBounds();
-
-                // Simple check if environment is in the path
-                if (startX == endX) {
-                    // Vertical path
-                    if (envBounds.x <= startX && startX <= envBounds.x + envBounds.width &&
-                            envBounds.y <= endY && startY <= envBounds.y + envBounds.height) {
-                        return false;
-                    }
-                } else if (startY == endY) {
-                    // Horizontal path
-                    if (envBounds.y <= startY && startY <= envBounds.y + envBounds.height &&
-                            envBounds.x <= endX && startX <= envBounds.x + envBounds.width) {
-                        return false;
-                    }
-                }
-            }
-        }
-
-        return true;
+    // Method for player to fire
+    public void playerFire(PlayerTank player) {
+        // Adds nothing while the player's gun is still in cooldown
+        player.fire(bullets, gameTime);
     }
 
     // Check if level is complete - FIXED to prevent premature completion
@@ -1266,16 +1150,53 @@ public class GamePanel extends JPanel {
         return (player1 == null && player2 == null) || baseDestroyed;
     }
 
+    // Hash of the state a game plays out in - the clock, terrain, tanks, bullets, power-ups and
+    // wave progress. Two games with the same seed and the same input hash the same every tick.
+    public long getStateHash() {
+        long hash = gameTime;
+        for (int row = 0; row < terrain.getRows(); row++) {
+            for (int col = 0; col < terrain.getCols(); col++) {
+                hash = 31 * hash + (terrain.getType(col, row) << 16 | terrain.getSections(col, row));
+            }
+        }
+        for (PlayerTank player : new PlayerTank[] {player1, player2}) {
+            hash = player == null ? 31 * hash - 1 : 31 * hashTank(hash, player) + player.getLives();
+        }
+        for (EnemyTank enemyTank : enemyTanks) {
+            hash = 31 * hashTank(hash, enemyTank) + enemyTank.getType();
+        }
+        for (int i = 0; i < bullets.size(); i++) {
+            hash = 31 * hash + bullets.getId(i);
+            hash = 31 * hash + bullets.getX(i);
+            hash = 31 * hash + bullets.getY(i);
+            hash = 31 * hash + bullets.getDx(i);
+            hash = 31 * hash + bullets.getDy(i);
+            hash = 31 * hash + bullets.getPower(i);
+            hash = 31 * hash + bullets.getOwner(i);
+        }
+        for (PowerUp powerUp : powerUps) {
+            hash = 31 * hash + powerUp.getType();
+            hash = 31 * hash + powerUp.getX();
+            hash = 31 * hash + powerUp.getY();
+        }
+        hash = 31 * hash + enemiesSpawned;
+        hash = 31 * hash + enemiesDefeated;
+        return 31 * hash + (baseDestroyed ? 1 : 0);
+    }
+
+    private static long hashTank(long hash, Tank tank) {
+        hash = 31 * hash + tank.getX();
+        hash = 31 * hash + tank.getY();
+        hash = 31 * hash + tank.getDirection().ordinal();
+        return 31 * hash + tank.getHealth();
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
 
-        // Draw background environments (except trees)
-        for (Environment env : environments) {
-            if (!(env instanceof Trees)) {
-                env.draw(g);
-            }
-        }
+        // Draw background environments (except trees) from the cached terrain layer
+        terrainLayer.drawGround(g);
 
         // Draw base (eagle)
         if (!baseDestroyed) {
@@ -1361,15 +1282,11 @@ public class GamePanel extends JPanel {
         }
 
         // Draw trees AFTER tanks to ensure tanks appear to go "behind" trees
-        for (Environment env : environments) {
-            if (env instanceof Trees) {
-                env.draw(g);
-            }
-        }
+        terrainLayer.drawCanopy(g);
 
         // Draw bullets (always on top of everything except effects)
-        for (Bullet bullet : bullets) {
-            bullet.draw(g);
+        for (int i = 0; i < bullets.size(); i++) {
+            bullets.view(i).draw(g);
         }
 
         // Draw effects in front
@@ -1389,9 +1306,22 @@ public class GamePanel extends JPanel {
             g.drawString("Bullets: " + bullets.size(), 10, 65);
             g.drawString("FPS: " + calculateFPS(), 10, 80);
             g.drawString("Effects: " + effects.size(), 10, 95);
+            g.drawString("Precompute: " + precomputeSummary, 10, height - 10);
 
-            // Display recent destroyer log entries
+            // Pool occupancy and high-water marks
             int yPos = 110;
+            g.drawString(bullets.getSummary(), 10, yPos);
+            yPos += 15;
+            yPos = drawPoolSummary(g, explosionPool, yPos);
+            yPos = drawPoolSummary(g, smallExplosionPool, yPos);
+            for (ObjectPool<EnemyTank> pool : enemyPools) {
+                yPos = drawPoolSummary(g, pool, yPos);
+            }
+            for (ObjectPool<PowerUp> pool : powerUpPools) {
+                yPos = drawPoolSummary(g, pool, yPos);
+            }
+
+            // Display recent destroyer log entries
             g.drawString("Recent tank destructions:", 10, yPos);
             yPos += 15;
 
@@ -1425,21 +1355,11 @@ public class GamePanel extends JPanel {
         }
     }
 
-    // Get AI state name for debugging
-    private String getAIStateName(EnemyTank enemy) {
-        try {
-            java.lang.reflect.Field field = EnemyTank.class.getDeclaredField("aiState");
-            field.setAccessible(true);
-            int state = field.getInt(enemy);
-            switch (state) {
-                case 0: return "Patrol";
-                case 1: return "Chase";
-                case 2: return "Base";
-                default: return "Unknown";
-            }
-        } catch (Exception e) {
-            return "Error";
-        }
+    // Draw one pool line of the debug overlay, skipping pools that were never used
+    private int drawPoolSummary(Graphics g, ObjectPool<?> pool, int yPos) {
+        if (pool.getCreated() == 0) return yPos;
+        g.drawString(pool.getSummary(), 10, yPos);
+        return yPos + 15;
     }
 
     // FPS calculation for debug mode
@@ -1477,8 +1397,8 @@ public class GamePanel extends JPanel {
 
     public void testRender() {
         // Clear everything
-        environments.clear();
-        enemyTanks.clear();
+        terrain.clear();
+        releaseAllEnemies();
         bullets.clear();
 
         // Add one visible element
@@ -1486,7 +1406,8 @@ public class GamePanel extends JPanel {
         baseLocation = new Point(width/2, height-100);
 
         // Add a test brick wall
-        environments.add(new BrickWall(100, 100));
+        terrain.setTileAt(100, 100, TerrainGrid.BRICK);
+        precomputeLevelData();
 
         repaint();
         System.out.println("Test render requested");
@@ -1498,12 +1419,20 @@ public class GamePanel extends JPanel {
         protected int lifetime;
         protected int age = 0;
 
-        public Effect(int x, int y, int lifetime) {
+        public Effect(int lifetime) {
+            this.lifetime = lifetime;
+        }
+
+        // Re-initialise a pooled effect at a new location
+        public void reset(int x, int y) {
             this.x = x;
             this.y = y;
-            this.lifetime = lifetime;
+            this.age = 0;
         }
 
+        // Give the effect back to its pool
+        public abstract void release();
+
         public void update() {
             age++;
         }
@@ -1522,10 +1451,15 @@ public class GamePanel extends JPanel {
     // Explosion effect
     private class ExplosionEffect extends Effect {
         private static final int EXPLOSION_LIFETIME = 15;
-        private Color[] colors = {Color.WHITE, Color.YELLOW, Color.ORANGE, Color.RED, Color.GRAY};
+        private final Color[] colors = EXPLOSION_COLORS;
 
-        public ExplosionEffect(int x, int y) {
-            super(x, y, EXPLOSION_LIFETIME);
+        public ExplosionEffect() {
+            super(EXPLOSION_LIFETIME);
+        }
+
+        @Override
+        public void release() {
+            explosionPool.release(this);
         }
 
         @Override
@@ -1554,10 +1488,15 @@ public class GamePanel extends JPanel {
     // Small explosion effect for bullet collisions
     private class SmallExplosionEffect extends Effect {
         private static final int EXPLOSION_LIFETIME = 10;
-        private Color[] colors = {Color.WHITE, Color.YELLOW, Color.ORANGE, Color.GRAY};
+        private final Color[] colors = SMALL_EXPLOSION_COLORS;
+
+        public SmallExplosionEffect() {
+            super(EXPLOSION_LIFETIME);
+        }
 
-        public SmallExplosionEffect(int x, int y) {
-            super(x, y, EXPLOSION_LIFETIME);
+        @Override
+        public void release() {
+            smallExplosionPool.release(this);
         }
 
         @Override
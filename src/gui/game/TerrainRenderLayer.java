@@ -0,0 +1,94 @@
+package gui.game;
+
+import tut01.environments.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * Pre-rendered static terrain. Keeps the ground (everything but trees) and the tree
+ * canopy in two images and only repaints the tiles reported by the TerrainJournal.
+ */
+public class TerrainRenderLayer implements TerrainListener {
+    private final TerrainGrid terrain;
+    private final int width;
+    private final int height;
+    private BufferedImage ground;
+    private BufferedImage canopy;
+
+    public TerrainRenderLayer(TerrainGrid terrain, int width, int height) {
+        this.terrain = terrain;
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public void onTerrainChanged(List<TerrainChange> changes, long version) {
+        if (ground == null) {
+            rebuild();
+            return;
+        }
+
+        for (TerrainChange change : changes) {
+            repaintRegion(new Rectangle(change.getX(), change.getY(), change.getSize(), change.getSize()));
+        }
+    }
+
+    @Override
+    public void onTerrainReset(long version) {
+        rebuild();
+    }
+
+    // Redraw both layers from scratch
+    public void rebuild() {
+        ground = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        canopy = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        repaintRegion(new Rectangle(0, 0, width, height));
+    }
+
+    // Clear a region of both layers and redraw every tile that touches it
+    private void repaintRegion(Rectangle region) {
+        Graphics2D groundGraphics = ground.createGraphics();
+        Graphics2D canopyGraphics = canopy.createGraphics();
+
+        try {
+            for (Graphics2D g : new Graphics2D[]{groundGraphics, canopyGraphics}) {
+                g.setClip(region);
+                g.setComposite(AlphaComposite.Clear);
+                g.fillRect(region.x, region.y, region.width, region.height);
+                g.setComposite(AlphaComposite.SrcOver);
+            }
+
+            int cellSize = terrain.getCellSize();
+            int minCol = Math.max(0, region.x / cellSize);
+            int minRow = Math.max(0, region.y / cellSize);
+            int maxCol = Math.min(terrain.getCols() - 1, (region.x + region.width - 1) / cellSize);
+            int maxRow = Math.min(terrain.getRows() - 1, (region.y + region.height - 1) / cellSize);
+            for (int row = minRow; row <= maxRow; row++) {
+                for (int col = minCol; col <= maxCol; col++) {
+                    Environment env = terrain.getEnvironment(col, row);
+                    if (env == null) continue;
+
+                    Graphics2D g = env.getType() == TerrainGrid.TREES ? canopyGraphics : groundGraphics;
+                    env.draw(g, col * cellSize, row * cellSize, terrain.getSections(col, row));
+                }
+            }
+        } finally {
+            groundGraphics.dispose();
+            canopyGraphics.dispose();
+        }
+    }
+
+    // Draw walls, water and ice - call before tanks
+    public void drawGround(Graphics g) {
+        if (ground == null) rebuild();
+        g.drawImage(ground, 0, 0, null);
+    }
+
+    // Draw trees - call after tanks so they hide underneath
+    public void drawCanopy(Graphics g) {
+        if (canopy == null) rebuild();
+        g.drawImage(canopy, 0, 0, null);
+    }
+}
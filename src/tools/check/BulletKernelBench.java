@@ -0,0 +1,136 @@
+package tools.check;
+
+import tut01.tanks.Bullet;
+import tut01.tanks.BulletStore;
+import tut01.tanks.Tank;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks the BulletStore bulk kernels (swept-overlap marking, bounds culling) against plain
+ * branchy versions on random bullets, then times them and advance() on a large store.
+ *
+ * Usage: java tools.check.BulletKernelBench [bullets]
+ * Run it a second time with -XX:-UseSuperWord to time the same loops without vector lanes.
+ * Exits with status 1 if a kernel disagrees with its reference.
+ */
+public class BulletKernelBench {
+    private static final int FIELD = 640;
+    private static final int TANKS = 8;
+    private static final int WARMUP = 20000;
+    private static final int ROUNDS = 5000;
+
+    public static void main(String[] args) {
+        int bullets = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        Random random = new Random(7);
+
+        int mismatches = check(random);
+        System.out.println("kernel mismatches: " + mismatches);
+
+        BulletStore store = new BulletStore();
+        for (int i = 0; i < bullets; i++) {
+            store.add(100 + random.nextInt(440), 100 + random.nextInt(440), 0, (random.nextInt(2) * 2 - 1) * 4, 0,
+                    BulletStore.OWNER_ENEMY);
+        }
+        Rectangle[] tanks = new Rectangle[TANKS];
+        for (int k = 0; k < TANKS; k++) {
+            tanks[k] = new Rectangle(random.nextInt(600), random.nextInt(600), 40, 40);
+        }
+
+        // Nothing leaves the (huge) bounds while the bullets stand still, so every round works on
+        // the full store; advance() only runs once bounds has been timed
+        for (int w = 0; w < WARMUP; w++) {
+            markAll(store, tanks);
+            store.removeOutOfBounds(Integer.MAX_VALUE / 2, Integer.MAX_VALUE / 2);
+        }
+
+        long start = System.nanoTime();
+        for (int w = 0; w < ROUNDS; w++) {
+            markAll(store, tanks);
+        }
+        report(bullets + " bullets x " + TANKS + " tanks, overlap marking", start);
+
+        start = System.nanoTime();
+        for (int w = 0; w < ROUNDS; w++) {
+            store.removeOutOfBounds(Integer.MAX_VALUE / 2, Integer.MAX_VALUE / 2);
+        }
+        report(bullets + " bullets, bounds", start);
+
+        for (int w = 0; w < WARMUP; w++) {
+            store.advance();
+        }
+        start = System.nanoTime();
+        for (int w = 0; w < ROUNDS; w++) {
+            store.advance();
+        }
+        report(bullets + " bullets, advance", start);
+
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Random stores and rectangles - count the bullets a kernel gets wrong
+    private static int check(Random random) {
+        int mismatches = 0;
+        Tank.Direction[] directions = Tank.Direction.values();
+        for (int trial = 0; trial < 200; trial++) {
+            BulletStore store = new BulletStore();
+            int count = 1 + random.nextInt(300);
+            for (int i = 0; i < count; i++) {
+                Tank.Direction direction = directions[random.nextInt(directions.length)];
+                int speed = random.nextInt(30);
+                store.add(random.nextInt(800) - 80, random.nextInt(800) - 80,
+                        direction.getDx() * speed, direction.getDy() * speed, 0, BulletStore.OWNER_ENEMY);
+            }
+            Rectangle[] rectangles = new Rectangle[1 + random.nextInt(6)];
+            for (int k = 0; k < rectangles.length; k++) {
+                rectangles[k] = new Rectangle(random.nextInt(FIELD), random.nextInt(FIELD), 40, 40);
+            }
+
+            // Marking: the box swept from the previous position to this one
+            markAll(store, rectangles);
+            for (int i = 0; i < store.size(); i++) {
+                int x = store.getX(i), y = store.getY(i), dx = store.getDx(i), dy = store.getDy(i);
+                Rectangle swept = new Rectangle(Math.min(x - dx, x) - Bullet.SIZE / 2, Math.min(y - dy, y) - Bullet.SIZE / 2,
+                        Bullet.SIZE + Math.abs(dx), Bullet.SIZE + Math.abs(dy));
+                boolean expected = false;
+                for (Rectangle rectangle : rectangles) {
+                    expected |= swept.intersects(rectangle);
+                }
+                if (expected != store.isMarked(i)) mismatches++;
+            }
+
+            // Bounds: the same bullets have to survive, in whatever slots
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < store.size(); i++) {
+                int x = store.getX(i), y = store.getY(i);
+                if (x >= 0 && x <= FIELD && y >= 0 && y <= FIELD) expected.add(store.getId(i));
+            }
+            store.removeOutOfBounds(FIELD, FIELD);
+            List<Integer> kept = new ArrayList<>();
+            for (int i = 0; i < store.size(); i++) {
+                kept.add(store.getId(i));
+            }
+            Collections.sort(expected);
+            Collections.sort(kept);
+            if (!expected.equals(kept)) mismatches++;
+        }
+        return mismatches;
+    }
+
+    private static void markAll(BulletStore store, Rectangle[] rectangles) {
+        store.clearMarks();
+        for (Rectangle rectangle : rectangles) {
+            store.markSweptOverlaps(rectangle);
+        }
+    }
+
+    private static void report(String what, long start) {
+        System.out.printf("%s: %.1f us%n", what, (System.nanoTime() - start) / (double) ROUNDS / 1e3);
+    }
+}
@@ -0,0 +1,117 @@
+package tools.check;
+
+import tut01.ai.HierarchicalPathfinder;
+import tut01.ai.TileCosts;
+import tut01.environments.TerrainGrid;
+import tut01.environments.TerrainJournal;
+import tut01.physics.ConfigurationSpace;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks the hierarchical pathfinder's incremental cluster graph on random maps that keep
+ * changing under it. After every terrain edit a query on the long-lived finder has to give
+ * the same waypoints as a finder built fresh on the current map, agree with Dijkstra on
+ * whether the goal can be reached, and walk (leg by leg through nextStep) to the goal.
+ * Prints how far the walked routes are from the cheapest ones and what a query costs,
+ * repairs of the changed clusters included.
+ *
+ * Usage: java tools.check.ClusterGraphCheck [maps]
+ * Exits with status 1 on any mismatch.
+ */
+public class ClusterGraphCheck {
+    private static final int STEPS = 100;      // Terrain edits and queries per map
+    private static final int MAX_WALK = 2000;  // Cell steps before a walk counts as lost
+
+    public static void main(String[] args) {
+        int maps = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        Random random = new Random(3);
+        int cells = RandomMaps.SIZE * RandomMaps.SIZE;
+
+        int queries = 0, mismatches = 0, reachMismatches = 0, badWalks = 0, walked = 0;
+        double costRatio = 0;
+        long queryNanos = 0;
+        int[] waypoints = new int[cells];
+        int[] freshWaypoints = new int[cells];
+        for (int map = 0; map < maps; map++) {
+            TerrainGrid terrain = RandomMaps.terrain(random, 0.3, 0.1, 0.05);
+            ConfigurationSpace tankSpace = new ConfigurationSpace(terrain, RandomMaps.CELL_SIZE);
+            TileCosts costs = new TileCosts(terrain, tankSpace);
+            TerrainJournal journal = RandomMaps.attach(terrain, tankSpace, costs);
+            HierarchicalPathfinder finder = new HierarchicalPathfinder(costs);
+            finder.update();
+
+            for (int step = 0; step < STEPS; step++) {
+                int edit = random.nextInt(5);
+                if (edit == 0) {
+                    RandomMaps.replaceRandomTile(random, terrain, TerrainGrid.STEEL, TerrainGrid.EMPTY);
+                } else if (edit < 3) {
+                    RandomMaps.shootRandomTile(random, terrain, 0, 1);
+                }
+                journal.commit();
+
+                int start = random.nextInt(cells);
+                int goal = random.nextInt(cells);
+                if (costs.getCost(start) < 0) continue;
+
+                long begin = System.nanoTime();
+                int count = find(finder, start, goal, waypoints);
+                queryNanos += System.nanoTime() - begin;
+                queries++;
+
+                int freshCount = find(new HierarchicalPathfinder(costs), start, goal, freshWaypoints);
+                if (count != freshCount || !Arrays.equals(Arrays.copyOf(waypoints, Math.max(count, 0)),
+                        Arrays.copyOf(freshWaypoints, Math.max(freshCount, 0)))) {
+                    mismatches++;
+                }
+
+                int[] cheapest = ReferencePaths.costsTo(costs, goal);
+                boolean reachable = cheapest[start] != ReferencePaths.UNREACHABLE;
+                if (reachable != count > 0) {
+                    reachMismatches++;
+                    continue;
+                }
+                if (count <= 0) continue;
+
+                int cost = walk(finder, costs, start, waypoints, count);
+                if (cost < 0 || waypoints[count - 1] != goal) {
+                    badWalks++;
+                } else if (cheapest[start] > 0) {
+                    costRatio += (double) cost / cheapest[start];
+                    walked++;
+                }
+            }
+        }
+
+        System.out.printf("queries=%d waypoint mismatches=%d reachability mismatches=%d bad walks=%d%n",
+                queries, mismatches, reachMismatches, badWalks);
+        System.out.printf("walked cost / cheapest cost: %.3f on average, query %.1f us on average%n",
+                costRatio / Math.max(1, walked), queryNanos / 1e3 / Math.max(1, queries));
+        if (mismatches + reachMismatches + badWalks > 0) {
+            System.exit(1);
+        }
+    }
+
+    // A whole query in one slice
+    private static int find(HierarchicalPathfinder finder, int start, int goal, int[] out) {
+        finder.beginPath(start, goal);
+        return finder.continuePath(out, Integer.MAX_VALUE);
+    }
+
+    // Follow the waypoints cell by cell - the cost of the walk, -1 if a leg can't be walked
+    private static int walk(HierarchicalPathfinder finder, TileCosts costs, int start, int[] waypoints, int count) {
+        int cell = start;
+        int cost = 0;
+        int steps = 0;
+        for (int i = 0; i < count; i++) {
+            while (cell != waypoints[i]) {
+                int next = finder.nextStep(cell, waypoints[i]);
+                if (next < 0 || ++steps > MAX_WALK) return -1;
+                cost += costs.getCost(next);
+                cell = next;
+            }
+        }
+        return cost;
+    }
+}
@@ -0,0 +1,267 @@
+package tools.check;
+
+import tut01.ai.CooperativePlanner;
+import tut01.ai.TileCosts;
+import tut01.environments.TerrainGrid;
+import tut01.physics.ConfigurationSpace;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Checks CooperativePlanner against a straightforward reference - the same windowed
+ * cooperative A*, but with the space-time table in a HashMap and the search on a
+ * PriorityQueue - over random plans, holds, releases and resets by a dozen tanks on maps of
+ * varying width. Every plan has to come back with the same move.
+ *
+ * Usage: java tools.check.CooperativePlannerCheck [maps]
+ * Exits with status 1 if any plan differs.
+ */
+public class CooperativePlannerCheck {
+    private static final int TANKS = 12;
+    private static final int TICKS = 20000;   // Planner calls per map
+    private static final int TANK_SIZE = 32;
+
+    public static void main(String[] args) {
+        int maps = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int cell = RandomMaps.CELL_SIZE;
+
+        int plans = 0, waits = 0, mismatches = 0;
+        for (int map = 0; map < maps; map++) {
+            Random random = new Random(map);
+            int cols = 16 + random.nextInt(20);
+            int rows = RandomMaps.SIZE;
+            TerrainGrid terrain = RandomMaps.terrain(random, cols, rows, 0.06, 0.06, 0.05);
+            ConfigurationSpace tankSpace = new ConfigurationSpace(terrain, TANK_SIZE);
+            TileCosts costs = new TileCosts(terrain, tankSpace);
+            RandomMaps.attach(terrain, tankSpace, costs);
+
+            CooperativePlanner planner = new CooperativePlanner(cols, rows, cell);
+            ReferencePlanner reference = new ReferencePlanner(cols, rows, cell);
+            int[] owners = new int[TANKS];
+            int[] referenceOwners = new int[TANKS];
+            int[] x = new int[TANKS];
+            int[] y = new int[TANKS];
+            int[] goals = new int[TANKS];
+            for (int i = 0; i < TANKS; i++) {
+                owners[i] = planner.register();
+                referenceOwners[i] = reference.register();
+                x[i] = random.nextInt(cols) * cell;
+                y[i] = random.nextInt(rows) * cell;
+                goals[i] = random.nextInt(cols * rows);
+            }
+
+            for (int tick = 0; tick < TICKS; tick++) {
+                planner.advance();
+                reference.advance();
+                int i = random.nextInt(TANKS);
+                Rectangle bounds = new Rectangle(x[i] + random.nextInt(8), y[i] + random.nextInt(8), TANK_SIZE, TANK_SIZE);
+                int start = (bounds.y + TANK_SIZE / 2) / cell * cols + (bounds.x + TANK_SIZE / 2) / cell;
+                int goal = goals[i];
+                IntUnaryOperator costToGoal = c -> costs.heuristic(c, goal);
+
+                int action = random.nextInt(10);
+                if (action == 0) {
+                    planner.release(owners[i]);
+                    reference.release(referenceOwners[i]);
+                } else if (action == 1) {
+                    planner.hold(owners[i], bounds, 8);
+                    reference.hold(referenceOwners[i], bounds, 8);
+                } else if (action == 2 && random.nextInt(50) == 0) {
+                    planner.reset();
+                    reference.reset();
+                } else {
+                    int stepTicks = 4 + random.nextInt(12);
+                    int move = planner.plan(owners[i], bounds, start, stepTicks, costToGoal, costs);
+                    int expected = reference.plan(referenceOwners[i], bounds, start, stepTicks, costToGoal, costs);
+                    plans++;
+                    if (move != expected) mismatches++;
+                    if (move == CooperativePlanner.WAIT) waits++;
+
+                    // Sometimes the tank gets there, sometimes it picks a new goal
+                    if (move >= 0 && random.nextInt(3) == 0) {
+                        x[i] = move % cols * cell;
+                        y[i] = move / cols * cell;
+                    }
+                    if (random.nextInt(40) == 0) goals[i] = random.nextInt(cols * rows);
+                }
+            }
+        }
+
+        System.out.println("plans=" + plans + " waits=" + waits + " mismatches=" + mismatches);
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * The planner written the obvious way. Reservations map (slot, cell) to the owner and its
+     * plan version at the time; search nodes are (depth, cell) pairs in a map, and the open
+     * list is a PriorityQueue of f << 32 | depth * cells + cell whose outdated entries are
+     * skipped when they come up.
+     */
+    private static final class ReferencePlanner {
+        private static final int SLOT_TICKS = 4;
+        private static final int WINDOW_SLOTS = 64;
+        private static final int MAX_DEPTH = 8;
+        private static final int INFINITE = Integer.MAX_VALUE / 2;
+
+        private final int cols;
+        private final int rows;
+        private final int cellSize;
+        private final Map<Long, int[]> reservations = new HashMap<>(); // {owner, version}
+        private final Map<Long, int[]> nodes = new HashMap<>();        // {g, parent depth, parent cell}
+        private int[] versions = new int[0];
+        private long tick = 0;
+
+        ReferencePlanner(int cols, int rows, int cellSize) {
+            this.cols = cols;
+            this.rows = rows;
+            this.cellSize = cellSize;
+        }
+
+        void reset() {
+            reservations.clear();
+        }
+
+        void advance() {
+            tick++;
+        }
+
+        int register() {
+            versions = Arrays.copyOf(versions, versions.length + 1);
+            return versions.length - 1;
+        }
+
+        void release(int owner) {
+            versions[owner]++;
+        }
+
+        void hold(int owner, Rectangle bounds, int stepTicks) {
+            release(owner);
+            reserveBounds(owner, bounds, tick / SLOT_TICKS, (tick + stepTicks) / SLOT_TICKS);
+        }
+
+        int plan(int owner, Rectangle bounds, int start, int stepTicks, IntUnaryOperator costToGoal, TileCosts costs) {
+            release(owner);
+            long now = tick / SLOT_TICKS;
+            int step = Math.max(1, (stepTicks + SLOT_TICKS - 1) / SLOT_TICKS);
+            int depthLimit = Math.min(MAX_DEPTH, WINDOW_SLOTS / step - 2);
+            reserveBounds(owner, bounds, now, now + 1);
+
+            int cells = cols * rows;
+            nodes.clear();
+            PriorityQueue<Long> open = new PriorityQueue<>();
+            if (remaining(costToGoal, start) >= INFINITE) return -1;
+            open(open, start, -1, 0, 0, remaining(costToGoal, start));
+
+            long end = -1;
+            while (!open.isEmpty()) {
+                long entry = open.poll();
+                int tieBreak = (int) (entry & 0xFFFFFFFFL);
+                int depth = tieBreak / cells;
+                int cell = tieBreak % cells;
+                int g = nodes.get(key(depth, cell))[0];
+                int h = remaining(costToGoal, cell);
+                if (entry >>> 32 != g + h) continue;
+
+                if (depth == depthLimit || h == 0) {
+                    end = key(depth, cell);
+                    break;
+                }
+                long from = now + (long) depth * step;
+                long to = from + step;
+                if (isFree(cell, from, to, owner)) {
+                    open(open, cell, key(depth, cell), depth + 1, g + 1, h);
+                }
+                int col = cell % cols;
+                int row = cell / cols;
+                int[] moves = {col + 1 < cols ? cell + 1 : -1, col > 0 ? cell - 1 : -1,
+                        row + 1 < rows ? cell + cols : -1, row > 0 ? cell - cols : -1};
+                for (int next : moves) {
+                    if (next < 0 || costs.getCost(next) < 0 || !isFree(next, from, to, owner)) continue;
+                    int nextH = remaining(costToGoal, next);
+                    if (nextH < INFINITE) {
+                        open(open, next, key(depth, cell), depth + 1, g + costs.getCost(next), nextH);
+                    }
+                }
+            }
+            if (end < 0) return -1;
+
+            // Route from the start, then each step holds both cells, the last one a step longer
+            int length = 0;
+            int[] route = new int[MAX_DEPTH + 1];
+            for (long node = end; node >= 0; node = parent(node)) {
+                length++;
+            }
+            int i = length;
+            for (long node = end; node >= 0; node = parent(node)) {
+                route[--i] = (int) node;
+            }
+            for (int k = 0; k + 1 < length; k++) {
+                long from = now + (long) k * step;
+                reserve(owner, route[k], from, from + step);
+                reserve(owner, route[k + 1], from, from + step);
+            }
+            long last = now + (long) (length - 1) * step;
+            reserve(owner, route[length - 1], last, last + step);
+
+            if (length == 1) return CooperativePlanner.WAIT;
+            return route[1] == start ? CooperativePlanner.WAIT : route[1];
+        }
+
+        private void open(PriorityQueue<Long> open, int cell, long parent, int depth, int g, int h) {
+            int[] node = nodes.get(key(depth, cell));
+            if (node != null && node[0] <= g) return;
+            nodes.put(key(depth, cell), new int[] {g, parent < 0 ? -1 : (int) (parent >>> 32), (int) parent});
+            open.add(((long) (g + h) << 32) | (depth * cols * rows + cell));
+        }
+
+        private long parent(long node) {
+            int[] fields = nodes.get(node);
+            return fields[1] < 0 ? -1 : key(fields[1], fields[2]);
+        }
+
+        private static long key(int depth, int cell) {
+            return (long) depth << 32 | cell;
+        }
+
+        private boolean isFree(int cell, long from, long to, int owner) {
+            for (long slot = from; slot <= to; slot++) {
+                int[] reservation = reservations.get(slot << 32 | cell);
+                if (reservation != null && reservation[0] != owner && reservation[1] == versions[reservation[0]]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void reserve(int owner, int cell, long from, long to) {
+            for (long slot = from; slot <= to && slot < tick / SLOT_TICKS + WINDOW_SLOTS; slot++) {
+                reservations.put(slot << 32 | cell, new int[] {owner, versions[owner]});
+            }
+        }
+
+        private void reserveBounds(int owner, Rectangle bounds, long from, long to) {
+            int firstCol = Math.max(0, bounds.x / cellSize);
+            int lastCol = Math.min(cols - 1, (bounds.x + bounds.width - 1) / cellSize);
+            int firstRow = Math.max(0, bounds.y / cellSize);
+            int lastRow = Math.min(rows - 1, (bounds.y + bounds.height - 1) / cellSize);
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int col = firstCol; col <= lastCol; col++) {
+                    reserve(owner, row * cols + col, from, to);
+                }
+            }
+        }
+
+        private static int remaining(IntUnaryOperator costToGoal, int cell) {
+            int h = costToGoal.applyAsInt(cell);
+            return h < 0 || h >= INFINITE ? INFINITE : h;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package tools.check;
+
+import tut01.environments.TerrainGrid;
+import tut01.environments.TerrainJournal;
+import tut01.physics.ConfigurationSpace;
+import tut01.physics.LineOfFireTable;
+import tut01.physics.PhysicsQueries;
+import tut01.physics.SpatialHash;
+
+import java.util.Random;
+
+/**
+ * Checks that PhysicsQueries.isLineClear, answered from the line-of-fire prefix tables, agrees
+ * with a sub-cell raycast on random row and column segments - some running off the map - while
+ * walls are placed, removed and shot away between queries. Prints what each answer costs.
+ *
+ * Usage: java tools.check.LineOfFireCheck [maps]
+ * Exits with status 1 if any segment disagrees.
+ */
+public class LineOfFireCheck {
+    private static final int SEGMENTS = 300;   // Per map, one terrain edit before each
+    private static final int MARGIN = 30;      // How far segment ends may lie off the map
+
+    public static void main(String[] args) {
+        int maps = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        Random random = new Random(5);
+        int field = RandomMaps.SIZE * RandomMaps.CELL_SIZE;
+        int span = field + 2 * MARGIN;
+
+        int segments = 0, mismatches = 0;
+        long raycastNanos = 0, tableNanos = 0;
+        for (int map = 0; map < maps; map++) {
+            TerrainGrid terrain = RandomMaps.terrain(random, 0.3, 0.1, 0.05);
+            ConfigurationSpace tankSpace = new ConfigurationSpace(terrain, RandomMaps.CELL_SIZE);
+            LineOfFireTable lineOfFire = new LineOfFireTable(terrain);
+            TerrainJournal journal = RandomMaps.attach(terrain, tankSpace, lineOfFire);
+            PhysicsQueries physics = new PhysicsQueries(terrain, tankSpace,
+                    new SpatialHash<>(field, field, 2 * RandomMaps.CELL_SIZE), lineOfFire);
+
+            for (int i = 0; i < SEGMENTS; i++) {
+                int edit = random.nextInt(4);
+                if (edit == 0) {
+                    RandomMaps.replaceRandomTile(random, terrain, TerrainGrid.BRICK, TerrainGrid.EMPTY);
+                } else if (edit == 1) {
+                    RandomMaps.shootRandomTile(random, terrain, random.nextInt(3) - 1, 1);
+                }
+                journal.commit();
+
+                int x1 = random.nextInt(span) - MARGIN, y1 = random.nextInt(span) - MARGIN;
+                int x2 = random.nextInt(span) - MARGIN, y2 = random.nextInt(span) - MARGIN;
+                if (random.nextBoolean()) {
+                    y2 = y1;
+                } else {
+                    x2 = x1;
+                }
+
+                long start = System.nanoTime();
+                boolean rayClear = physics.raycast(x1, y1, x2, y2, PhysicsQueries.BULLET_BLOCKING) < 0;
+                raycastNanos += System.nanoTime() - start;
+                start = System.nanoTime();
+                boolean tableClear = physics.isLineClear(x1, y1, x2, y2, PhysicsQueries.BULLET_BLOCKING);
+                tableNanos += System.nanoTime() - start;
+
+                segments++;
+                if (rayClear != tableClear) {
+                    if (mismatches++ < 5) {
+                        System.out.println("(" + x1 + ", " + y1 + ") - (" + x2 + ", " + y2 + "): raycast "
+                                + rayClear + ", table " + tableClear);
+                    }
+                }
+            }
+        }
+
+        System.out.println("segments=" + segments + " mismatches=" + mismatches + " raycast ns="
+                + raycastNanos / segments + " table ns=" + tableNanos / segments);
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package tools.check;
+
+import tut01.ai.HierarchicalPathfinder;
+import tut01.ai.PathRequest;
+import tut01.ai.PathRequestQueue;
+import tut01.ai.TileCosts;
+import tut01.environments.TerrainGrid;
+import tut01.environments.TerrainJournal;
+import tut01.physics.ConfigurationSpace;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks the time-sliced waypoint searches. First, searches run one entrance expansion per
+ * slice, with nextStep calls and terrain edits in between, have to end with the same
+ * waypoints as a search run in one go on a fresh finder afterwards. Then batches of requests
+ * go through a PathRequestQueue on its per-tick budget: every answer has to match a direct
+ * search, and the check prints how many ticks the batch took, the slowest tick, and what
+ * running the whole batch at once costs.
+ *
+ * Usage: java tools.check.PathQueueCheck [maps]
+ * Exits with status 1 on any mismatch.
+ */
+public class PathQueueCheck {
+    private static final int QUERIES = 100;         // Sliced searches per map
+    private static final int BATCH = 200;           // Requests submitted at once
+    private static final int BATCHES = 10;          // The first ones warm up the JIT
+    private static final long BUDGET_MICROS = 300;  // The game's per-tick budget
+
+    public static void main(String[] args) {
+        int maps = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int mismatches = checkSlices(maps) + checkQueue();
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static int checkSlices(int maps) {
+        Random random = new Random(5);
+        int cells = RandomMaps.SIZE * RandomMaps.SIZE;
+        int queries = 0, slices = 0, edits = 0, mismatches = 0;
+        int[] waypoints = new int[cells];
+        int[] freshWaypoints = new int[cells];
+        for (int map = 0; map < maps; map++) {
+            TerrainGrid terrain = RandomMaps.terrain(random, 0.3, 0.1, 0.05);
+            ConfigurationSpace tankSpace = new ConfigurationSpace(terrain, RandomMaps.CELL_SIZE);
+            TileCosts costs = new TileCosts(terrain, tankSpace);
+            TerrainJournal journal = RandomMaps.attach(terrain, tankSpace, costs);
+            HierarchicalPathfinder finder = new HierarchicalPathfinder(costs);
+            finder.update();
+
+            for (int query = 0; query < QUERIES; query++) {
+                int start = random.nextInt(cells);
+                int goal = random.nextInt(cells);
+                if (costs.getCost(start) < 0) continue;
+
+                // Leg refinement and map changes land between the slices, as they do in play
+                finder.beginPath(start, goal);
+                int count;
+                while ((count = finder.continuePath(waypoints, 1)) == HierarchicalPathfinder.SEARCHING) {
+                    slices++;
+                    finder.nextStep(random.nextInt(cells), random.nextInt(cells));
+                    if (random.nextInt(20) == 0) {
+                        RandomMaps.replaceRandomTile(random, terrain, TerrainGrid.STEEL, TerrainGrid.EMPTY);
+                        journal.commit();
+                        edits++;
+                    }
+                }
+                queries++;
+
+                int freshCount = find(new HierarchicalPathfinder(costs), start, goal, freshWaypoints);
+                if (!samePath(waypoints, count, freshWaypoints, freshCount)) mismatches++;
+            }
+        }
+        System.out.println("sliced searches=" + queries + " slices=" + slices + " edits mid-search=" + edits
+                + " mismatches=" + mismatches);
+        return mismatches;
+    }
+
+    private static int checkQueue() {
+        Random random = new Random(9);
+        int cells = RandomMaps.SIZE * RandomMaps.SIZE;
+        TerrainGrid terrain = RandomMaps.terrain(random, 0.25, 0.1, 0);
+        ConfigurationSpace tankSpace = new ConfigurationSpace(terrain, RandomMaps.CELL_SIZE);
+        TileCosts costs = new TileCosts(terrain, tankSpace);
+        RandomMaps.attach(terrain, tankSpace, costs);
+        HierarchicalPathfinder finder = new HierarchicalPathfinder(costs);
+        finder.update();
+
+        int mismatches = 0;
+        int[] waypoints = new int[cells];
+        for (int batch = 0; batch < BATCHES; batch++) {
+            PathRequestQueue queue = new PathRequestQueue(finder, BUDGET_MICROS);
+            PathRequest[] requests = new PathRequest[BATCH];
+            int[] starts = new int[BATCH];
+            int[] goals = new int[BATCH];
+            for (int i = 0; i < BATCH; i++) {
+                do {
+                    starts[i] = random.nextInt(cells);
+                } while (costs.getCost(starts[i]) < 0);
+                goals[i] = random.nextInt(cells);
+                requests[i] = new PathRequest();
+                queue.submit(requests[i], starts[i], goals[i]);
+            }
+
+            int ticks = 0;
+            long slowest = 0;
+            while (anyQueued(requests)) {
+                long start = System.nanoTime();
+                queue.service();
+                slowest = Math.max(slowest, System.nanoTime() - start);
+                ticks++;
+            }
+
+            for (int i = 0; i < BATCH; i++) {
+                int count = find(finder, starts[i], goals[i], waypoints);
+                PathRequest request = requests[i];
+                if (count > 0 ? request.getState() != PathRequest.READY || request.getCount() != count
+                        : request.getState() != PathRequest.NO_ROUTE) {
+                    mismatches++;
+                    continue;
+                }
+                for (int k = 0; k < count; k++) {
+                    if (request.getCell(k) != waypoints[k]) {
+                        mismatches++;
+                        break;
+                    }
+                }
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < BATCH; i++) {
+                find(finder, starts[i], goals[i], waypoints);
+            }
+            long atOnce = System.nanoTime() - start;
+            System.out.printf("%d requests: %d ticks, slowest tick %.0f us, all at once %.0f us%n",
+                    BATCH, ticks, slowest / 1e3, atOnce / 1e3);
+        }
+        System.out.println("queued answers differing from a direct search: " + mismatches);
+        return mismatches;
+    }
+
+    private static boolean anyQueued(PathRequest[] requests) {
+        for (PathRequest request : requests) {
+            if (request.getState() == PathRequest.QUEUED) return true;
+        }
+        return false;
+    }
+
+    // A whole search in one slice
+    private static int find(HierarchicalPathfinder finder, int start, int goal, int[] out) {
+        finder.beginPath(start, goal);
+        return finder.continuePath(out, Integer.MAX_VALUE);
+    }
+
+    private static boolean samePath(int[] a, int countA, int[] b, int countB) {
+        return countA == countB && Arrays.equals(Arrays.copyOf(a, Math.max(countA, 0)), Arrays.copyOf(b, Math.max(countB, 0)));
+    }
+}
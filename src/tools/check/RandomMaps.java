@@ -0,0 +1,63 @@
+package tools.check;
+
+import tut01.environments.TerrainGrid;
+import tut01.environments.TerrainJournal;
+import tut01.environments.TerrainListener;
+
+import java.awt.Rectangle;
+import java.util.Random;
+
+/**
+ * Random maps for the checks, with their terrain listeners wired up the way a level load does
+ */
+final class RandomMaps {
+    static final int SIZE = 16;        // Tiles per side, like the shipped levels
+    static final int CELL_SIZE = 40;
+
+    private RandomMaps() {
+    }
+
+    // A map whose tiles are brick, steel or water with the given odds, the rest empty
+    static TerrainGrid terrain(Random random, double brick, double steel, double water) {
+        return terrain(random, SIZE, SIZE, brick, steel, water);
+    }
+
+    static TerrainGrid terrain(Random random, int cols, int rows, double brick, double steel, double water) {
+        TerrainGrid terrain = new TerrainGrid(cols, rows, CELL_SIZE);
+        for (int col = 0; col < cols; col++) {
+            for (int row = 0; row < rows; row++) {
+                double roll = random.nextDouble();
+                terrain.setTile(col, row, roll < brick ? TerrainGrid.BRICK
+                        : roll < brick + steel ? TerrainGrid.STEEL
+                        : roll < brick + steel + water ? TerrainGrid.WATER : TerrainGrid.EMPTY);
+            }
+        }
+        return terrain;
+    }
+
+    // Give the terrain a journal and bring each listener up from a reset, in the order given
+    static TerrainJournal attach(TerrainGrid terrain, TerrainListener... listeners) {
+        TerrainJournal journal = new TerrainJournal();
+        terrain.setJournal(journal);
+        long version = journal.reset();
+        for (TerrainListener listener : listeners) {
+            journal.addListener(listener);
+            listener.onTerrainReset(version);
+        }
+        return journal;
+    }
+
+    // Shoot a bullet-sized hole into a random tile
+    static void shootRandomTile(Random random, TerrainGrid terrain, int dx, int dy) {
+        int col = random.nextInt(SIZE);
+        int row = random.nextInt(SIZE);
+        Rectangle hit = new Rectangle(col * CELL_SIZE + random.nextInt(CELL_SIZE - 6),
+                row * CELL_SIZE + random.nextInt(CELL_SIZE - 6), 6, 6);
+        terrain.hitByBullet(hit, dx, dy, 1);
+    }
+
+    // Replace a random tile with one of the given types
+    static void replaceRandomTile(Random random, TerrainGrid terrain, int... types) {
+        terrain.setTile(random.nextInt(SIZE), random.nextInt(SIZE), types[random.nextInt(types.length)]);
+    }
+}
@@ -0,0 +1,50 @@
+package tools.check;
+
+import tut01.ai.TileCosts;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Plain Dijkstra over the tile costs, the reference the planner checks compare against
+ */
+final class ReferencePaths {
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private ReferencePaths() {
+    }
+
+    // Cheapest cost from every cell to the goal, where a step costs what entering its cell
+    // costs - UNREACHABLE where the goal can't be reached
+    static int[] costsTo(TileCosts costs, int goal) {
+        int cols = costs.getCols();
+        int rows = costs.getRows();
+        int[] distance = new int[cols * rows];
+        Arrays.fill(distance, UNREACHABLE);
+        distance[goal] = 0;
+
+        // Queued as {distance, cell}; entries left behind by a shorter route are skipped
+        PriorityQueue<long[]> open = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        open.add(new long[] {0, goal});
+        while (!open.isEmpty()) {
+            long[] entry = open.poll();
+            int cell = (int) entry[1];
+            if (entry[0] != distance[cell]) continue;
+
+            // Stepping into this cell from a neighbour costs this cell's cost
+            int enter = costs.getCost(cell);
+            if (enter < 0) continue;
+            int col = cell % cols;
+            int row = cell / cols;
+            int[] neighbours = {col + 1 < cols ? cell + 1 : -1, col > 0 ? cell - 1 : -1,
+                    row + 1 < rows ? cell + cols : -1, row > 0 ? cell - cols : -1};
+            for (int next : neighbours) {
+                if (next >= 0 && distance[cell] + enter < distance[next]) {
+                    distance[next] = distance[cell] + enter;
+                    open.add(new long[] {distance[next], next});
+                }
+            }
+        }
+        return distance;
+    }
+}
@@ -0,0 +1,139 @@
+package tools.check;
+
+import gui.game.GameEvents;
+import gui.game.GamePanel;
+import tut01.tanks.PlayerTank;
+import tut01.tanks.Tank;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks that a seeded game replays: each level is played twice, headless, with the same
+ * seed and the same scripted input for both players, and the game state hash (plus the
+ * score and lives reported to the game) has to match on every tick. The first run goes flat
+ * out and the replay at the game's real tick rate, so anything still reading the wall clock
+ * shows up as a difference. A third run with another seed has to drift apart, which shows
+ * the hash does see the enemies' decisions.
+ *
+ * Usage: java -Djava.awt.headless=true tools.check.ReplayCheck [ticks] [seed]
+ * Exits with status 1 if a replay diverges.
+ */
+public class ReplayCheck {
+    private static final int LEVELS = 5;
+
+    public static void main(String[] args) throws IOException {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 600;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+
+        int diverged = 0;
+        for (int level = 1; level <= LEVELS; level++) {
+            long[] first = play(level, seed, ticks, false);
+            long[] second = play(level, seed, ticks, true);
+            long[] other = play(level, seed + 1, ticks, false);
+
+            int split = firstDifference(first, second);
+            int otherSplit = firstDifference(first, other);
+            if (split >= 0) diverged++;
+            System.out.println("level " + level + ": " + first.length + " ticks, replay "
+                    + (split < 0 ? "identical" : "diverges at tick " + split) + ", seed " + (seed + 1)
+                    + (otherSplit < 0 ? " identical as well" : " drifts apart at tick " + otherSplit));
+        }
+        if (diverged > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Play a level and return the state hash after every tick, stopping early if it ends.
+    // A paced run waits out the rest of each tick like the game's timer does.
+    private static long[] play(int level, long seed, int ticks, boolean paced) throws IOException {
+        Tally tally = new Tally();
+        GamePanel panel = new GamePanel(tally);
+        panel.setSeed(seed);
+        panel.setTwoPlayerMode(true);
+        try (InputStream map = open("level" + level + ".map")) {
+            panel.loadMapFromStream(map);
+        }
+        try (InputStream waves = open("level" + level + ".waves")) {
+            if (waves != null) {
+                panel.loadWavesFromStream(waves, "level" + level + ".waves");
+            }
+        }
+
+        // The players' input is scripted from its own stream, the same for every run
+        Random input = new Random(level);
+        Tank.Direction[] directions = Tank.Direction.values();
+        long[] hashes = new long[ticks];
+        int played = 0;
+        long nextTick = System.nanoTime();
+        while (played < ticks && !panel.isGameOver() && !panel.isLevelComplete()) {
+            if (paced) {
+                nextTick += GamePanel.TICK_MILLIS * 1_000_000L;
+                sleepUntil(nextTick);
+            }
+            for (PlayerTank player : new PlayerTank[] {panel.getPlayer1(), panel.getPlayer2()}) {
+                if (player == null) continue;
+                if (played % 30 == 0) {
+                    player.setDirection(directions[input.nextInt(directions.length)]);
+                }
+                player.setMoving(input.nextInt(10) > 1);
+                player.setWantsToFire(input.nextInt(3) == 0);
+            }
+            panel.updateGame();
+            hashes[played++] = 31 * (31 * panel.getStateHash() + tally.score) + tally.lives;
+        }
+        return Arrays.copyOf(hashes, played);
+    }
+
+    private static void sleepUntil(long nanoTime) {
+        long wait = nanoTime - System.nanoTime();
+        if (wait <= 0) return;
+        try {
+            Thread.sleep(wait / 1_000_000L, (int) (wait % 1_000_000L));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Level files sit on the class path, or under src/ when run from the project directory
+    private static InputStream open(String name) throws IOException {
+        InputStream in = ReplayCheck.class.getResourceAsStream("/resources/maps/" + name);
+        if (in != null) return in;
+        try {
+            return new FileInputStream("src/resources/maps/" + name);
+        } catch (IOException e) {
+            if (name.endsWith(".map")) throw e;
+            return null;
+        }
+    }
+
+    // Tick of the first differing hash, -1 if the runs match
+    private static int firstDifference(long[] a, long[] b) {
+        int common = Math.min(a.length, b.length);
+        for (int i = 0; i < common; i++) {
+            if (a[i] != b[i]) return i;
+        }
+        return a.length == b.length ? -1 : common;
+    }
+
+    /**
+     * Stands in for the game window - keeps what the panel reports
+     */
+    private static final class Tally implements GameEvents {
+        private int score = 0;
+        private int lives = -1;
+
+        @Override
+        public void addScore(int points) {
+            score += points;
+        }
+
+        @Override
+        public void updatePlayerLives(int lives) {
+            this.lives = lives;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package tut01.ai;
+
+import tut01.physics.PhysicsQueries;
+import tut01.tanks.PlayerTank;
+import tut01.tanks.Tank;
+
+import java.awt.Point;
+
+/**
+ * Everything the enemy AI reads, filled in once per tick before the enemies think. It holds
+ * the level's shared navigation and threat structures, where the players are and which of
+ * them are alive, and per-tile aggregates: which player is nearest to each tile, and the
+ * cells a squad surrounds each player from.
+ *
+ * Enemies post their intents back. An enemy chasing a player claims it and gets a slot in
+ * that player's squad. Slot 0 goes straight at the player, later slots flank it from behind
+ * and from the sides. Target choice reads the previous tick's claims, so a player already
+ * swarmed by a full squad passes new chasers on to the other player.
+ *
+ * Between beginTick and the enemies acting on their decisions nothing here changes, so any
+ * number of enemies can read it at once while they think.
+ */
+public class AiBlackboard {
+    public static final int MAX_PLAYERS = 2;
+    public static final int SQUAD_SIZE = 3;      // Chasers per player before new ones look elsewhere
+    private static final int FLANK_DISTANCE = 2; // Cells from the player a flanker aims for
+    private static final int FLANK_SLOTS = 4;    // Straight at it, behind it, either side
+
+    // Level-wide services
+    private final PhysicsQueries physics;
+    private final TileCosts costs;
+    private final FlowField baseFlow;
+    private final HierarchicalPathfinder paths;
+    private final PathRequestQueue pathQueue;
+    private final CooperativePlanner cooperation;
+    private final InfluenceMap influence;
+    private final BulletThreatMap threats;
+    private final int cols;
+    private final int rows;
+    private final int cellSize;
+
+    // This tick
+    private final PlayerTank[] players = new PlayerTank[MAX_PLAYERS];
+    private final int[] playerCells = new int[MAX_PLAYERS];
+    private final int[][] flankCells = new int[MAX_PLAYERS][FLANK_SLOTS];
+    private final int[] nearestPlayer;   // Per tile, the nearest live player's index, -1 if none
+    private Point baseLocation;
+    private long time;
+    private int[] claims = new int[MAX_PLAYERS];
+    private int[] lastClaims = new int[MAX_PLAYERS];
+
+    public AiBlackboard(PhysicsQueries physics, TileCosts costs, FlowField baseFlow, HierarchicalPathfinder paths,
+                        PathRequestQueue pathQueue, CooperativePlanner cooperation, InfluenceMap influence,
+                        BulletThreatMap threats) {
+        this.physics = physics;
+        this.costs = costs;
+        this.baseFlow = baseFlow;
+        this.paths = paths;
+        this.pathQueue = pathQueue;
+        this.cooperation = cooperation;
+        this.influence = influence;
+        this.threats = threats;
+        this.cols = costs.getCols();
+        this.rows = costs.getRows();
+        this.cellSize = costs.getCellSize();
+        this.nearestPlayer = new int[cols * rows];
+    }
+
+    // Fill in this tick's view of the players, the base and the clock
+    public void beginTick(PlayerTank player1, PlayerTank player2, Point baseLocation, long time) {
+        this.baseLocation = baseLocation;
+        this.time = time;
+        players[0] = isAlive(player1) ? player1 : null;
+        players[1] = isAlive(player2) ? player2 : null;
+
+        int[] swap = lastClaims;
+        lastClaims = claims;
+        claims = swap;
+        for (int i = 0; i < MAX_PLAYERS; i++) {
+            claims[i] = 0;
+            if (players[i] != null) {
+                playerCells[i] = cellOf(players[i]);
+                computeFlankCells(i);
+            }
+        }
+
+        // Nearest player per tile, on squared distances from the tile centre
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int centreX = col * cellSize + cellSize / 2;
+                int centreY = row * cellSize + cellSize / 2;
+                int best = -1;
+                long bestDistance = Long.MAX_VALUE;
+                for (int i = 0; i < MAX_PLAYERS; i++) {
+                    if (players[i] == null) continue;
+                    long dx = players[i].getX() + players[i].getSize() / 2 - centreX;
+                    long dy = players[i].getY() + players[i].getSize() / 2 - centreY;
+                    long distance = dx * dx + dy * dy;
+                    if (distance < bestDistance) {
+                        bestDistance = distance;
+                        best = i;
+                    }
+                }
+                nearestPlayer[row * cols + col] = best;
+            }
+        }
+    }
+
+    private static boolean isAlive(PlayerTank player) {
+        return player != null && player.getHealth() > 0;
+    }
+
+    // Cells around a player a squad closes in from - its own cell, then behind it and to
+    // either side. Tiles a tank can't enter fall back to the player's cell.
+    private void computeFlankCells(int player) {
+        Tank.Direction facing = players[player].getDirection();
+        int col = playerCells[player] % cols;
+        int row = playerCells[player] / cols;
+        int[] offsets = {
+                0, 0,
+                -facing.getDx() * FLANK_DISTANCE, -facing.getDy() * FLANK_DISTANCE,
+                -facing.getDy() * FLANK_DISTANCE, facing.getDx() * FLANK_DISTANCE,
+                facing.getDy() * FLANK_DISTANCE, -facing.getDx() * FLANK_DISTANCE
+        };
+        for (int slot = 0; slot < FLANK_SLOTS; slot++) {
+            int flankCol = col + offsets[slot * 2];
+            int flankRow = row + offsets[slot * 2 + 1];
+            boolean open = costs.getCost(flankCol, flankRow) >= 0;
+            flankCells[player][slot] = open ? flankRow * cols + flankCol : playerCells[player];
+        }
+    }
+
+    private int cellOf(Tank tank) {
+        int col = Math.max(0, Math.min(cols - 1, (tank.getX() + tank.getSize() / 2) / cellSize));
+        int row = Math.max(0, Math.min(rows - 1, (tank.getY() + tank.getSize() / 2) / cellSize));
+        return row * cols + col;
+    }
+
+    // Player an enemy in a tile should chase, -1 if none is alive. The nearest one, unless its
+    // squad was full last tick and the other one's wasn't.
+    public int choosePlayer(int col, int row) {
+        col = Math.max(0, Math.min(cols - 1, col));
+        row = Math.max(0, Math.min(rows - 1, row));
+        int nearest = nearestPlayer[row * cols + col];
+        if (nearest < 0) return -1;
+
+        int other = 1 - nearest;
+        if (lastClaims[nearest] >= SQUAD_SIZE && players[other] != null && lastClaims[other] < lastClaims[nearest]) {
+            return other;
+        }
+        return nearest;
+    }
+
+    // Post a chase intent - returns the enemy's slot in that player's squad. Enemies claim
+    // while acting, one after the other.
+    public int claim(int player) {
+        return claims[player]++;
+    }
+
+    // Cell (row * cols + col) the enemy in a squad slot closes in on
+    public int getFlankCell(int player, int slot) {
+        return slot < FLANK_SLOTS ? flankCells[player][slot] : playerCells[player];
+    }
+
+    public PlayerTank getPlayer(int index) { return players[index]; }
+    public Point getBaseLocation() { return baseLocation; }
+    public long getTime() { return time; }
+
+    public PhysicsQueries getPhysics() { return physics; }
+    public TileCosts getCosts() { return costs; }
+    public FlowField getBaseFlow() { return baseFlow; }
+    public HierarchicalPathfinder getPaths() { return paths; }
+    public PathRequestQueue getPathQueue() { return pathQueue; }
+    public CooperativePlanner getCooperation() { return cooperation; }
+    public InfluenceMap getInfluence() { return influence; }
+    public BulletThreatMap getThreats() { return threats; }
+}
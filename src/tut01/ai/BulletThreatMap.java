@@ -0,0 +1,162 @@
+package tut01.ai;
+
+import tut01.physics.LineOfFireTable;
+import tut01.tanks.Bullet;
+import tut01.tanks.BulletStore;
+import tut01.tanks.Tank;
+
+import java.awt.Rectangle;
+
+/**
+ * Where the players' bullets will be over the next HORIZON_TICKS ticks. Once per tick every
+ * player bullet is walked forward along its direction, tile by tile, until it would hit a
+ * wall or leave the map. Each tile it will cross records how many ticks until the bullet gets
+ * there, keeping the soonest bullet, plus that bullet's direction and the line it flies along.
+ * That is a single pass over the bullets however many tanks read the result; an enemy asks
+ * about the tiles under its own box and can then sidestep or shoot back.
+ *
+ * Tiles are stamped with the update generation instead of being cleared.
+ */
+public class BulletThreatMap {
+    public static final int NONE = Integer.MAX_VALUE;
+    private static final int HORIZON_TICKS = 48;
+    private static final int HALF_BULLET = Bullet.SIZE / 2;
+
+    private final int cols;
+    private final int rows;
+    private final int cellSize;
+    private final LineOfFireTable lineOfFire;
+    private final int[] impact;      // Ticks until the soonest bullet reaches the tile
+    private final int[] direction;   // Its Tank.Direction ordinal
+    private final int[] line;        // The x (vertical travel) or y (horizontal) it flies along
+    private final int[] stamps;
+    private final int[] touched;
+    private int touchedCount = 0;
+    private int generation = 0;
+
+    public BulletThreatMap(int cols, int rows, int cellSize, LineOfFireTable lineOfFire) {
+        this.cols = cols;
+        this.rows = rows;
+        this.cellSize = cellSize;
+        this.lineOfFire = lineOfFire;
+        this.impact = new int[cols * rows];
+        this.direction = new int[cols * rows];
+        this.line = new int[cols * rows];
+        this.stamps = new int[cols * rows];
+        this.touched = new int[cols * rows];
+    }
+
+    // Project every player bullet along its lane
+    public void update(BulletStore bullets) {
+        generation++;
+        touchedCount = 0;
+        for (int i = 0; i < bullets.size(); i++) {
+            if (bullets.getOwner(i) != BulletStore.OWNER_ENEMY) {
+                project(bullets.getX(i), bullets.getY(i), bullets.getDx(i), bullets.getDy(i));
+            }
+        }
+    }
+
+    private void project(int bulletX, int bulletY, int dx, int dy) {
+        int speed = Math.abs(dx) + Math.abs(dy);
+        if (speed == 0) return;
+
+        int stepX = Integer.signum(dx);
+        int stepY = Integer.signum(dy);
+        int heading = headingOf(stepX, stepY);
+        int lane = stepX != 0 ? bulletY : bulletX;
+        int col = Math.floorDiv(bulletX, cellSize);
+        int row = Math.floorDiv(bulletY, cellSize);
+
+        for (int ticks = 0; ticks <= HORIZON_TICKS && inBounds(col, row); ) {
+            int cellX = stepX == 0 ? bulletX : col * cellSize + cellSize / 2;
+            int cellY = stepY == 0 ? bulletY : row * cellSize + cellSize / 2;
+            if (ticks > 0 && !lineOfFire.isSegmentClear(bulletX, bulletY, cellX, cellY)) return;
+
+            record(row * cols + col, ticks, heading, lane);
+
+            // Ticks until the bullet's leading edge crosses into the next tile
+            col += stepX;
+            row += stepY;
+            int gap = stepX > 0 ? col * cellSize - (bulletX + HALF_BULLET)
+                    : stepX < 0 ? (bulletX - HALF_BULLET) - (col + 1) * cellSize
+                    : stepY > 0 ? row * cellSize - (bulletY + HALF_BULLET)
+                    : (bulletY - HALF_BULLET) - (row + 1) * cellSize;
+            ticks = Math.max(0, (gap + speed - 1) / speed);
+        }
+    }
+
+    private void record(int cell, int ticks, int heading, int lane) {
+        if (stamps[cell] != generation) {
+            stamps[cell] = generation;
+            touched[touchedCount++] = cell;
+        } else if (impact[cell] <= ticks) {
+            return;
+        }
+        impact[cell] = ticks;
+        direction[cell] = heading;
+        line[cell] = lane;
+    }
+
+    private static int headingOf(int stepX, int stepY) {
+        for (Tank.Direction d : Tank.Direction.values()) {
+            if (d.getDx() == stepX && d.getDy() == stepY) return d.ordinal();
+        }
+        return 0;
+    }
+
+    private boolean inBounds(int col, int row) {
+        return col >= 0 && row >= 0 && col < cols && row < rows;
+    }
+
+    // Ticks until a bullet reaches a box, NONE if no bullet lane crosses it within the horizon.
+    // Only lanes whose line actually passes through the box count.
+    public int getTimeToImpact(Rectangle box) {
+        int cell = soonestCell(box);
+        return cell < 0 ? NONE : impact[cell];
+    }
+
+    // Direction the soonest bullet heading for the box travels in, null if none is
+    public Tank.Direction getThreatDirection(Rectangle box) {
+        int cell = soonestCell(box);
+        return cell < 0 ? null : Tank.Direction.values()[direction[cell]];
+    }
+
+    private int soonestCell(Rectangle box) {
+        int firstCol = Math.max(0, box.x / cellSize);
+        int lastCol = Math.min(cols - 1, (box.x + box.width - 1) / cellSize);
+        int firstRow = Math.max(0, box.y / cellSize);
+        int lastRow = Math.min(rows - 1, (box.y + box.height - 1) / cellSize);
+        int best = -1;
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                int cell = row * cols + col;
+                if (stamps[cell] != generation || best >= 0 && impact[cell] >= impact[best]) continue;
+                if (crosses(cell, box)) {
+                    best = cell;
+                }
+            }
+        }
+        return best;
+    }
+
+    // Does the cell's bullet line pass through the box on the axis across its travel?
+    private boolean crosses(int cell, Rectangle box) {
+        Tank.Direction heading = Tank.Direction.values()[direction[cell]];
+        int from = heading.getDx() != 0 ? box.y : box.x;
+        int extent = heading.getDx() != 0 ? box.height : box.width;
+        return line[cell] + HALF_BULLET > from && line[cell] - HALF_BULLET < from + extent;
+    }
+
+    // The x (vertical travel) or y (horizontal) the soonest bullet heading for the box flies along
+    public int getThreatLane(Rectangle box) {
+        int cell = soonestCell(box);
+        return cell < 0 ? -1 : line[cell];
+    }
+
+    // Lanes stamped this tick, for the influence map - cells (row * cols + col) and their ticks
+    public int getLaneCount() { return touchedCount; }
+    public int getLaneCell(int index) { return touched[index]; }
+    public int getLaneImpact(int index) { return impact[touched[index]]; }
+    public int getHorizon() { return HORIZON_TICKS; }
+}
@@ -0,0 +1,203 @@
+package tut01.ai;
+
+import java.util.Arrays;
+
+/**
+ * D* Lite planner for one enemy tank chasing a player over the tile grid. The search runs
+ * backwards from the player's cell, so g(cell) is the cost of getting from that cell to the
+ * player. When the tank moves, old queue keys stay valid through the km offset. When the
+ * terrain changes, only the cells next to the changed ones are re-evaluated. When the player
+ * moves to another cell, the root moves: the old root goes back to being an ordinary cell and
+ * the inconsistencies this creates are repaired like any other change. In all three cases the
+ * rest of the previous search is reused.
+ *
+ * Crossing costs come from the shared TileCosts. A new terrain epoch (level load) starts the
+ * search from scratch.
+ */
+public class ChasePlanner {
+    private static final int INFINITE = Integer.MAX_VALUE / 2;
+
+    private final TileCosts costs;
+    private final int cols;
+    private final int rows;
+    private final int[] g;
+    private final int[] rhs;
+
+    // Inconsistent cells on their packed (k1 << 32 | k2) keys
+    private final IndexedMinHeap heap;
+
+    private int start = -1;   // Tank cell
+    private int goal = -1;    // Player cell, the root of the search
+    private int km = 0;
+    private int epoch = -1;
+    private int seenChanges = 0;
+    private int expansions = 0;
+
+    public ChasePlanner(TileCosts costs) {
+        this.costs = costs;
+        this.cols = costs.getCols();
+        this.rows = costs.getRows();
+        this.g = new int[cols * rows];
+        this.rhs = new int[cols * rows];
+        this.heap = new IndexedMinHeap(cols * rows);
+    }
+
+    // Forget the previous search - the next query starts from scratch
+    public void reset() {
+        epoch = -1;
+    }
+
+    // Cell (row * cols + col) the tank should move to next to reach the player, -1 if it is
+    // already there or there is no route
+    public int nextCell(int startCol, int startRow, int goalCol, int goalRow) {
+        if (!inBounds(startCol, startRow) || !inBounds(goalCol, goalRow)) return -1;
+
+        int newStart = startRow * cols + startCol;
+        int newGoal = goalRow * cols + goalCol;
+        expansions = 0;
+
+        if (epoch != costs.getEpoch()) {
+            initialise(newStart, newGoal);
+        } else {
+            if (newStart != start) {
+                // Keys already queued were computed against the old start - km keeps them lower bounds
+                km += costs.heuristic(start, newStart);
+                start = newStart;
+            }
+            applyCostChanges();
+            if (newGoal != goal) {
+                moveGoal(newGoal);
+            }
+        }
+
+        computeShortestPath();
+        if (start == goal) return -1;
+
+        // Step to the neighbour with the cheapest way on
+        int best = -1;
+        int bestCost = INFINITE;
+        int col = start % cols;
+        int row = start / cols;
+        if (col + 1 < cols) { int c = stepCost(start + 1); if (c < bestCost) { bestCost = c; best = start + 1; } }
+        if (col > 0) { int c = stepCost(start - 1); if (c < bestCost) { bestCost = c; best = start - 1; } }
+        if (row + 1 < rows) { int c = stepCost(start + cols); if (c < bestCost) { bestCost = c; best = start + cols; } }
+        if (row > 0) { int c = stepCost(start - cols); if (c < bestCost) { bestCost = c; best = start - cols; } }
+        return best;
+    }
+
+    private void initialise(int newStart, int newGoal) {
+        Arrays.fill(g, INFINITE);
+        Arrays.fill(rhs, INFINITE);
+        heap.clear();
+        km = 0;
+        start = newStart;
+        goal = newGoal;
+        epoch = costs.getEpoch();
+        seenChanges = costs.getChangeCount();
+
+        rhs[goal] = 0;
+        heap.push(goal, key(goal));
+    }
+
+    // A changed cell's entry cost changes every edge into it - re-evaluate its neighbours
+    private void applyCostChanges() {
+        for (int i = costs.firstEntryAfter(seenChanges); i < costs.getLogSize(); i++) {
+            updateNeighbours(costs.getChangedCell(i));
+        }
+        seenChanges = costs.getChangeCount();
+    }
+
+    // The player moved - the new root gets rhs 0, the old one is recomputed from its neighbours
+    private void moveGoal(int newGoal) {
+        int oldGoal = goal;
+        goal = newGoal;
+        rhs[goal] = 0;
+        updateQueue(goal);
+        updateVertex(oldGoal);
+    }
+
+    private void computeShortestPath() {
+        while (!heap.isEmpty() && (heap.peekKey() < key(start) || rhs[start] != g[start])) {
+            int u = heap.peek();
+            long oldKey = heap.peekKey();
+            long newKey = key(u);
+            expansions++;
+
+            if (oldKey < newKey) {
+                // Queued before the tank moved on - requeue with the current key
+                heap.push(u, newKey);
+            } else if (g[u] > rhs[u]) {
+                // Overconsistent - settle it and pass the lower cost on
+                g[u] = rhs[u];
+                heap.remove(u);
+                updateNeighbours(u);
+            } else {
+                // Underconsistent - its old cost is gone, re-evaluate it and everything that used it
+                g[u] = INFINITE;
+                updateVertex(u);
+                updateNeighbours(u);
+            }
+        }
+    }
+
+    private void updateNeighbours(int cell) {
+        int col = cell % cols;
+        int row = cell / cols;
+        if (col + 1 < cols) updateVertex(cell + 1);
+        if (col > 0) updateVertex(cell - 1);
+        if (row + 1 < rows) updateVertex(cell + cols);
+        if (row > 0) updateVertex(cell - cols);
+    }
+
+    // Recompute a cell's one-step lookahead cost and (re)queue it if it is inconsistent
+    private void updateVertex(int cell) {
+        if (cell != goal) {
+            int best = INFINITE;
+            int col = cell % cols;
+            int row = cell / cols;
+            if (col + 1 < cols) best = Math.min(best, stepCost(cell + 1));
+            if (col > 0) best = Math.min(best, stepCost(cell - 1));
+            if (row + 1 < rows) best = Math.min(best, stepCost(cell + cols));
+            if (row > 0) best = Math.min(best, stepCost(cell - cols));
+            rhs[cell] = best;
+        }
+        updateQueue(cell);
+    }
+
+    private void updateQueue(int cell) {
+        if (g[cell] != rhs[cell]) {
+            heap.push(cell, key(cell));
+        } else if (heap.contains(cell)) {
+            heap.remove(cell);
+        }
+    }
+
+    // Cost of moving into a cell and on from there to the player
+    private int stepCost(int cell) {
+        int enter = costs.getCost(cell);
+        if (enter < 0 || g[cell] >= INFINITE) return INFINITE;
+        return enter + g[cell];
+    }
+
+    private long key(int cell) {
+        int min = Math.min(g[cell], rhs[cell]);
+        if (min >= INFINITE) return Long.MAX_VALUE;
+        return ((long) (min + costs.heuristic(start, cell) + km) << 32) | min;
+    }
+
+    private boolean inBounds(int col, int row) {
+        return col >= 0 && row >= 0 && col < cols && row < rows;
+    }
+
+    // Remaining cost from a cell to the player as far as the last search knows - cells it never
+    // reached fall back to the Manhattan distance, a lower bound
+    public int getCostToGoal(int cell) {
+        int known = Math.min(g[cell], rhs[cell]);
+        return known < INFINITE ? known : costs.heuristic(cell, goal);
+    }
+
+    // Cells taken off the queue by the last query - for the debug overlay
+    public int getExpansions() {
+        return expansions;
+    }
+}
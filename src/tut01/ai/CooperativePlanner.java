@@ -0,0 +1,342 @@
+package tut01.ai;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Windowed cooperative A* (WHCA*) for the enemy tanks. A shared space-time table records which
+ * tank has reserved a cell for a time slot in the next WINDOW_SLOTS slots. Each tank in
+ * turn searches a few cell-steps ahead in space and time. It may move or wait, avoids cells
+ * already reserved by the tanks that planned before it, and reserves its own route. The search
+ * is guided by the tank's real distance to its goal (from the flow field or its chase
+ * planner), so the window only decides who gives way, not the route.
+ *
+ * Cancelling a reservation is O(1): each one carries its owner's plan version, and bumping the
+ * version invalidates them all. A slot taken by a stale plan counts as free. The table and the
+ * search scratch are both hashed, so memory follows the number of tanks, not the map size.
+ */
+public class CooperativePlanner {
+    public static final int WAIT = -2;
+    private static final int SLOT_TICKS = 4;      // Game ticks per time slot
+    private static final int WINDOW_SLOTS = 64;   // Must be a power of two
+    private static final int MAX_DEPTH = 8;       // Cell-steps searched ahead
+    private static final int INFINITE = Integer.MAX_VALUE / 2;
+    private static final long EMPTY = -1L;
+    private static final int MIN_TABLE = 256;
+
+    private final int cols;
+    private final int rows;
+    private final int cellSize;
+    private long tick = 0;
+
+    // Space-time table - open addressing on (slot << 32 | cell), at most half full. Entries are
+    // never removed one at a time; past slots and cancelled plans are dropped when it's compacted.
+    private long[] slotKeys = newKeys(MIN_TABLE);
+    private int[] slotOwner = new int[MIN_TABLE];
+    private int[] slotVersion = new int[MIN_TABLE];
+    private int slotCount = 0;
+    private int[] ownerVersions = new int[16];
+    private int owners = 0;
+
+    // Search scratch - one node per (depth, cell) the search reaches, found through an index
+    // (open addressing on depth << 32 | cell) whose entries belong to the search that stamped them
+    private int[] nodeCell = new int[64];
+    private int[] nodeDepth = new int[64];
+    private int[] nodeCost = new int[64];
+    private int[] nodeParent = new int[64];
+    private int nodeCount = 0;
+    private long[] indexKeys = new long[128];
+    private int[] indexNode = new int[128];
+    private int[] indexMarks = new int[128];
+    private int generation = 0;
+    private final IndexedMinHeap heap = new IndexedMinHeap(64);
+    private final int[] route = new int[MAX_DEPTH + 1];
+
+    public CooperativePlanner(int cols, int rows, int cellSize) {
+        this.cols = cols;
+        this.rows = rows;
+        this.cellSize = cellSize;
+    }
+
+    // New level - drop every reservation
+    public void reset() {
+        Arrays.fill(slotKeys, EMPTY);
+        slotCount = 0;
+    }
+
+    // Called once per game tick, before the tanks plan
+    public void advance() {
+        tick++;
+    }
+
+    // New reservation owner id for a tank. Ids are never handed back - release() only cancels
+    // what an owner has reserved - so each caller registers once and keeps its id for good:
+    // the players get one each when the game starts and a pooled enemy tank mints its own the
+    // first time it plans, keeping it across respawns, so the count stays at the pool size.
+    public int register() {
+        if (owners == ownerVersions.length) {
+            ownerVersions = Arrays.copyOf(ownerVersions, owners * 2);
+        }
+        return owners++;
+    }
+
+    // Cancel everything an owner has reserved
+    public void release(int owner) {
+        if (owner >= 0) {
+            ownerVersions[owner]++;
+        }
+    }
+
+    // Reserve the cells a tank that isn't planning covers, for one cell-step - other tanks
+    // plan around it instead of into it
+    public void hold(int owner, Rectangle bounds, int stepTicks) {
+        release(owner);
+        reserveBounds(owner, bounds, slotOf(tick), slotOf(tick + stepTicks));
+    }
+
+    // Plan a tank's next move. start is the tank's cell, stepTicks how long it takes to cross
+    // one, and costToGoal maps a cell to its remaining cost (negative or INFINITE if there
+    // is no route). Returns the cell to head for next, WAIT if it should stand still and let
+    // another tank through, or -1 if the window has no safe plan at all.
+    public int plan(int owner, Rectangle bounds, int start, int stepTicks, IntUnaryOperator costToGoal, TileCosts costs) {
+        release(owner);
+        long now = slotOf(tick);
+        int step = Math.max(1, (stepTicks + SLOT_TICKS - 1) / SLOT_TICKS);
+        int depthLimit = Math.min(MAX_DEPTH, WINDOW_SLOTS / step - 2);
+
+        // Whatever the tank covers right now is its own, whoever planned to be there
+        reserveBounds(owner, bounds, now, now + 1);
+
+        generation++;
+        nodeCount = 0;
+        heap.clear();
+        int startH = remaining(costToGoal, start);
+        if (startH >= INFINITE) return -1;
+        open(start, -1, 0, 0, startH);
+
+        int end = -1;
+        while (!heap.isEmpty()) {
+            int node = heap.pop();
+            int depth = nodeDepth[node];
+            int cell = nodeCell[node];
+            int g = nodeCost[node];
+            int h = remaining(costToGoal, cell);
+
+            if (depth == depthLimit || h == 0) {
+                end = node;
+                break;
+            }
+
+            long from = now + (long) depth * step;
+            long to = from + step;
+
+            // Waiting in place costs a step
+            if (isFree(cell, from, to, owner)) {
+                open(cell, node, depth + 1, g + 1, h);
+            }
+
+            int col = cell % cols;
+            int row = cell / cols;
+            if (col + 1 < cols) tryMove(cell + 1, node, depth, g, from, to, owner, costToGoal, costs);
+            if (col > 0) tryMove(cell - 1, node, depth, g, from, to, owner, costToGoal, costs);
+            if (row + 1 < rows) tryMove(cell + cols, node, depth, g, from, to, owner, costToGoal, costs);
+            if (row > 0) tryMove(cell - cols, node, depth, g, from, to, owner, costToGoal, costs);
+        }
+        if (end < 0) return -1;
+
+        // Reserve the route - each step holds the cell it leaves and the one it enters for the
+        // whole step, and the last cell is held one step longer
+        int length = 0;
+        for (int node = end; node >= 0; node = nodeParent[node]) {
+            route[length++] = nodeCell[node];
+        }
+        for (int i = length - 1; i > 0; i--) {
+            long from = now + (long) (length - 1 - i) * step;
+            reserve(owner, route[i], from, from + step);
+            reserve(owner, route[i - 1], from, from + step);
+        }
+        long last = now + (long) (length - 1) * step;
+        reserve(owner, route[0], last, last + step);
+
+        if (length == 1) return WAIT; // Already at the goal
+        int next = route[length - 2];
+        return next == start ? WAIT : next;
+    }
+
+    private void tryMove(int next, int from, int depth, int g, long fromSlot, long toSlot, int owner,
+                         IntUnaryOperator costToGoal, TileCosts costs) {
+        int enter = costs.getCost(next);
+        if (enter < 0 || !isFree(next, fromSlot, toSlot, owner)) return;
+
+        int h = remaining(costToGoal, next);
+        if (h < INFINITE) {
+            open(next, from, depth + 1, g + enter, h);
+        }
+    }
+
+    private void open(int cell, int from, int depth, int g, int h) {
+        long key = (long) depth << 32 | cell;
+        int i = findNode(key);
+        int node;
+        if (indexMarks[i] == generation) {
+            node = indexNode[i];
+            if (nodeCost[node] <= g) return;
+        } else {
+            if (nodeCount == nodeCell.length) {
+                growNodes();
+            }
+            node = nodeCount++;
+            nodeCell[node] = cell;
+            nodeDepth[node] = depth;
+            indexMarks[i] = generation;
+            indexKeys[i] = key;
+            indexNode[i] = node;
+            if (nodeCount * 2 > indexKeys.length) {
+                growIndex();
+            }
+        }
+        nodeCost[node] = g;
+        nodeParent[node] = from;
+        // Ties on f go to the shallower node, then the lower cell
+        heap.push(node, ((long) (g + h) << 32) | (depth * cols * rows + cell));
+    }
+
+    // Index position of a (depth, cell) node in this search, or the free position it would take
+    private int findNode(long key) {
+        int mask = indexKeys.length - 1;
+        int i = mix(key) & mask;
+        while (indexMarks[i] == generation && indexKeys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void growNodes() {
+        int capacity = nodeCell.length * 2;
+        nodeCell = Arrays.copyOf(nodeCell, capacity);
+        nodeDepth = Arrays.copyOf(nodeDepth, capacity);
+        nodeCost = Arrays.copyOf(nodeCost, capacity);
+        nodeParent = Arrays.copyOf(nodeParent, capacity);
+    }
+
+    // Double the node index and re-file this search's nodes
+    private void growIndex() {
+        int capacity = indexKeys.length * 2;
+        indexKeys = new long[capacity];
+        indexNode = new int[capacity];
+        indexMarks = new int[capacity];
+        for (int node = 0; node < nodeCount; node++) {
+            long key = (long) nodeDepth[node] << 32 | nodeCell[node];
+            int i = findNode(key);
+            indexMarks[i] = generation;
+            indexKeys[i] = key;
+            indexNode[i] = node;
+        }
+    }
+
+    private static int remaining(IntUnaryOperator costToGoal, int cell) {
+        int h = costToGoal.applyAsInt(cell);
+        return h < 0 || h >= INFINITE ? INFINITE : h;
+    }
+
+    // Is a cell free of other owners' live reservations for every slot in [from, to]?
+    private boolean isFree(int cell, long from, long to, int owner) {
+        for (long slot = from; slot <= to; slot++) {
+            int i = findSlot(slot << 32 | cell);
+            if (slotKeys[i] != EMPTY && slotOwner[i] != owner && slotVersion[i] == ownerVersions[slotOwner[i]]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void reserve(int owner, int cell, long from, long to) {
+        for (long slot = from; slot <= to && slot < slotOf(tick) + WINDOW_SLOTS; slot++) {
+            long key = slot << 32 | cell;
+            int i = findSlot(key);
+            if (slotKeys[i] == EMPTY) {
+                if ((slotCount + 1) * 2 > slotKeys.length) {
+                    compactSlots();
+                    i = findSlot(key);
+                }
+                slotKeys[i] = key;
+                slotCount++;
+            }
+            slotOwner[i] = owner;
+            slotVersion[i] = ownerVersions[owner];
+        }
+    }
+
+    // Table position of a (slot, cell) reservation, or the empty position it would take
+    private int findSlot(long key) {
+        int mask = slotKeys.length - 1;
+        int i = mix(key) & mask;
+        while (slotKeys[i] != EMPTY && slotKeys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    // Rebuild the table from the reservations still live - current or future slot, owner's plan
+    // unchanged - sized so it is at most a quarter full afterwards
+    private void compactSlots() {
+        long[] keys = slotKeys;
+        int[] owner = slotOwner;
+        int[] version = slotVersion;
+        long now = slotOf(tick);
+
+        int live = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY && keys[i] >>> 32 >= now && version[i] == ownerVersions[owner[i]]) {
+                live++;
+            }
+        }
+        int capacity = MIN_TABLE;
+        while (capacity < live * 4) {
+            capacity *= 2;
+        }
+
+        slotKeys = newKeys(capacity);
+        slotOwner = new int[capacity];
+        slotVersion = new int[capacity];
+        slotCount = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY && keys[i] >>> 32 >= now && version[i] == ownerVersions[owner[i]]) {
+                int j = findSlot(keys[i]);
+                slotKeys[j] = keys[i];
+                slotOwner[j] = owner[i];
+                slotVersion[j] = version[i];
+                slotCount++;
+            }
+        }
+    }
+
+    private static long[] newKeys(int capacity) {
+        long[] keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+
+    // Spread a packed key over the table bits
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void reserveBounds(int owner, Rectangle bounds, long from, long to) {
+        int firstCol = Math.max(0, bounds.x / cellSize);
+        int lastCol = Math.min(cols - 1, (bounds.x + bounds.width - 1) / cellSize);
+        int firstRow = Math.max(0, bounds.y / cellSize);
+        int lastRow = Math.min(rows - 1, (bounds.y + bounds.height - 1) / cellSize);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                reserve(owner, row * cols + col, from, to);
+            }
+        }
+    }
+
+    private static long slotOf(long tick) {
+        return tick / SLOT_TICKS;
+    }
+}
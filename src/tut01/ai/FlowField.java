@@ -0,0 +1,314 @@
+package tut01.ai;
+
+import tut01.environments.TerrainChange;
+import tut01.environments.TerrainListener;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Flow field to the base, shared by every enemy tank. Each tile-aligned tank position gets
+ * its distance to the base and the neighbouring cell that leads there, with crossing costs
+ * taken from the shared TileCosts (which must be registered with the journal first).
+ *
+ * The field is built once per map. When the terrain changes only the cells whose route ran
+ * through a changed cell are cleared and searched again, so a broken brick costs a few cells
+ * of work instead of a full rebuild.
+ */
+public class FlowField implements TerrainListener {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int BRICK_COST = TileCosts.BRICK_COST;
+
+    private final TileCosts costs;
+    private final int cols;
+    private final int rows;
+    private final int cellSize;
+    private int seenChanges = 0;
+    private final int[] distance;
+    private final int[] next;      // Neighbouring cell one step closer to the base, -1 if none
+    private int goalCol = -1;
+    private int goalRow = -1;
+
+    // Dial's bucket queue for full builds - costs are small integers so buckets beat a heap
+    private final int[][] buckets = new int[BRICK_COST + 1][];
+    private final int[] bucketSizes = new int[BRICK_COST + 1];
+
+    // Repair state - a heap of cells on (distance << 32 | cell) keys, the cells cut off from the
+    // base (marked with the repair generation) and the cells whose distance was touched
+    private final IndexedMinHeap heap;
+    private final int[] orphanMarks;
+    private final int[] touchMarks;
+    private final int[] stack;
+    private final int[] touched;
+    private int touchedCount = 0;
+    private int generation = 0;
+
+    public FlowField(TileCosts costs) {
+        this.costs = costs;
+        this.cols = costs.getCols();
+        this.rows = costs.getRows();
+        this.cellSize = costs.getCellSize();
+        this.distance = new int[cols * rows];
+        this.next = new int[cols * rows];
+        this.heap = new IndexedMinHeap(cols * rows);
+        this.orphanMarks = new int[cols * rows];
+        this.touchMarks = new int[cols * rows];
+        this.stack = new int[cols * rows];
+        this.touched = new int[cols * rows];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new int[cols * rows];
+        }
+        Arrays.fill(distance, UNREACHABLE);
+        Arrays.fill(next, -1);
+    }
+
+    public void setGoal(int col, int row) {
+        this.goalCol = col;
+        this.goalRow = row;
+    }
+
+    @Override
+    public void onTerrainChanged(List<TerrainChange> changes, long version) {
+        if (!hasGoal() || seenChanges == costs.getChangeCount()) return;
+
+        // Cells whose crossing cost changed since the last repair
+        generation++;
+        touchedCount = 0;
+        int changed = 0;
+        for (int i = costs.firstEntryAfter(seenChanges); i < costs.getLogSize(); i++) {
+            int cell = costs.getChangedCell(i);
+            if (orphanMarks[cell] == generation) continue;
+
+            orphan(cell);
+            stack[changed++] = cell;
+        }
+        seenChanges = costs.getChangeCount();
+        repair(changed);
+    }
+
+    @Override
+    public void onTerrainReset(long version) {
+        compute();
+    }
+
+    // Rebuild the whole field from the goal outwards
+    public void compute() {
+        Arrays.fill(distance, UNREACHABLE);
+        Arrays.fill(next, -1);
+        Arrays.fill(bucketSizes, 0);
+        seenChanges = costs.getChangeCount();
+        if (!hasGoal()) return;
+
+        int goal = goalRow * cols + goalCol;
+        distance[goal] = 0;
+        buckets[0][bucketSizes[0]++] = goal;
+
+        int pending = 1;
+        for (int current = 0; pending > 0; current++) {
+            int bucket = current % buckets.length;
+
+            // Cells can be appended to the bucket being drained, so re-read its size each step
+            for (int i = 0; i < bucketSizes[bucket]; i++) {
+                int cell = buckets[bucket][i];
+                pending--;
+                if (distance[cell] != current) continue; // Stale entry, a shorter route was found
+
+                int col = cell % cols;
+                int row = cell / cols;
+                pending += relax(col + 1, row, current);
+                pending += relax(col - 1, row, current);
+                pending += relax(col, row + 1, current);
+                pending += relax(col, row - 1, current);
+            }
+            bucketSizes[bucket] = 0;
+        }
+
+        for (int cell = 0; cell < next.length; cell++) {
+            next[cell] = bestNeighbour(cell);
+        }
+    }
+
+    // Try to improve a neighbour - returns 1 if it was queued
+    private int relax(int col, int row, int current) {
+        if (col < 0 || row < 0 || col >= cols || row >= rows) return 0;
+
+        int cell = row * cols + col;
+        int cost = costs.getCost(cell);
+        if (cost < 0) return 0;
+
+        int candidate = current + cost;
+        if (candidate >= distance[cell]) return 0;
+
+        distance[cell] = candidate;
+        int bucket = candidate % buckets.length;
+        buckets[bucket][bucketSizes[bucket]++] = cell;
+        return 1;
+    }
+
+    // Incremental repair after the (already orphaned) cells on the stack changed cost. The
+    // changed cells and every cell whose route to the base ran through one of them lose their
+    // distance; all other cells keep a distance that is still achievable. The lost cells are
+    // seeded from their intact neighbours and Dijkstra runs outwards from the seeds, which
+    // also passes on any improvement a cheaper cell brings to the rest of the field.
+    private void repair(int changed) {
+        // Collect the cut-off subtrees by walking the next pointers backwards
+        int top = changed;
+        while (top > 0) {
+            int cell = stack[--top];
+            int col = cell % cols;
+            int row = cell / cols;
+            top = adoptChild(col + 1, row, cell, top);
+            top = adoptChild(col - 1, row, cell, top);
+            top = adoptChild(col, row + 1, cell, top);
+            top = adoptChild(col, row - 1, cell, top);
+        }
+
+        // Seed the orphans from neighbours that kept their distance
+        heap.clear();
+        int goal = goalRow * cols + goalCol;
+        int orphans = touchedCount;
+        for (int i = 0; i < orphans; i++) {
+            int cell = touched[i];
+            if (cell == goal) {
+                distance[cell] = 0;
+                push(cell);
+                continue;
+            }
+            if (costs.getCost(cell) < 0) continue;
+
+            int best = UNREACHABLE;
+            int col = cell % cols;
+            int row = cell / cols;
+            best = Math.min(best, intactDistance(col + 1, row));
+            best = Math.min(best, intactDistance(col - 1, row));
+            best = Math.min(best, intactDistance(col, row + 1));
+            best = Math.min(best, intactDistance(col, row - 1));
+            if (best == UNREACHABLE) continue;
+
+            distance[cell] = best + costs.getCost(cell);
+            push(cell);
+        }
+
+        // Dijkstra from the seeds
+        while (!heap.isEmpty()) {
+            int cell = heap.pop();
+            int current = distance[cell];
+
+            int col = cell % cols;
+            int row = cell / cols;
+            repairRelax(col + 1, row, current);
+            repairRelax(col - 1, row, current);
+            repairRelax(col, row + 1, current);
+            repairRelax(col, row - 1, current);
+        }
+
+        // Directions change for every touched cell and the cells next to them
+        for (int i = 0; i < touchedCount; i++) {
+            int cell = touched[i];
+            int col = cell % cols;
+            int row = cell / cols;
+            next[cell] = bestNeighbour(cell);
+            if (col + 1 < cols) next[cell + 1] = bestNeighbour(cell + 1);
+            if (col > 0) next[cell - 1] = bestNeighbour(cell - 1);
+            if (row + 1 < rows) next[cell + cols] = bestNeighbour(cell + cols);
+            if (row > 0) next[cell - cols] = bestNeighbour(cell - cols);
+        }
+    }
+
+    private void orphan(int cell) {
+        orphanMarks[cell] = generation;
+        distance[cell] = UNREACHABLE;
+        touch(cell);
+    }
+
+    // A neighbour whose next step is the orphaned cell is cut off too - returns the new stack top
+    private int adoptChild(int col, int row, int parent, int top) {
+        if (col < 0 || row < 0 || col >= cols || row >= rows) return top;
+
+        int cell = row * cols + col;
+        if (orphanMarks[cell] == generation || next[cell] != parent) return top;
+
+        orphan(cell);
+        stack[top] = cell;
+        return top + 1;
+    }
+
+    // Distance of a cell that wasn't cut off, UNREACHABLE otherwise
+    private int intactDistance(int col, int row) {
+        if (col < 0 || row < 0 || col >= cols || row >= rows) return UNREACHABLE;
+
+        int cell = row * cols + col;
+        return orphanMarks[cell] == generation ? UNREACHABLE : distance[cell];
+    }
+
+    private void repairRelax(int col, int row, int current) {
+        if (col < 0 || row < 0 || col >= cols || row >= rows) return;
+
+        int cell = row * cols + col;
+        int cost = costs.getCost(cell);
+        if (cost < 0) return;
+
+        int candidate = current + cost;
+        if (candidate >= distance[cell]) return;
+
+        distance[cell] = candidate;
+        touch(cell);
+        push(cell);
+    }
+
+    private void touch(int cell) {
+        if (touchMarks[cell] == generation) return;
+        touchMarks[cell] = generation;
+        touched[touchedCount++] = cell;
+    }
+
+    // Neighbour with the smallest distance, -1 for the goal and for cut-off cells
+    private int bestNeighbour(int cell) {
+        if (distance[cell] == 0 || distance[cell] == UNREACHABLE) return -1;
+
+        int col = cell % cols;
+        int row = cell / cols;
+        int best = -1;
+        int bestDistance = UNREACHABLE;
+        if (col + 1 < cols && distance[cell + 1] < bestDistance) {
+            best = cell + 1;
+            bestDistance = distance[best];
+        }
+        if (col > 0 && distance[cell - 1] < bestDistance) {
+            best = cell - 1;
+            bestDistance = distance[best];
+        }
+        if (row + 1 < rows && distance[cell + cols] < bestDistance) {
+            best = cell + cols;
+            bestDistance = distance[best];
+        }
+        if (row > 0 && distance[cell - cols] < bestDistance) {
+            best = cell - cols;
+        }
+        return best;
+    }
+
+    // Queue a cell on its current distance, ties broken by cell
+    private void push(int cell) {
+        heap.push(cell, ((long) distance[cell] << 32) | cell);
+    }
+
+    private boolean hasGoal() {
+        return goalCol >= 0 && goalRow >= 0 && goalCol < cols && goalRow < rows;
+    }
+
+    // Distance of a cell to the base, UNREACHABLE if cut off
+    public int getDistance(int col, int row) {
+        if (col < 0 || row < 0 || col >= cols || row >= rows) return UNREACHABLE;
+        return distance[row * cols + col];
+    }
+
+    // Cell (row * cols + col) one step closer to the base, -1 at the base or if cut off
+    public int getNext(int col, int row) {
+        if (col < 0 || row < 0 || col >= cols || row >= rows) return -1;
+        return next[row * cols + col];
+    }
+
+    public int getCols() { return cols; }
+    public int getCellSize() { return cellSize; }
+}
@@ -0,0 +1,422 @@
+package tut01.ai;
+
+import java.util.Arrays;
+
+/**
+ * HPA*-style path finding over the tile grid. The map is cut into square clusters. Where two
+ * clusters share an open stretch of border, one or two entrance cells are placed on each
+ * side. Every cluster keeps the cost between each pair of its own entrances, found by a
+ * search that stays inside the cluster. A query first searches this small entrance graph.
+ * It returns the entrances on the way as waypoints, and each leg is refined into single
+ * cell steps only when the tank gets to it.
+ *
+ * Costs come from the shared TileCosts (entering a cell costs its tile cost). When cells
+ * change, only their clusters and the clusters next to them are rebuilt, on the next query.
+ *
+ * The entrance graph search runs in slices: beginPath, then continuePath until it stops
+ * returning SEARCHING. One search is open at a time; leg refinement (nextStep) has its own
+ * scratch and doesn't disturb it, and a search the terrain changed under starts over.
+ */
+public class HierarchicalPathfinder {
+    public static final int DEFAULT_CLUSTER_SIZE = 4;
+    public static final int SEARCHING = -2;
+    private static final int INFINITE = Integer.MAX_VALUE / 2;
+    private static final int SINGLE_ENTRANCE_RUN = 6; // Shorter border runs get one entrance
+
+    private final TileCosts costs;
+    private final int cols;
+    private final int rows;
+    private final int clusterSize;
+    private final int clusterCols;
+    private final int clusterRows;
+
+    // Entrance graph - entrance cells per cluster, and per cluster a node x node cost matrix
+    private final int[][] clusterNodes;
+    private final int[] nodeCounts;
+    private final int[][] intraCosts;
+    private final int[] nodeSlot;       // Index of a cell in its cluster's entrance list, -1 if none
+    private final boolean[] dirty;
+    private int epoch = -1;
+    private int seenChanges = 0;
+    private int graphVersion = 0;       // Bumped whenever a cluster is rebuilt
+
+    // Search scratch, cell indexed and cleared by bumping the generation - one set for the
+    // searches inside clusters, one for the entrance graph search
+    private final int[] localDist;
+    private final int[] localMarks;
+    private int localGeneration = 0;
+    private final IndexedMinHeap localHeap;
+    private final int[] searchCost;
+    private final int[] searchParent;
+    private final int[] searchMarks;
+    private int searchGeneration = 0;
+    private final IndexedMinHeap searchHeap;
+    private int[] startLinks = new int[8];
+    private int[] goalLinks = new int[8];
+
+    // The sliced entrance graph search
+    private int searchStart = -1;
+    private int searchGoal = -1;
+    private int searchGoalCluster = -1;
+    private boolean searchOpen = false;
+    private int searchVersion = -1;
+
+    public HierarchicalPathfinder(TileCosts costs) {
+        this(costs, DEFAULT_CLUSTER_SIZE);
+    }
+
+    public HierarchicalPathfinder(TileCosts costs, int clusterSize) {
+        this.costs = costs;
+        this.cols = costs.getCols();
+        this.rows = costs.getRows();
+        this.clusterSize = clusterSize;
+        this.clusterCols = (cols + clusterSize - 1) / clusterSize;
+        this.clusterRows = (rows + clusterSize - 1) / clusterSize;
+
+        int clusters = clusterCols * clusterRows;
+        this.clusterNodes = new int[clusters][4 * clusterSize];
+        this.nodeCounts = new int[clusters];
+        this.intraCosts = new int[clusters][];
+        this.nodeSlot = new int[cols * rows];
+        this.dirty = new boolean[clusters];
+        this.localDist = new int[cols * rows];
+        this.localMarks = new int[cols * rows];
+        this.searchCost = new int[cols * rows];
+        this.searchParent = new int[cols * rows];
+        this.searchMarks = new int[cols * rows];
+        this.localHeap = new IndexedMinHeap(cols * rows);
+        this.searchHeap = new IndexedMinHeap(cols * rows);
+        Arrays.fill(nodeSlot, -1);
+    }
+
+    // Start a search from start to goal, dropping any that was open
+    public void beginPath(int start, int goal) {
+        searchStart = start;
+        searchGoal = goal;
+        searchOpen = false;
+    }
+
+    // Run the open search for up to maxExpansions entrance expansions. Once it is done, out
+    // holds the waypoint cells - entrances in travel order, then the goal itself - and the
+    // count written is returned, -1 if the goal can't be reached. SEARCHING if it needs
+    // another slice.
+    public int continuePath(int[] out, int maxExpansions) {
+        update();
+        if (!searchOpen || searchVersion != graphVersion) {
+            int settled = openSearch(out);
+            if (settled != SEARCHING) return settled;
+        }
+
+        int start = searchStart;
+        int goal = searchGoal;
+        for (int expanded = 0; expanded < maxExpansions; expanded++) {
+            if (searchHeap.isEmpty()) {
+                searchOpen = false;
+                return -1;
+            }
+
+            int cell = searchHeap.pop();
+            if (cell == goal) {
+                searchOpen = false;
+                return tracePath(start, goal, out);
+            }
+            int g = searchCost[cell];
+
+            int cluster = clusterOf(cell);
+            int slot = nodeSlot[cell];
+            int count = nodeCounts[cluster];
+            int[] matrix = intraCosts[cluster];
+            for (int j = 0; j < count; j++) {
+                int step = matrix[slot * count + j];
+                if (step < INFINITE) {
+                    open(clusterNodes[cluster][j], cell, g + step, goal);
+                }
+            }
+            if (cluster == searchGoalCluster && goalLinks[slot] < INFINITE) {
+                open(goal, cell, g + goalLinks[slot], goal);
+            }
+
+            // Across the border to the matching entrance of the next cluster
+            int col = cell % cols;
+            int row = cell / cols;
+            if (col + 1 < cols) crossBorder(cell, cell + 1, cluster, g, goal);
+            if (col > 0) crossBorder(cell, cell - 1, cluster, g, goal);
+            if (row + 1 < rows) crossBorder(cell, cell + cols, cluster, g, goal);
+            if (row > 0) crossBorder(cell, cell - cols, cluster, g, goal);
+        }
+        return SEARCHING;
+    }
+
+    // Set up the entrance graph search, or settle the query right away when start and goal
+    // are the same cell or share a cluster with a route inside it
+    private int openSearch(int[] out) {
+        int start = searchStart;
+        int goal = searchGoal;
+        if (start == goal) {
+            out[0] = goal;
+            return 1;
+        }
+
+        int startCluster = clusterOf(start);
+        int goalCluster = clusterOf(goal);
+
+        // Same cluster - a search inside it settles it when it finds a route
+        if (startCluster == goalCluster) {
+            searchToward(goal, startCluster, startCluster);
+            if (localDistance(start) < INFINITE) {
+                out[0] = goal;
+                return 1;
+            }
+        }
+
+        // Link the start to its cluster's entrances and the goal's cluster entrances to the goal
+        searchFrom(start, startCluster);
+        int startCount = nodeCounts[startCluster];
+        startLinks = ensureCapacity(startLinks, startCount);
+        for (int i = 0; i < startCount; i++) {
+            startLinks[i] = localDistance(clusterNodes[startCluster][i]);
+        }
+        searchToward(goal, goalCluster, goalCluster);
+        int goalCount = nodeCounts[goalCluster];
+        goalLinks = ensureCapacity(goalLinks, goalCount);
+        for (int i = 0; i < goalCount; i++) {
+            goalLinks[i] = localDistance(clusterNodes[goalCluster][i]);
+        }
+
+        // A* over the entrances - the goal is reached through the goal links
+        searchGeneration++;
+        searchHeap.clear();
+        for (int i = 0; i < startCount; i++) {
+            int node = clusterNodes[startCluster][i];
+            if (startLinks[i] < INFINITE) {
+                open(node, start, startLinks[i], goal);
+            }
+        }
+        searchGoalCluster = goalCluster;
+        searchVersion = graphVersion;
+        searchOpen = true;
+        return SEARCHING;
+    }
+
+    // Next single-cell step from one waypoint leg's start toward its end, searched inside the
+    // clusters of the two cells. -1 if there is no such step (the terrain changed).
+    public int nextStep(int from, int to) {
+        update();
+        if (from == to) return -1;
+
+        searchToward(to, clusterOf(from), clusterOf(to));
+        int best = -1;
+        int bestCost = INFINITE;
+        int col = from % cols;
+        int row = from / cols;
+        if (col + 1 < cols) { int c = stepCost(from + 1); if (c < bestCost) { bestCost = c; best = from + 1; } }
+        if (col > 0) { int c = stepCost(from - 1); if (c < bestCost) { bestCost = c; best = from - 1; } }
+        if (row + 1 < rows) { int c = stepCost(from + cols); if (c < bestCost) { bestCost = c; best = from + cols; } }
+        if (row > 0) { int c = stepCost(from - cols); if (c < bestCost) { best = from - cols; } }
+        return best;
+    }
+
+    private int stepCost(int cell) {
+        int enter = costs.getCost(cell);
+        int rest = localDistance(cell);
+        if (enter < 0 || rest >= INFINITE) return INFINITE;
+        return enter + rest;
+    }
+
+    private void crossBorder(int cell, int neighbour, int cluster, int g, int goal) {
+        if (nodeSlot[neighbour] < 0 || clusterOf(neighbour) == cluster) return;
+        int enter = costs.getCost(neighbour);
+        if (enter >= 0) {
+            open(neighbour, cell, g + enter, goal);
+        }
+    }
+
+    private void open(int cell, int parent, int cost, int goal) {
+        if (searchMarks[cell] == searchGeneration && searchCost[cell] <= cost) return;
+
+        searchMarks[cell] = searchGeneration;
+        searchCost[cell] = cost;
+        searchParent[cell] = parent;
+        searchHeap.push(cell, ((long) (cost + costs.heuristic(cell, goal)) << 32) | cell);
+    }
+
+    private int tracePath(int start, int goal, int[] out) {
+        int count = 0;
+        for (int cell = goal; cell != start; cell = searchParent[cell]) {
+            count++;
+        }
+        int i = count;
+        for (int cell = goal; cell != start; cell = searchParent[cell]) {
+            out[--i] = cell;
+        }
+        return count;
+    }
+
+    // Bring the entrance graph up to date with the tile costs - queries do this themselves,
+    // the level precompute calls it so the first query doesn't pay for the whole map
+    public void update() {
+        if (epoch != costs.getEpoch()) {
+            epoch = costs.getEpoch();
+            seenChanges = costs.getChangeCount();
+            Arrays.fill(dirty, true);
+        }
+        for (int i = costs.firstEntryAfter(seenChanges); i < costs.getLogSize(); i++) {
+            int cell = costs.getChangedCell(i);
+            int cx = (cell % cols) / clusterSize;
+            int cy = (cell / cols) / clusterSize;
+            markDirty(cx, cy);
+            markDirty(cx + 1, cy);
+            markDirty(cx - 1, cy);
+            markDirty(cx, cy + 1);
+            markDirty(cx, cy - 1);
+        }
+        seenChanges = costs.getChangeCount();
+        for (int cluster = 0; cluster < dirty.length; cluster++) {
+            if (dirty[cluster]) {
+                rebuildCluster(cluster);
+                dirty[cluster] = false;
+                graphVersion++;
+            }
+        }
+    }
+
+    private void markDirty(int cx, int cy) {
+        if (cx >= 0 && cy >= 0 && cx < clusterCols && cy < clusterRows) {
+            dirty[cy * clusterCols + cx] = true;
+        }
+    }
+
+    // Place the entrances on all four borders of a cluster and cost every pair of them
+    private void rebuildCluster(int cluster) {
+        for (int i = 0; i < nodeCounts[cluster]; i++) {
+            nodeSlot[clusterNodes[cluster][i]] = -1;
+        }
+        nodeCounts[cluster] = 0;
+
+        int cx = cluster % clusterCols;
+        int cy = cluster / clusterCols;
+        int x0 = cx * clusterSize;
+        int y0 = cy * clusterSize;
+        int x1 = Math.min(cols, x0 + clusterSize) - 1;
+        int y1 = Math.min(rows, y0 + clusterSize) - 1;
+
+        if (x1 + 1 < cols) addEntrances(cluster, x1, y0, 0, 1, y1 - y0 + 1, 1, 0);
+        if (x0 > 0) addEntrances(cluster, x0, y0, 0, 1, y1 - y0 + 1, -1, 0);
+        if (y1 + 1 < rows) addEntrances(cluster, x0, y1, 1, 0, x1 - x0 + 1, 0, 1);
+        if (y0 > 0) addEntrances(cluster, x0, y0, 1, 0, x1 - x0 + 1, 0, -1);
+
+        int count = nodeCounts[cluster];
+        int[] matrix = new int[count * count];
+        for (int i = 0; i < count; i++) {
+            searchFrom(clusterNodes[cluster][i], cluster);
+            for (int j = 0; j < count; j++) {
+                matrix[i * count + j] = i == j ? INFINITE : localDistance(clusterNodes[cluster][j]);
+            }
+        }
+        intraCosts[cluster] = matrix;
+    }
+
+    // Walk one border (length cells from (col, row) in steps of (stepX, stepY)); the cells
+    // across it are at (outX, outY). Open runs get an entrance in the middle, long ones one
+    // at each end.
+    private void addEntrances(int cluster, int col, int row, int stepX, int stepY, int length, int outX, int outY) {
+        int runStart = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean open = i < length && isOpen(col + stepX * i, row + stepY * i)
+                    && isOpen(col + stepX * i + outX, row + stepY * i + outY);
+            if (open && runStart < 0) {
+                runStart = i;
+            } else if (!open && runStart >= 0) {
+                int runEnd = i - 1;
+                if (runEnd - runStart + 1 < SINGLE_ENTRANCE_RUN) {
+                    int middle = (runStart + runEnd) / 2;
+                    addNode(cluster, (row + stepY * middle) * cols + col + stepX * middle);
+                } else {
+                    addNode(cluster, (row + stepY * runStart) * cols + col + stepX * runStart);
+                    addNode(cluster, (row + stepY * runEnd) * cols + col + stepX * runEnd);
+                }
+                runStart = -1;
+            }
+        }
+    }
+
+    private boolean isOpen(int col, int row) {
+        return costs.getCost(col, row) >= 0;
+    }
+
+    private void addNode(int cluster, int cell) {
+        if (nodeSlot[cell] >= 0) return; // Corner cell already placed for the other border
+
+        int count = nodeCounts[cluster];
+        clusterNodes[cluster] = ensureCapacity(clusterNodes[cluster], count + 1);
+        clusterNodes[cluster][count] = cell;
+        nodeSlot[cell] = count;
+        nodeCounts[cluster] = count + 1;
+    }
+
+    // Dijkstra from a cell, staying inside one cluster - localDistance(cell) is the cost of
+    // getting from the source to the cell
+    private void searchFrom(int source, int cluster) {
+        localSearch(source, cluster, cluster, false);
+    }
+
+    // Reverse Dijkstra toward a cell, staying inside the two given clusters - localDistance(cell)
+    // is the cost of getting from the cell to the target
+    private void searchToward(int target, int clusterA, int clusterB) {
+        localSearch(target, clusterA, clusterB, true);
+    }
+
+    private void localSearch(int source, int clusterA, int clusterB, boolean reverse) {
+        localGeneration++;
+        localHeap.clear();
+        localMarks[source] = localGeneration;
+        localDist[source] = 0;
+        localHeap.push(source, source);
+
+        while (!localHeap.isEmpty()) {
+            int cell = localHeap.pop();
+            int dist = localDist[cell];
+
+            int col = cell % cols;
+            int row = cell / cols;
+            // Forward, entering the neighbour costs its tile cost; in reverse, entering this cell does
+            int enterHere = costs.getCost(cell);
+            if (col + 1 < cols) relaxLocal(cell + 1, dist, enterHere, clusterA, clusterB, reverse);
+            if (col > 0) relaxLocal(cell - 1, dist, enterHere, clusterA, clusterB, reverse);
+            if (row + 1 < rows) relaxLocal(cell + cols, dist, enterHere, clusterA, clusterB, reverse);
+            if (row > 0) relaxLocal(cell - cols, dist, enterHere, clusterA, clusterB, reverse);
+        }
+    }
+
+    private void relaxLocal(int cell, int dist, int enterFrom, int clusterA, int clusterB, boolean reverse) {
+        int cluster = clusterOf(cell);
+        if (cluster != clusterA && cluster != clusterB) return;
+
+        int enter = costs.getCost(cell);
+        if (enter < 0) return;
+        if (reverse && enterFrom < 0) return;
+
+        int candidate = dist + (reverse ? enterFrom : enter);
+        if (localMarks[cell] == localGeneration && localDist[cell] <= candidate) return;
+
+        localMarks[cell] = localGeneration;
+        localDist[cell] = candidate;
+        localHeap.push(cell, ((long) candidate << 32) | cell);
+    }
+
+    private int localDistance(int cell) {
+        return localMarks[cell] == localGeneration ? localDist[cell] : INFINITE;
+    }
+
+    private int clusterOf(int cell) {
+        return ((cell / cols) / clusterSize) * clusterCols + (cell % cols) / clusterSize;
+    }
+
+    private static int[] ensureCapacity(int[] array, int size) {
+        return size <= array.length ? array : Arrays.copyOf(array, Math.max(size, array.length * 2));
+    }
+
+    public int getCols() { return cols; }
+    public int getRows() { return rows; }
+    public int getCellSize() { return costs.getCellSize(); }
+}
@@ -0,0 +1,123 @@
+package tut01.ai;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of int items (cells, search nodes) on long keys, shared by the planners.
+ * It is indexed by item: pushing an item that is already queued moves it to the new key
+ * instead of adding a second entry, and a queued item can be removed. Equal keys come out in
+ * no particular order, so the searches pack a tie-break (usually the cell) into the low bits.
+ * Items run from 0 up, and the capacity grows to fit the largest one pushed.
+ */
+final class IndexedMinHeap {
+    private int[] items;
+    private long[] keys;
+    private int[] position; // Heap slot of each item, -1 if it isn't queued
+    private int size = 0;
+
+    IndexedMinHeap(int capacity) {
+        capacity = Math.max(1, capacity);
+        this.items = new int[capacity];
+        this.keys = new long[capacity];
+        this.position = new int[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    // Empty the heap - costs the number of queued items, not the capacity
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            position[items[i]] = -1;
+        }
+        size = 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int item) {
+        return item < position.length && position[item] >= 0;
+    }
+
+    // Smallest key and its item - only valid while the heap isn't empty
+    long peekKey() {
+        return keys[0];
+    }
+
+    int peek() {
+        return items[0];
+    }
+
+    // Take the item with the smallest key off the heap
+    int pop() {
+        int item = items[0];
+        remove(item);
+        return item;
+    }
+
+    // Queue an item, or move it to a new key if it is queued already
+    void push(int item, long key) {
+        if (item >= position.length) {
+            grow(item + 1);
+        }
+        int i = position[item];
+        if (i < 0) {
+            siftUp(size++, item, key);
+        } else if (key > keys[i]) {
+            siftDown(i, item, key);
+        } else {
+            siftUp(i, item, key);
+        }
+    }
+
+    // Take a queued item off the heap
+    void remove(int item) {
+        int i = position[item];
+        position[item] = -1;
+        int last = --size;
+        if (i == last) return;
+
+        // The last entry fills the hole and moves whichever way its key says
+        int moved = items[last];
+        long key = keys[last];
+        siftUp(i, moved, key);
+        siftDown(position[moved], moved, key);
+    }
+
+    private void siftUp(int i, int item, long key) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] <= key) break;
+            place(i, items[parent], keys[parent]);
+            i = parent;
+        }
+        place(i, item, key);
+    }
+
+    private void siftDown(int i, int item, long key) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+            if (key <= keys[child]) break;
+            place(i, items[child], keys[child]);
+            i = child;
+        }
+        place(i, item, key);
+    }
+
+    private void place(int i, int item, long key) {
+        items[i] = item;
+        keys[i] = key;
+        position[item] = i;
+    }
+
+    private void grow(int needed) {
+        int capacity = Math.max(needed, position.length * 2);
+        int old = position.length;
+        items = Arrays.copyOf(items, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        position = Arrays.copyOf(position, capacity);
+        Arrays.fill(position, old, capacity, -1);
+    }
+}
@@ -0,0 +1,156 @@
+package tut01.ai;
+
+import tut01.physics.LineOfFireTable;
+import tut01.tanks.Tank;
+
+import java.util.Arrays;
+
+/**
+ * Coarse per-tile influence layers for enemy decisions, values in [0, 1]. Each tick the
+ * dynamic layers fade by a constant factor and the current players, bullets and enemies are
+ * stamped back in, keeping the larger of the old and new value. A position so leaves a
+ * trail that fades over a few ticks. The cost of an update depends on the number of tanks and
+ * bullets, not on who reads it, and every read is a single array access.
+ *
+ * Layers: where the players can hit (their cell, next to it, and their lines of fire up to the
+ * first wall), where bullets are about to fly, how close the base is (static per level) and
+ * where the enemies are bunched up.
+ */
+public class InfluenceMap {
+    public static final int PLAYER_THREAT = 0;
+    public static final int BULLET_LANES = 1;
+    public static final int BASE_PROXIMITY = 2;
+    public static final int ENEMY_DENSITY = 3;
+    public static final int LAYERS = 4;
+
+    private static final float DECAY = 0.92f;
+    private static final float FACING_LANE = 0.8f;  // Player's line of fire ahead of its turret
+    private static final float SIDE_LANE = 0.4f;    // The other three, one turn away
+    private static final float LANE_FALLOFF = 0.05f; // Less per cell further down a lane
+    private static final int BASE_RANGE = 8;         // Cells at which the base pull reaches 0
+
+    private final int cols;
+    private final int rows;
+    private final int cellSize;
+    private final LineOfFireTable lineOfFire;
+    private final float[][] layers;
+
+    public InfluenceMap(int cols, int rows, int cellSize, LineOfFireTable lineOfFire) {
+        this.cols = cols;
+        this.rows = rows;
+        this.cellSize = cellSize;
+        this.lineOfFire = lineOfFire;
+        this.layers = new float[LAYERS][cols * rows];
+    }
+
+    // New level - clear the dynamic layers and spread the base pull out from its tile
+    public void setBase(int baseCol, int baseRow) {
+        for (float[] layer : layers) {
+            Arrays.fill(layer, 0f);
+        }
+        float[] base = layers[BASE_PROXIMITY];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int distance = Math.abs(col - baseCol) + Math.abs(row - baseRow);
+                base[row * cols + col] = Math.max(0f, 1f - (float) distance / BASE_RANGE);
+            }
+        }
+    }
+
+    // Start of a tick - fade everything stamped so far
+    public void decay() {
+        for (int layer = 0; layer < LAYERS; layer++) {
+            if (layer == BASE_PROXIMITY) continue;
+            float[] values = layers[layer];
+            for (int i = 0; i < values.length; i++) {
+                values[i] *= DECAY;
+            }
+        }
+    }
+
+    // A player threatens its own cell, the cells around it and its four lines of fire up to
+    // the first wall - most of all the one its turret points down
+    public void stampPlayer(Tank player) {
+        int centreX = player.getX() + player.getSize() / 2;
+        int centreY = player.getY() + player.getSize() / 2;
+        int col = centreX / cellSize;
+        int row = centreY / cellSize;
+        if (!inBounds(col, row)) return;
+
+        stamp(PLAYER_THREAT, col, row, 1f);
+        stamp(PLAYER_THREAT, col + 1, row, 0.5f);
+        stamp(PLAYER_THREAT, col - 1, row, 0.5f);
+        stamp(PLAYER_THREAT, col, row + 1, 0.5f);
+        stamp(PLAYER_THREAT, col, row - 1, 0.5f);
+
+        for (Tank.Direction direction : Tank.Direction.values()) {
+            float strength = direction == player.getDirection() ? FACING_LANE : SIDE_LANE;
+            stampLane(PLAYER_THREAT, centreX, centreY, direction.getDx(), direction.getDy(), strength, cols + rows);
+        }
+    }
+
+    // The bullet lanes this tick's threat pass projected - the sooner a bullet arrives the
+    // higher the value
+    public void stampBulletLanes(BulletThreatMap threats) {
+        float horizon = threats.getHorizon() + 1;
+        for (int i = 0; i < threats.getLaneCount(); i++) {
+            int cell = threats.getLaneCell(i);
+            stamp(BULLET_LANES, cell % cols, cell / cols, 1f - threats.getLaneImpact(i) / horizon);
+        }
+    }
+
+    // An enemy counts fully in its own cell and half in the cells next to it
+    public void stampEnemy(Tank enemy) {
+        int col = (enemy.getX() + enemy.getSize() / 2) / cellSize;
+        int row = (enemy.getY() + enemy.getSize() / 2) / cellSize;
+        stamp(ENEMY_DENSITY, col, row, 1f);
+        stamp(ENEMY_DENSITY, col + 1, row, 0.5f);
+        stamp(ENEMY_DENSITY, col - 1, row, 0.5f);
+        stamp(ENEMY_DENSITY, col, row + 1, 0.5f);
+        stamp(ENEMY_DENSITY, col, row - 1, 0.5f);
+    }
+
+    // Walk cell by cell from a point, stamping a fading value until the line from the point is
+    // blocked by a wall or the walk leaves the map
+    private void stampLane(int layer, int fromX, int fromY, int stepX, int stepY, float strength, int maxCells) {
+        int col = fromX / cellSize;
+        int row = fromY / cellSize;
+        for (int i = 1; i <= maxCells; i++) {
+            col += stepX;
+            row += stepY;
+            if (!inBounds(col, row)) return;
+
+            int cellX = stepX == 0 ? fromX : col * cellSize + cellSize / 2;
+            int cellY = stepY == 0 ? fromY : row * cellSize + cellSize / 2;
+            if (!lineOfFire.isSegmentClear(fromX, fromY, cellX, cellY)) return;
+
+            stamp(layer, col, row, strength - LANE_FALLOFF * (i - 1));
+        }
+    }
+
+    private void stamp(int layer, int col, int row, float value) {
+        if (!inBounds(col, row) || value <= 0f) return;
+
+        float[] values = layers[layer];
+        int cell = row * cols + col;
+        if (value > values[cell]) {
+            values[cell] = value;
+        }
+    }
+
+    private boolean inBounds(int col, int row) {
+        return col >= 0 && row >= 0 && col < cols && row < rows;
+    }
+
+    // Value of a layer in a tile, 0 off the map
+    public float get(int layer, int col, int row) {
+        return inBounds(col, row) ? layers[layer][row * cols + col] : 0f;
+    }
+
+    // How dangerous a tile is to stand in - player lines of fire and bullet lanes
+    public float getDanger(int col, int row) {
+        return Math.min(1f, get(PLAYER_THREAT, col, row) + get(BULLET_LANES, col, row));
+    }
+
+    public int getCellSize() { return cellSize; }
+}
@@ -0,0 +1,40 @@
+package tut01.ai;
+
+/**
+ * One tank's request for a waypoint path, kept by the tank and reused for every path it asks
+ * for. The planning queue fills in the waypoint cells when the search finishes; the tank
+ * takes them and the request goes back to IDLE.
+ */
+public class PathRequest {
+    public static final int IDLE = 0;
+    public static final int QUEUED = 1;    // Waiting for, or in the middle of, its search
+    public static final int READY = 2;     // Waypoints filled in
+    public static final int NO_ROUTE = 3;  // The goal can't be reached
+
+    int state = IDLE;
+    int start;
+    int goal;
+    int[] cells = new int[0];
+    int count = 0;
+
+    // Search done - count waypoints in cells, or -1 for no route
+    void finish(int waypoints) {
+        count = Math.max(0, waypoints);
+        state = waypoints > 0 ? READY : NO_ROUTE;
+    }
+
+    public int getState() { return state; }
+
+    // Goal cell (row * cols + col) the request was last submitted for
+    public int getGoal() { return goal; }
+
+    // Waypoint cells (row * cols + col) of a READY request, in travel order
+    public int getCount() { return count; }
+    public int getCell(int index) { return cells[index]; }
+
+    // The tank has read the answer
+    public void clear() {
+        state = IDLE;
+        count = 0;
+    }
+}
@@ -0,0 +1,94 @@
+package tut01.ai;
+
+import java.util.ArrayDeque;
+
+/**
+ * Waypoint path searches, run a slice at a time within a CPU budget per tick instead of when
+ * a tank happens to need one. Tanks submit requests; service() works through them in order,
+ * a few dozen entrance expansions between looks at the clock, and stops once the tick's
+ * budget is spent. A search cut off by the budget resumes where it left off next tick. Many
+ * tanks asking for paths on the same tick so cost a few ticks of latency, not a long frame.
+ *
+ * At least one slice runs per tick, so the queue always makes progress. How far a clock
+ * budget gets depends on the machine, so a replayable game budgets in slices instead.
+ */
+public class PathRequestQueue {
+    private static final int SLICE_EXPANSIONS = 32;
+
+    private final HierarchicalPathfinder paths;
+    private final ArrayDeque<PathRequest> pending = new ArrayDeque<>();
+    private PathRequest current = null; // Search open in the path finder, resumed next service
+    private long budgetNanos;
+    private int budgetSlices = 0;       // Slices per tick instead of the clock, 0 for the clock
+
+    public PathRequestQueue(HierarchicalPathfinder paths, long budgetMicros) {
+        this.paths = paths;
+        setBudgetMicros(budgetMicros);
+    }
+
+    public void setBudgetMicros(long budgetMicros) {
+        this.budgetNanos = budgetMicros * 1000;
+        this.budgetSlices = 0;
+    }
+
+    // Fixed work per tick, the same on every machine
+    public void setBudgetSlices(int budgetSlices) {
+        this.budgetSlices = Math.max(1, budgetSlices);
+    }
+
+    // Ask for a path between two cells (row * cols + col). A request already waiting searches
+    // the newest cells when its turn comes.
+    public void submit(PathRequest request, int start, int goal) {
+        request.start = start;
+        request.goal = goal;
+        if (request.cells.length < paths.getCols() * paths.getRows()) {
+            request.cells = new int[paths.getCols() * paths.getRows()];
+        }
+        if (request.state != PathRequest.QUEUED) {
+            request.state = PathRequest.QUEUED;
+            pending.add(request);
+        }
+    }
+
+    // Withdraw a request - its tank is gone
+    public void cancel(PathRequest request) {
+        if (request == current) {
+            current = null;
+        } else if (request.state == PathRequest.QUEUED) {
+            pending.remove(request);
+        }
+        request.clear();
+    }
+
+    // New level - drop every request
+    public void reset() {
+        if (current != null) {
+            current.clear();
+            current = null;
+        }
+        for (PathRequest request : pending) {
+            request.clear();
+        }
+        pending.clear();
+    }
+
+    // Called once per game tick - search until the budget is spent or nothing is left
+    public void service() {
+        long deadline = System.nanoTime() + budgetNanos;
+        int slices = 0;
+        do {
+            if (current == null) {
+                current = pending.poll();
+                if (current == null) return;
+                paths.beginPath(current.start, current.goal);
+            }
+
+            int waypoints = paths.continuePath(current.cells, SLICE_EXPANSIONS);
+            if (waypoints != HierarchicalPathfinder.SEARCHING) {
+                current.finish(waypoints);
+                current = null;
+            }
+            slices++;
+        } while (budgetSlices > 0 ? slices < budgetSlices : System.nanoTime() < deadline);
+    }
+}
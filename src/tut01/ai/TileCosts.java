@@ -0,0 +1,152 @@
+package tut01.ai;
+
+import tut01.environments.TerrainChange;
+import tut01.environments.TerrainGrid;
+import tut01.environments.TerrainListener;
+import tut01.physics.ConfigurationSpace;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cost for a tank to enter each tile-aligned cell, shared by the planners. A cell the tank
+ * fits into (read from the tank configuration space) costs 1. A cell blocked only by brick
+ * costs BRICK_COST, because the tank has to shoot its way through. Steel and water can't be
+ * entered (-1).
+ *
+ * Cells whose cost changes are appended to a change log, each change numbered in order.
+ * Planners remember the change count they have caught up to and read the entries after it on
+ * their next query. When the log fills up it is compacted down to the latest entry of each
+ * cell - a reader behind an entry that was dropped still finds the cell's later one - so it
+ * never holds more than about two entries per cell however long the level runs. A terrain
+ * reset starts a new epoch and empties the log.
+ */
+public class TileCosts implements TerrainListener {
+    public static final int BLOCKED = -1;
+    public static final int BRICK_COST = 4;
+
+    private final TerrainGrid grid;
+    private final ConfigurationSpace tankSpace;
+    private final int cols;
+    private final int rows;
+    private final int cellSize;
+    private final int[] costs;
+    private int[] changeLog = new int[64];
+    private int[] changeNumbers = new int[64]; // Change number of each log entry, ascending
+    private int logSize = 0;
+    private int changeCount = 0;
+    private final int[] lastChange;             // Change number of each cell's latest entry
+    private int epoch = 0;
+
+    public TileCosts(TerrainGrid grid, ConfigurationSpace tankSpace) {
+        this.grid = grid;
+        this.tankSpace = tankSpace;
+        this.cols = grid.getCols();
+        this.rows = grid.getRows();
+        this.cellSize = grid.getCellSize();
+        this.costs = new int[cols * rows];
+        this.lastChange = new int[cols * rows];
+        Arrays.fill(costs, BLOCKED);
+    }
+
+    @Override
+    public void onTerrainChanged(List<TerrainChange> changes, long version) {
+        // A tile can be reported more than once, its cost only differs the first time
+        for (TerrainChange change : changes) {
+            int col = change.getCol();
+            int row = change.getRow();
+            if (col < 0 || row < 0 || col >= cols || row >= rows) continue;
+
+            int cell = row * cols + col;
+            int cost = computeCost(col, row);
+            if (cost == costs[cell]) continue;
+
+            costs[cell] = cost;
+            if (logSize == changeLog.length) {
+                makeRoom();
+            }
+            changeLog[logSize] = cell;
+            changeNumbers[logSize++] = changeCount;
+            lastChange[cell] = changeCount++;
+        }
+    }
+
+    // Drop the entries a later change of the same cell supersedes, and grow the log only if
+    // that doesn't free at least half of it
+    private void makeRoom() {
+        int kept = 0;
+        for (int i = 0; i < logSize; i++) {
+            int cell = changeLog[i];
+            if (lastChange[cell] == changeNumbers[i]) {
+                changeLog[kept] = cell;
+                changeNumbers[kept++] = changeNumbers[i];
+            }
+        }
+        logSize = kept;
+        if (logSize * 2 > changeLog.length) {
+            changeLog = Arrays.copyOf(changeLog, changeLog.length * 2);
+            changeNumbers = Arrays.copyOf(changeNumbers, changeNumbers.length * 2);
+        }
+    }
+
+    @Override
+    public void onTerrainReset(long version) {
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                costs[row * cols + col] = computeCost(col, row);
+            }
+        }
+        logSize = 0;
+        changeCount = 0;
+        epoch++;
+    }
+
+    private int computeCost(int col, int row) {
+        if (tankSpace.isFree(col * cellSize, row * cellSize)) return 1;
+        if ((grid.getFlags(col, row) & TerrainGrid.DESTRUCTIBLE) != 0) return BRICK_COST;
+        return BLOCKED;
+    }
+
+    // Cost of entering a cell, BLOCKED outside the map
+    public int getCost(int cell) {
+        return costs[cell];
+    }
+
+    public int getCost(int col, int row) {
+        if (col < 0 || row < 0 || col >= cols || row >= rows) return BLOCKED;
+        return costs[row * cols + col];
+    }
+
+    // Manhattan distance in cells between two cells (row * cols + col) - every cell costs at
+    // least 1 to enter, so this never overestimates and serves as the planners' A* heuristic
+    public int heuristic(int a, int b) {
+        return Math.abs(a % cols - b % cols) + Math.abs(a / cols - b / cols);
+    }
+
+    // Change log - getChangeCount() numbers the changes since the epoch started. A reader
+    // caught up to count seen reads the cells of entries firstEntryAfter(seen) up to
+    // getLogSize(), oldest first, then remembers getChangeCount().
+    public int getChangeCount() { return changeCount; }
+    public int getLogSize() { return logSize; }
+    public int getChangedCell(int entry) { return changeLog[entry]; }
+    public int getEpoch() { return epoch; }
+
+    // First log entry whose change came at or after the given change count
+    public int firstEntryAfter(int seen) {
+        int low = 0;
+        int high = logSize;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (changeNumbers[mid] < seen) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public int getCols() { return cols; }
+    public int getRows() { return rows; }
+    public int getCellSize() { return cellSize; }
+}
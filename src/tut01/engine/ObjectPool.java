@@ -0,0 +1,69 @@
+package tut01.engine;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Simple free-list pool for transient game entities. acquire() hands out a recycled
+ * object (or creates one when the pool is empty); the caller re-initialises it through
+ * the entity's own reset method and gives it back with release() when it dies.
+ */
+public class ObjectPool<T> {
+    private final String name;
+    private final Supplier<T> factory;
+    private Object[] free;
+    private int freeCount = 0;
+    private int created = 0;
+    private int inUse = 0;
+    private int highWater = 0;
+
+    public ObjectPool(String name, Supplier<T> factory) {
+        this(name, factory, 16);
+    }
+
+    public ObjectPool(String name, Supplier<T> factory, int initialCapacity) {
+        this.name = name;
+        this.factory = factory;
+        this.free = new Object[Math.max(1, initialCapacity)];
+    }
+
+    // Take an object out of the pool - creates a new one only when none are free
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        T object;
+        if (freeCount > 0) {
+            object = (T) free[--freeCount];
+            free[freeCount] = null;
+        } else {
+            object = factory.get();
+            created++;
+        }
+
+        inUse++;
+        if (inUse > highWater) {
+            highWater = inUse;
+        }
+        return object;
+    }
+
+    // Return an object to the pool - it must not be used by the caller afterwards
+    public void release(T object) {
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, free.length * 2);
+        }
+        free[freeCount++] = object;
+        inUse--;
+    }
+
+    // Getters for the debug overlay
+    public String getName() { return name; }
+    public int getInUse() { return inUse; }
+    public int getFree() { return freeCount; }
+    public int getCreated() { return created; }
+    public int getHighWater() { return highWater; }
+
+    // e.g. "Bullets: 12 live / 20 free (peak 18)"
+    public String getSummary() {
+        return name + ": " + inUse + " live / " + freeCount + " free (peak " + highWater + ")";
+    }
+}
@@ -0,0 +1,114 @@
+package tut01.engine;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the expensive derived-data builds of a level concurrently on a worker pool.
+ * Stages may depend on other stages by name; run() blocks until every stage is done
+ * and records how long each one took.
+ */
+public class PrecomputePipeline {
+    // Shared worker pool - daemon threads so it never keeps the game alive
+    private static final ExecutorService WORKERS = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()), task -> {
+                Thread thread = new Thread(task, "level-precompute");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final Map<String, Stage> stages = new LinkedHashMap<>();
+    private final Map<String, Long> stageTimes = new LinkedHashMap<>();
+    private long totalTime = 0;
+
+    // A named build step and the stages it has to wait for
+    private static class Stage {
+        final String name;
+        final Runnable task;
+        final String[] dependsOn;
+        CompletableFuture<Void> future;
+        long elapsed;
+
+        Stage(String name, Runnable task, String[] dependsOn) {
+            this.name = name;
+            this.task = task;
+            this.dependsOn = dependsOn;
+        }
+    }
+
+    public void addStage(String name, Runnable task, String... dependsOn) {
+        for (String dependency : dependsOn) {
+            if (!stages.containsKey(dependency)) {
+                throw new IllegalArgumentException("Stage " + name + " depends on unknown stage " + dependency);
+            }
+        }
+        stages.put(name, new Stage(name, task, dependsOn));
+    }
+
+    // Run every stage and wait for completion - stages without dependencies start immediately
+    public void run() {
+        long start = System.nanoTime();
+
+        // Stages are registered after their dependencies, so one pass wires the whole graph
+        for (Stage stage : stages.values()) {
+            CompletableFuture<?>[] dependencies = new CompletableFuture<?>[stage.dependsOn.length];
+            for (int i = 0; i < dependencies.length; i++) {
+                dependencies[i] = stages.get(stage.dependsOn[i]).future;
+            }
+
+            stage.future = CompletableFuture.allOf(dependencies).thenRunAsync(() -> {
+                long stageStart = System.nanoTime();
+                stage.task.run();
+                stage.elapsed = System.nanoTime() - stageStart;
+            }, WORKERS);
+        }
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (Stage stage : stages.values()) {
+            futures.add(stage.future);
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Level precompute interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Level precompute failed", e.getCause());
+        }
+
+        stageTimes.clear();
+        for (Stage stage : stages.values()) {
+            stageTimes.put(stage.name, stage.elapsed);
+        }
+        totalTime = System.nanoTime() - start;
+    }
+
+    // Per-stage build time in nanoseconds, in registration order
+    public Map<String, Long> getStageTimes() {
+        return stageTimes;
+    }
+
+    // Wall-clock time of the whole run in nanoseconds
+    public long getTotalTime() {
+        return totalTime;
+    }
+
+    // One-line summary for the console and the debug overlay
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        for (Map.Entry<String, Long> entry : stageTimes.entrySet()) {
+            if (summary.length() > 0) summary.append(", ");
+            summary.append(entry.getKey()).append(' ')
+                    .append(String.format("%.2f", entry.getValue() / 1_000_000.0)).append("ms");
+        }
+        summary.append(String.format(" (wall %.2fms)", totalTime / 1_000_000.0));
+        return summary.toString();
+    }
+}
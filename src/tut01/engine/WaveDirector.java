@@ -0,0 +1,233 @@
+package tut01.engine;
+
+import tut01.tanks.TankType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Data-driven enemy waves. Wave definitions are compiled at load into a flat schedule
+ * (one slot per enemy: type, flashing flag, delay) so that deciding whether to spawn
+ * costs O(1) per tick regardless of wave or spawn point counts.
+ *
+ * Sidecar format (levelN.waves), one directive per line, '#' starts a comment:
+ *   max 4                   - enemies allowed on screen at once
+ *   spawn cycle|random      - how spawn points are picked
+ *   wave 3000 4B *B 2F A    - delay (ms) between spawns, then the enemies in order:
+ *                             B=basic F=fast P=power A=armor, optional count prefix,
+ *                             '*' marks a flashing tank that drops a power-up
+ */
+public class WaveDirector {
+    // Enemy type codes - the tanks' own type codes
+    public static final int BASIC = TankType.BASIC;
+    public static final int FAST = TankType.FAST;
+    public static final int POWER = TankType.POWER;
+    public static final int ARMOR = TankType.ARMOR;
+
+    // Spawn point rules
+    public static final int SPAWN_RANDOM = 0;
+    public static final int SPAWN_CYCLE = 1;
+
+    private static final long DEFAULT_SPAWN_DELAY = 3000;
+    private static final long NOT_YET = Long.MIN_VALUE / 2; // No enemy spawned - the first is due at once
+    private static final int DEFAULT_MAX_ON_SCREEN = 4;
+
+    // Compiled schedule
+    private byte[] types = new byte[0];
+    private boolean[] flashing = new boolean[0];
+    private long[] delays = new long[0];
+    private int length = 0;
+    private int maxOnScreen = DEFAULT_MAX_ON_SCREEN;
+    private int spawnRule = SPAWN_RANDOM;
+
+    // Playback state
+    private int cursor = 0;
+    private int spawnPointCursor = 0;
+    private long lastSpawnTime = NOT_YET;
+    private SplittableRandom random = new SplittableRandom();
+
+    // Random stream for the default schedule's tank types and random spawn points
+    public void setRandom(SplittableRandom random) {
+        this.random = random;
+    }
+
+    // Default schedule matching the classic behavior: 20 tanks drifting from basic towards armor,
+    // tanks 4, 11 and 18 flashing, one every 3 seconds at a random spawn point
+    public void compileDefault(int totalEnemies) {
+        ensureCapacity(totalEnemies);
+        length = 0;
+        maxOnScreen = DEFAULT_MAX_ON_SCREEN;
+        spawnRule = SPAWN_RANDOM;
+
+        for (int i = 0; i < totalEnemies; i++) {
+            double progress = i / (double) totalEnemies;
+            double basicTankChance = 0.6 - progress * 0.4;
+            double fastTankChance = 0.2 + progress * 0.1;
+            double powerTankChance = 0.1 + progress * 0.1;
+            double rand = random.nextDouble();
+
+            int type;
+            if (rand < basicTankChance) {
+                type = BASIC;
+            } else if (rand < basicTankChance + fastTankChance) {
+                type = FAST;
+            } else if (rand < basicTankChance + fastTankChance + powerTankChance) {
+                type = POWER;
+            } else {
+                type = ARMOR;
+            }
+            append(type, i == 3 || i == 10 || i == 17, DEFAULT_SPAWN_DELAY);
+        }
+        restart();
+    }
+
+    // Compile a sidecar wave file - throws IOException with the offending line on bad input
+    public void compile(InputStream is, String sourceName) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(is));
+        length = 0;
+        maxOnScreen = DEFAULT_MAX_ON_SCREEN;
+        spawnRule = SPAWN_RANDOM;
+
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            if (comment >= 0) line = line.substring(0, comment);
+            line = line.trim();
+            if (line.isEmpty()) continue;
+
+            String[] tokens = line.split("\\s+");
+            try {
+                switch (tokens[0]) {
+                    case "max":
+                        maxOnScreen = Integer.parseInt(tokens[1]);
+                        break;
+                    case "spawn":
+                        if (tokens[1].equals("cycle")) {
+                            spawnRule = SPAWN_CYCLE;
+                        } else if (tokens[1].equals("random")) {
+                            spawnRule = SPAWN_RANDOM;
+                        } else {
+                            throw new IllegalArgumentException("unknown spawn rule '" + tokens[1] + "'");
+                        }
+                        break;
+                    case "wave":
+                        compileWave(tokens);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown directive '" + tokens[0] + "'");
+                }
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                throw new IOException(sourceName + " line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+
+        if (length == 0) {
+            throw new IOException(sourceName + ": no waves defined");
+        }
+        restart();
+    }
+
+    // "wave <delay> <enemy>..." - expand counts and append one slot per enemy
+    private void compileWave(String[] tokens) {
+        long delay = Long.parseLong(tokens[1]);
+
+        for (int i = 2; i < tokens.length; i++) {
+            String token = tokens[i];
+            int pos = 0;
+            int count = 0;
+            while (pos < token.length() && Character.isDigit(token.charAt(pos))) {
+                count = count * 10 + (token.charAt(pos) - '0');
+                pos++;
+            }
+            if (pos == 0) count = 1;
+
+            boolean isFlashing = pos < token.length() && token.charAt(pos) == '*';
+            if (isFlashing) pos++;
+
+            if (pos != token.length() - 1) {
+                throw new IllegalArgumentException("bad enemy token '" + token + "'");
+            }
+            int type = typeCode(token.charAt(pos));
+
+            ensureCapacity(length + count);
+            for (int n = 0; n < count; n++) {
+                append(type, isFlashing, delay);
+            }
+        }
+    }
+
+    private int typeCode(char letter) {
+        switch (letter) {
+            case 'B': return BASIC;
+            case 'F': return FAST;
+            case 'P': return POWER;
+            case 'A': return ARMOR;
+            default: throw new IllegalArgumentException("unknown enemy type '" + letter + "'");
+        }
+    }
+
+    private void append(int type, boolean isFlashing, long delay) {
+        ensureCapacity(length + 1);
+        types[length] = (byte) type;
+        flashing[length] = isFlashing;
+        delays[length] = delay;
+        length++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (types.length >= capacity) return;
+        int newCapacity = Math.max(capacity, types.length * 2);
+        types = Arrays.copyOf(types, newCapacity);
+        flashing = Arrays.copyOf(flashing, newCapacity);
+        delays = Arrays.copyOf(delays, newCapacity);
+    }
+
+    // Rewind playback to the first enemy
+    public void restart() {
+        cursor = 0;
+        spawnPointCursor = 0;
+        lastSpawnTime = NOT_YET;
+    }
+
+    // Is the next enemy due? O(1): a couple of comparisons against the flat schedule
+    public boolean isSpawnDue(long currentTime, int enemiesOnScreen) {
+        return cursor < length &&
+                enemiesOnScreen < maxOnScreen &&
+                currentTime - lastSpawnTime > delays[cursor];
+    }
+
+    // Spawn point to try this tick
+    public int pickSpawnPoint(int spawnPointCount) {
+        if (spawnRule == SPAWN_CYCLE) {
+            return spawnPointCursor % spawnPointCount;
+        }
+        return random.nextInt(spawnPointCount);
+    }
+
+    // The picked point was occupied - cycling moves on so the next tick tries another one
+    public void spawnBlocked() {
+        spawnPointCursor++;
+    }
+
+    // The next enemy was placed - advance the schedule
+    public void spawned(long currentTime) {
+        cursor++;
+        spawnPointCursor++;
+        lastSpawnTime = currentTime;
+    }
+
+    // Current slot of the schedule
+    public int nextType() { return types[cursor]; }
+    public boolean nextIsFlashing() { return flashing[cursor]; }
+
+    // Getters
+    public int getTotalEnemies() { return length; }
+    public int getSpawnedCount() { return cursor; }
+    public int getMaxOnScreen() { return maxOnScreen; }
+}
@@ -5,49 +5,46 @@ package tut01.environments;
 
 import java.awt.Color;
 import java.awt.Graphics;
-import java.awt.Rectangle;
 
 /**
- * Base class for all environment elements
+ * Base class for all environment tile types. There is one shared (flyweight) instance per
+ * type; the per-tile state - position and which of its 4x4 sub-cells are intact - lives in
+ * the TerrainGrid and is passed in.
  */
 public abstract class Environment {
-    protected int x, y;
     protected final int size = 40; // Standard cell size
+    protected final int type;      // TerrainGrid type code
     protected boolean destructible;
     protected boolean passable;
     protected Color color;
+    protected int flags;           // TerrainGrid flag bits for this type
 
-    public Environment(int x, int y) {
-        this.x = x;
-        this.y = y;
+    protected Environment(int type) {
+        this.type = type;
     }
 
-    public void draw(Graphics g) {
+    public void draw(Graphics g, int x, int y, int sections) {
         Color originalColor = g.getColor();
         g.setColor(color);
 
         // Draw environment block
-        drawBlock(g);
+        drawBlock(g, x, y, sections);
 
         g.setColor(originalColor);
     }
 
     // Method to draw specific block appearance
-    protected abstract void drawBlock(Graphics g);
+    protected abstract void drawBlock(Graphics g, int x, int y, int sections);
 
-    // Method to handle bullet hits
-    public boolean hitByBullet(int damage) {
-        return false; // Default implementation does nothing
-    }
-
-    public Rectangle getBounds() {
-        return new Rectangle(x, y, size, size);
+    // Can a bullet with this damage break this terrain? (default: no)
+    public boolean isDamagedBy(int damage) {
+        return false;
     }
 
     // Getters
-    public int getX() { return x; }
-    public int getY() { return y; }
+    public int getType() { return type; }
     public int getSize() { return size; }
     public boolean isDestructible() { return destructible; }
     public boolean isPassable() { return passable; }
-}
\ No newline at end of file
+    public int getFlags() { return flags; }
+}
@@ -7,15 +7,16 @@ import java.awt.Graphics;
  * Ice - Tanks slide on it
  */
 public class Ice extends Environment {
-    public Ice(int x, int y) {
-        super(x, y);
+    public Ice() {
+        super(TerrainGrid.ICE);
         this.destructible = false;
         this.passable = true; // Ensure this is true so tanks can move through
         this.color = new Color(200, 200, 255); // Light blue/white
+        this.flags = TerrainGrid.SLIPPERY;
     }
 
     @Override
-    protected void drawBlock(Graphics g) {
+    protected void drawBlock(Graphics g, int x, int y, int sections) {
         g.fillRect(x, y, size, size);
 
         // Add ice crystal details
@@ -0,0 +1,32 @@
+package tut01.environments;
+
+/**
+ * A single terrain mutation recorded by the TerrainJournal
+ */
+public class TerrainChange {
+    // Kinds of change
+    public static final int SECTIONS_DESTROYED = 0; // Some sections of a wall were shot away
+    public static final int TILE_REPLACED = 1;      // The whole tile changed type (e.g. Shovel swap)
+
+    private final int kind;
+    private final int x, y;          // Pixel origin of the affected tile
+    private final int size;          // Tile size in pixels
+    private final int sectionMask;   // Bit (row * 4 + col) set for every changed sub-cell (4x4 per tile)
+
+    public TerrainChange(int kind, int x, int y, int size, int sectionMask) {
+        this.kind = kind;
+        this.x = x;
+        this.y = y;
+        this.size = size;
+        this.sectionMask = sectionMask;
+    }
+
+    // Getters
+    public int getKind() { return kind; }
+    public int getX() { return x; }
+    public int getY() { return y; }
+    public int getSize() { return size; }
+    public int getCol() { return x / size; }
+    public int getRow() { return y / size; }
+    public int getSectionMask() { return sectionMask; }
+}
@@ -0,0 +1,417 @@
+package tut01.environments;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+/**
+ * Flyweight tile-grid terrain model. Every cell stores a byte type code; behaviour and
+ * drawing live in one shared Environment instance per type. Walls and water are also kept
+ * as bitboards at quarter-tile resolution (4x4 sub-cells per tile, one bit per sub-cell, a
+ * row of longs per sub-row), so bullets erase thin strips and tank overlap is a handful of
+ * mask ANDs.
+ * Mutations are recorded in the TerrainJournal.
+ */
+public class TerrainGrid {
+    // Flag bits
+    public static final int TANK_BLOCKING = 1;   // Tanks cannot enter (walls, water)
+    public static final int BULLET_BLOCKING = 2; // Bullets stop here (walls)
+    public static final int CONCEALING = 4;      // Hides tanks (trees)
+    public static final int SLIPPERY = 8;        // Tanks slide (ice)
+    public static final int DESTRUCTIBLE = 16;   // Normal bullets can shoot through it (brick)
+
+    // Tile type codes
+    public static final int EMPTY = 0;
+    public static final int BRICK = 1;
+    public static final int STEEL = 2;
+    public static final int WATER = 3;
+    public static final int TREES = 4;
+    public static final int ICE = 5;
+
+    // Result bits of hitByBullet
+    public static final int HIT_BRICK = 1;
+    public static final int HIT_STEEL = 2;
+
+    // Sub-cells per tile side, and the mask of all 16 sub-cells of a tile (bit = row * 4 + col)
+    public static final int SUB_CELLS = 4;
+    public static final int ALL_SECTIONS = 0xFFFF;
+
+    // Shared behaviour per type code (EMPTY has none)
+    private static final Environment[] TYPES = {
+            null, new BrickWall(), new SteelWall(), new Water(), new Trees(), new Ice()
+    };
+
+    // Flags per type code, so getFlags doesn't have to touch the flyweight
+    private static final byte[] TYPE_FLAGS = new byte[TYPES.length];
+    static {
+        for (int i = 1; i < TYPES.length; i++) {
+            TYPE_FLAGS[i] = (byte) TYPES[i].getFlags();
+        }
+    }
+
+    private final int cols;
+    private final int rows;
+    private final int cellSize;
+    private final int subSize;
+    private final int subRows;
+    private final int subCols;
+    private final int wordsPerRow;
+    private final byte[] types;
+
+    // Material bitboards - sub-cell (c * subSize, r * subSize) is bit c % 64 of word
+    // r * wordsPerRow + c / 64
+    private final long[] brickRows;
+    private final long[] steelRows;
+    private final long[] waterRows;
+
+    private TerrainJournal journal;
+
+    public TerrainGrid(int cols, int rows, int cellSize) {
+        this.cols = cols;
+        this.rows = rows;
+        this.cellSize = cellSize;
+        this.subSize = cellSize / SUB_CELLS;
+        this.subRows = rows * SUB_CELLS;
+        this.subCols = cols * SUB_CELLS;
+        this.wordsPerRow = (subCols + Long.SIZE - 1) / Long.SIZE;
+        this.types = new byte[cols * rows];
+        this.brickRows = new long[subRows * wordsPerRow];
+        this.steelRows = new long[subRows * wordsPerRow];
+        this.waterRows = new long[subRows * wordsPerRow];
+    }
+
+    // Journal that receives every change made after the map was loaded
+    public void setJournal(TerrainJournal journal) {
+        this.journal = journal;
+    }
+
+    // Empty the whole map (level load) - not journaled, the load pipeline rebuilds subscribers
+    public void clear() {
+        Arrays.fill(types, (byte) EMPTY);
+        Arrays.fill(brickRows, 0L);
+        Arrays.fill(steelRows, 0L);
+        Arrays.fill(waterRows, 0L);
+    }
+
+    // Put a fresh tile of the given type at a cell (EMPTY removes it)
+    public void setTile(int col, int row, int type) {
+        if (!inBounds(col, row)) return;
+
+        types[row * cols + col] = (byte) type;
+        // A tile's four sub-columns never straddle two words
+        long tileBits = 0xFL << (col * SUB_CELLS & (Long.SIZE - 1));
+        for (int r = row * SUB_CELLS; r < (row + 1) * SUB_CELLS; r++) {
+            int i = word(r, col * SUB_CELLS);
+            brickRows[i] = type == BRICK ? brickRows[i] | tileBits : brickRows[i] & ~tileBits;
+            steelRows[i] = type == STEEL ? steelRows[i] | tileBits : steelRows[i] & ~tileBits;
+            waterRows[i] = type == WATER ? waterRows[i] | tileBits : waterRows[i] & ~tileBits;
+        }
+        if (journal != null) {
+            journal.recordTileReplaced(col * cellSize, row * cellSize, cellSize);
+        }
+    }
+
+    // Same as setTile, addressed by a pixel position inside the cell
+    public void setTileAt(int x, int y, int type) {
+        setTile(Math.floorDiv(x, cellSize), Math.floorDiv(y, cellSize), type);
+    }
+
+    // Resolve a bullet against the walls. The first line of sub-cells it touches (in travel
+    // order) takes the impact: a strip one sub-cell deep and one tile wide, centred on the
+    // bullet, is erased from every wall the bullet's damage can break.
+    // Returns HIT_BRICK / HIT_STEEL for the materials under the bullet, 0 if it flies on.
+    public int hitByBullet(Rectangle bounds, int dx, int dy, int damage) {
+        int c0 = Math.max(0, bounds.x / subSize);
+        int r0 = Math.max(0, bounds.y / subSize);
+        int c1 = Math.min(subCols - 1, (bounds.x + bounds.width - 1) / subSize);
+        int r1 = Math.min(subRows - 1, (bounds.y + bounds.height - 1) / subSize);
+        if (c0 > c1 || r0 > r1) return 0;
+
+        boolean brickBreaks = TYPES[BRICK].isDamagedBy(damage);
+        boolean steelBreaks = TYPES[STEEL].isDamagedBy(damage);
+
+        if (dy != 0) {
+            // Vertical travel - scan rows from the one the bullet entered first
+            int step = dy < 0 ? -1 : 1;
+            for (int r = dy < 0 ? r1 : r0; r >= r0 && r <= r1; r += step) {
+                int result = 0;
+                for (int w = c0 >>> 6; w <= c1 >>> 6; w++) {
+                    long mask = wordMask(w, c0, c1);
+                    int i = r * wordsPerRow + w;
+                    result |= materialBits(brickRows[i] & mask, steelRows[i] & mask);
+                }
+                if (result == 0) continue;
+
+                int centerX = bounds.x + bounds.width / 2;
+                eraseSpan(r, Math.max(0, (centerX - cellSize / 2) / subSize),
+                        Math.min(subCols - 1, (centerX + cellSize / 2 - 1) / subSize), brickBreaks, steelBreaks);
+                return result;
+            }
+        } else {
+            // Horizontal travel - scan columns from the one the bullet entered first
+            int step = dx < 0 ? -1 : 1;
+            for (int c = dx < 0 ? c1 : c0; c >= c0 && c <= c1; c += step) {
+                long bit = 1L << (c & (Long.SIZE - 1));
+                int result = 0;
+                for (int r = r0; r <= r1; r++) {
+                    int i = word(r, c);
+                    result |= materialBits(brickRows[i] & bit, steelRows[i] & bit);
+                }
+                if (result == 0) continue;
+
+                int centerY = bounds.y + bounds.height / 2;
+                int stripTop = Math.max(0, (centerY - cellSize / 2) / subSize);
+                int stripBottom = Math.min(subRows - 1, (centerY + cellSize / 2 - 1) / subSize);
+                for (int r = stripTop; r <= stripBottom; r++) {
+                    eraseSpan(r, c, c, brickBreaks, steelBreaks);
+                }
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    // Walk the sub-cell lines a box crosses while moving `distance` pixels along (dx, dy) - a grid
+    // DDA restricted to the axis-aligned moves bullets make - and return how far it travels before
+    // it first touches brick or steel, counting lines it already overlaps as 0. -1 if nothing is hit.
+    public int findWallAlong(int x, int y, int width, int height, int dx, int dy, int distance) {
+        if (dy != 0) {
+            // Vertical travel - the cross-section is a span of sub-columns, tested per row
+            int c0 = Math.max(0, Math.floorDiv(x, subSize));
+            int c1 = Math.min(subCols - 1, Math.floorDiv(x + width - 1, subSize));
+            if (c0 > c1) return -1;
+
+            int step = dy > 0 ? 1 : -1;
+            int first = Math.floorDiv(dy > 0 ? y : y + height - 1, subSize);
+            int last = Math.floorDiv(dy > 0 ? y + height - 1 + distance : y - distance, subSize);
+            for (int r = first; r != last + step; r += step) {
+                if (r < 0 || r >= subRows) continue;
+                if (!hasMaterial(r, c0, c1, false)) continue;
+
+                int contact = dy > 0 ? r * subSize - (y + height - 1) : y - (r * subSize + subSize - 1);
+                return Math.max(0, contact);
+            }
+        } else {
+            // Horizontal travel - fold the rows under the box into one mask per word, then
+            // test per column
+            int r0 = Math.max(0, Math.floorDiv(y, subSize));
+            int r1 = Math.min(subRows - 1, Math.floorDiv(y + height - 1, subSize));
+            if (r0 > r1) return -1;
+
+            int step = dx > 0 ? 1 : -1;
+            int first = Math.floorDiv(dx > 0 ? x : x + width - 1, subSize);
+            int last = Math.floorDiv(dx > 0 ? x + width - 1 + distance : x - distance, subSize);
+            int foldedWord = -1;
+            long walls = 0;
+            for (int c = first; c != last + step; c += step) {
+                if (c < 0 || c >= subCols) continue;
+                if (c >>> 6 != foldedWord) {
+                    foldedWord = c >>> 6;
+                    walls = 0;
+                    for (int r = r0; r <= r1; r++) {
+                        int i = r * wordsPerRow + foldedWord;
+                        walls |= brickRows[i] | steelRows[i];
+                    }
+                }
+                if ((walls & (1L << (c & (Long.SIZE - 1)))) == 0) continue;
+
+                int contact = dx > 0 ? c * subSize - (x + width - 1) : x - (c * subSize + subSize - 1);
+                return Math.max(0, contact);
+            }
+        }
+        return -1;
+    }
+
+    private int materialBits(long brick, long steel) {
+        return (brick != 0 ? HIT_BRICK : 0) | (steel != 0 ? HIT_STEEL : 0);
+    }
+
+    // Erase the breakable walls in sub-columns c0..c1 of one sub-row
+    private void eraseSpan(int subRow, int c0, int c1, boolean brick, boolean steel) {
+        if (c0 > c1) return;
+        for (int w = c0 >>> 6; w <= c1 >>> 6; w++) {
+            long mask = wordMask(w, c0, c1);
+            int i = subRow * wordsPerRow + w;
+            long bits = (brick ? brickRows[i] & mask : 0) | (steel ? steelRows[i] & mask : 0);
+            if (bits != 0) {
+                eraseWord(subRow, w, bits);
+            }
+        }
+    }
+
+    // Clear sub-cells of one bitboard word, journal them per tile and empty tiles with nothing left
+    private void eraseWord(int subRow, int w, long bits) {
+        int i = subRow * wordsPerRow + w;
+        brickRows[i] &= ~bits;
+        steelRows[i] &= ~bits;
+
+        int row = subRow / SUB_CELLS;
+        int shift = (subRow % SUB_CELLS) * SUB_CELLS;
+        int firstCol = w * (Long.SIZE / SUB_CELLS);
+        for (int k = 0; k < Long.SIZE / SUB_CELLS; k++) {
+            int tileBits = (int) (bits >>> (k * SUB_CELLS)) & 0xF;
+            if (tileBits == 0) continue;
+
+            int col = firstCol + k;
+            if (getSections(col, row) == 0) {
+                types[row * cols + col] = EMPTY;
+            }
+            if (journal != null) {
+                journal.recordSectionsDestroyed(col * cellSize, row * cellSize, cellSize, tileBits << shift);
+            }
+        }
+    }
+
+    // Any brick or steel (and water, if asked) in sub-columns c0..c1 of one sub-row
+    private boolean hasMaterial(int subRow, int c0, int c1, boolean water) {
+        for (int w = c0 >>> 6; w <= c1 >>> 6; w++) {
+            int i = subRow * wordsPerRow + w;
+            long material = brickRows[i] | steelRows[i] | (water ? waterRows[i] : 0);
+            if ((material & wordMask(w, c0, c1)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Word index of a sub-cell in the bitboards
+    private int word(int subRow, int subCol) {
+        return subRow * wordsPerRow + (subCol >>> 6);
+    }
+
+    // Bits of word w that fall in sub-columns c0..c1
+    private static long wordMask(int w, int c0, int c1) {
+        int lo = Math.max(c0 - w * Long.SIZE, 0);
+        int hi = Math.min(c1 - w * Long.SIZE, Long.SIZE - 1);
+        return (-1L >>> (Long.SIZE - 1 - (hi - lo))) << lo;
+    }
+
+    // Tank-blocking sub-columns anywhere in the pixel rows y0..y1, into `out` (getWordsPerRow()
+    // words, sub-column c is bit c % 64 of word c / 64)
+    public void getTankBlockingBits(int y0, int y1, long[] out) {
+        int r0 = Math.max(0, y0 / subSize);
+        int r1 = Math.min(subRows - 1, y1 / subSize);
+
+        Arrays.fill(out, 0, wordsPerRow, 0L);
+        for (int r = r0; r <= r1; r++) {
+            int rowStart = r * wordsPerRow;
+            for (int w = 0; w < wordsPerRow; w++) {
+                out[w] |= brickRows[rowStart + w] | steelRows[rowStart + w] | waterRows[rowStart + w];
+            }
+        }
+    }
+
+    // Type code of a cell - cells outside the map read as steel
+    public int getType(int col, int row) {
+        if (!inBounds(col, row)) return STEEL;
+        return types[row * cols + col];
+    }
+
+    // Intact sub-cells of a wall or water cell (bit = row * 4 + col), ALL_SECTIONS for other types
+    public int getSections(int col, int row) {
+        if (!inBounds(col, row)) return ALL_SECTIONS;
+
+        int type = types[row * cols + col];
+        if (type != BRICK && type != STEEL && type != WATER) return ALL_SECTIONS;
+
+        int sections = 0;
+        for (int r = 0; r < SUB_CELLS; r++) {
+            int i = word(row * SUB_CELLS + r, col * SUB_CELLS);
+            long material = brickRows[i] | steelRows[i] | waterRows[i];
+            sections |= ((int) (material >>> (col * SUB_CELLS & (Long.SIZE - 1))) & 0xF) << (r * SUB_CELLS);
+        }
+        return sections;
+    }
+
+    // Shared behaviour object of a cell, null if the cell is empty
+    public Environment getEnvironment(int col, int row) {
+        return TYPES[getType(col, row)];
+    }
+
+    // Shared behaviour object for a type code
+    public static Environment getEnvironmentType(int type) {
+        return TYPES[type];
+    }
+
+    // Flags of a cell - cells outside the map block everything
+    public int getFlags(int col, int row) {
+        if (!inBounds(col, row)) {
+            return TANK_BLOCKING | BULLET_BLOCKING;
+        }
+        return TYPE_FLAGS[types[row * cols + col]];
+    }
+
+    // Check if any cell under a pixel rectangle has one of the given flags
+    public boolean overlaps(Rectangle bounds, int mask) {
+        int minCol = Math.max(0, bounds.x / cellSize);
+        int minRow = Math.max(0, bounds.y / cellSize);
+        int maxCol = Math.min(cols - 1, (bounds.x + bounds.width - 1) / cellSize);
+        int maxRow = Math.min(rows - 1, (bounds.y + bounds.height - 1) / cellSize);
+
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                if ((TYPE_FLAGS[types[row * cols + col]] & mask) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Tank collision at sub-cell resolution - one AND per bitboard row the bounds cover
+    public boolean blocksTank(Rectangle bounds) {
+        return overlapsMaterial(bounds, true);
+    }
+
+    // Same for bullets - only the walls count, bullets fly over water
+    public boolean blocksBullet(Rectangle bounds) {
+        return overlapsMaterial(bounds, false);
+    }
+
+    private boolean overlapsMaterial(Rectangle bounds, boolean water) {
+        int c0 = Math.max(0, bounds.x / subSize);
+        int r0 = Math.max(0, bounds.y / subSize);
+        int c1 = Math.min(subCols - 1, (bounds.x + bounds.width - 1) / subSize);
+        int r1 = Math.min(subRows - 1, (bounds.y + bounds.height - 1) / subSize);
+        if (c0 > c1) return false;
+
+        for (int r = r0; r <= r1; r++) {
+            if (hasMaterial(r, c0, c1, water)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Flags of one sub-cell. Walls and water come from the bitboards, so the broken-off
+    // parts of a tile read as open; trees and ice cover their whole tile.
+    public int getSubCellFlags(int subCol, int subRow) {
+        if (subCol < 0 || subRow < 0 || subCol >= subCols || subRow >= subRows) {
+            return TANK_BLOCKING | BULLET_BLOCKING;
+        }
+
+        int flags = TYPE_FLAGS[types[(subRow / SUB_CELLS) * cols + subCol / SUB_CELLS]] & (CONCEALING | SLIPPERY);
+        int i = word(subRow, subCol);
+        long bit = 1L << (subCol & (Long.SIZE - 1));
+        if ((brickRows[i] & bit) != 0) {
+            flags |= TANK_BLOCKING | BULLET_BLOCKING | DESTRUCTIBLE;
+        } else if ((steelRows[i] & bit) != 0) {
+            flags |= TANK_BLOCKING | BULLET_BLOCKING;
+        } else if ((waterRows[i] & bit) != 0) {
+            flags |= TANK_BLOCKING;
+        }
+        return flags;
+    }
+
+    private boolean inBounds(int col, int row) {
+        return col >= 0 && row >= 0 && col < cols && row < rows;
+    }
+
+    // Getters
+    public int getCols() { return cols; }
+    public int getRows() { return rows; }
+    public int getCellSize() { return cellSize; }
+    public int getSubCellSize() { return subSize; }
+    public int getSubCols() { return subCols; }
+    public int getSubRows() { return subRows; }
+    public int getWordsPerRow() { return wordsPerRow; }
+}
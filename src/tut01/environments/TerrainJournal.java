@@ -0,0 +1,55 @@
+package tut01.environments;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Terrain mutation journal - collects the tiles and sections changed during a tick
+ * and publishes them to subscribers together with a map version counter
+ */
+public class TerrainJournal {
+    private final List<TerrainListener> listeners = new ArrayList<>();
+    private final List<TerrainChange> pending = new ArrayList<>();
+    private long version = 0;
+
+    public void addListener(TerrainListener listener) {
+        listeners.add(listener);
+    }
+
+    // Record sub-cells of a wall destroyed by a bullet (mask bit = row * 4 + col)
+    public void recordSectionsDestroyed(int x, int y, int size, int sectionMask) {
+        if (sectionMask == 0) return;
+        pending.add(new TerrainChange(TerrainChange.SECTIONS_DESTROYED, x, y, size, sectionMask));
+    }
+
+    // Record that a whole tile was added, removed or swapped for another type
+    public void recordTileReplaced(int x, int y, int size) {
+        pending.add(new TerrainChange(TerrainChange.TILE_REPLACED, x, y, size, TerrainGrid.ALL_SECTIONS));
+    }
+
+    // Publish the changes recorded this tick - does nothing if the terrain didn't change
+    public void commit() {
+        if (pending.isEmpty()) return;
+
+        version++;
+        List<TerrainChange> changes = Collections.unmodifiableList(new ArrayList<>(pending));
+        pending.clear();
+
+        for (TerrainListener listener : listeners) {
+            listener.onTerrainChanged(changes, version);
+        }
+    }
+
+    // The map was rebuilt from scratch - drop pending changes and start a new version.
+    // Subscribers are rebuilt by the level-load pipeline, which calls onTerrainReset on its workers.
+    public long reset() {
+        pending.clear();
+        version++;
+        return version;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
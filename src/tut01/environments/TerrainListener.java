@@ -0,0 +1,16 @@
+package tut01.environments;
+
+import java.util.List;
+
+/**
+ * Implemented by anything derived from the terrain (caches, render layers, AI tables)
+ * that wants to update only the regions touched by a TerrainJournal commit
+ */
+public interface TerrainListener {
+    // Called once per tick with every change recorded since the last commit
+    void onTerrainChanged(List<TerrainChange> changes, long version);
+
+    // Called when the whole map was replaced (level load) - rebuild from scratch.
+    // May run on a worker thread, concurrently with other subscribers' rebuilds.
+    void onTerrainReset(long version);
+}
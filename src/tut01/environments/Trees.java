@@ -7,15 +7,16 @@ import java.awt.Graphics;
  * Trees - Tanks and bullets can pass through, but tanks are hidden
  */
 public class Trees extends Environment {
-    public Trees(int x, int y) {
-        super(x, y);
+    public Trees() {
+        super(TerrainGrid.TREES);
         this.destructible = false;
         this.passable = true; // Ensure this is true so tanks can move through
         this.color = new Color(0, 100, 0); // Dark green
+        this.flags = TerrainGrid.CONCEALING;
     }
 
     @Override
-    protected void drawBlock(Graphics g) {
+    protected void drawBlock(Graphics g, int x, int y, int sections) {
         // Draw a more authentic trees pattern
         g.setColor(new Color(0, 100, 0)); // Dark green
         g.fillRect(x, y, size, size);
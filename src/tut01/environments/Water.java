@@ -7,15 +7,16 @@ import java.awt.Graphics;
  * Water - Bullets can pass through but tanks cannot
  */
 public class Water extends Environment {
-    public Water(int x, int y) {
-        super(x, y);
+    public Water() {
+        super(TerrainGrid.WATER);
         this.destructible = false;
         this.passable = false; // Tanks cannot pass
         this.color = new Color(0, 0, 139); // Dark blue
+        this.flags = TerrainGrid.TANK_BLOCKING;
     }
 
     @Override
-    protected void drawBlock(Graphics g) {
+    protected void drawBlock(Graphics g, int x, int y, int sections) {
         // Draw a more authentic water pattern
         g.setColor(new Color(30, 144, 255)); // Dodger blue
         g.fillRect(x, y, size, size);
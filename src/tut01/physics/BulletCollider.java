@@ -0,0 +1,128 @@
+package tut01.physics;
+
+import tut01.tanks.BulletStore;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Bullet-versus-bullet collision by sort-and-sweep. Every bullet is treated as a box that
+ * covers its whole move this tick, so bullets meeting head-on, crossing at right angles or
+ * passing through each other between two ticks are all found. Candidate pairs from the
+ * sweep are confirmed by solving for the moment the two bullets come closest.
+ */
+public class BulletCollider {
+    // Bullets collide when their centres come within this distance on both axes
+    public static final int COLLISION_RADIUS = 10;
+    private static final int HALF_RADIUS = COLLISION_RADIUS / 2;
+    private static final long KEY_OFFSET = 1 << 20;
+
+    private long[] keys = new long[64];          // (minX + offset) << 32 | bullet index, sorted
+    private int[] minX = new int[64], maxX = new int[64];
+    private int[] minY = new int[64], maxY = new int[64];
+    private final BitSet removed = new BitSet();
+    private int[] pairs = new int[64];           // Colliding bullet indices, two per pair
+    private int pairCount = 0;
+
+    // Find colliding pairs among the bullets in the store - returns the number of pairs
+    public int collide(BulletStore bullets) {
+        int count = bullets.size();
+        ensureCapacity(count);
+        removed.clear();
+        pairCount = 0;
+
+        // Swept box of every bullet: from where it was at the start of the tick
+        // to where it is now, grown by half the collision radius
+        for (int i = 0; i < count; i++) {
+            int x = bullets.getX(i);
+            int y = bullets.getY(i);
+            int startX = x - bullets.getDx(i);
+            int startY = y - bullets.getDy(i);
+            minX[i] = Math.min(startX, x) - HALF_RADIUS;
+            maxX[i] = Math.max(startX, x) + HALF_RADIUS;
+            minY[i] = Math.min(startY, y) - HALF_RADIUS;
+            maxY[i] = Math.max(startY, y) + HALF_RADIUS;
+            keys[i] = ((minX[i] + KEY_OFFSET) << 32) | i;
+        }
+        Arrays.sort(keys, 0, count);
+
+        // Sweep along x - only boxes whose x intervals overlap are compared
+        for (int a = 0; a < count; a++) {
+            int i = (int) keys[a];
+            if (removed.get(i)) continue;
+
+            for (int b = a + 1; b < count; b++) {
+                int j = (int) keys[b];
+                if (minX[j] >= maxX[i]) break; // Sorted by minX - nothing further can overlap
+                if (removed.get(j) || minY[j] >= maxY[i] || minY[i] >= maxY[j]) continue;
+
+                if (sameHeading(bullets, i, j)) continue; // Same heading never meet
+                if (!meetDuringTick(bullets, i, j)) continue;
+
+                removed.set(i);
+                removed.set(j);
+                pairs[pairCount * 2] = i;
+                pairs[pairCount * 2 + 1] = j;
+                pairCount++;
+                break; // Found a collision for this bullet, no need to check more
+            }
+        }
+        return pairCount;
+    }
+
+    // Do the two bullets come within COLLISION_RADIUS on both axes at some time t in [0, 1]
+    // of this tick? Each axis gives an open interval of t, the bullets meet if they overlap.
+    private boolean meetDuringTick(BulletStore bullets, int first, int second) {
+        int vx = bullets.getDx(second) - bullets.getDx(first);
+        int vy = bullets.getDy(second) - bullets.getDy(first);
+
+        // Offset at the start of the tick (t = 0); at t = 1 it is the current offset
+        int dx = (bullets.getX(second) - bullets.getX(first)) - vx;
+        int dy = (bullets.getY(second) - bullets.getY(first)) - vy;
+
+        double from = 0.0, to = 1.0;
+        if (vx == 0) {
+            if (Math.abs(dx) >= COLLISION_RADIUS) return false;
+        } else {
+            double t1 = (-COLLISION_RADIUS - dx) / (double) vx;
+            double t2 = (COLLISION_RADIUS - dx) / (double) vx;
+            from = Math.max(from, Math.min(t1, t2));
+            to = Math.min(to, Math.max(t1, t2));
+        }
+        if (vy == 0) {
+            if (Math.abs(dy) >= COLLISION_RADIUS) return false;
+        } else {
+            double t1 = (-COLLISION_RADIUS - dy) / (double) vy;
+            double t2 = (COLLISION_RADIUS - dy) / (double) vy;
+            from = Math.max(from, Math.min(t1, t2));
+            to = Math.min(to, Math.max(t1, t2));
+        }
+        return from < to || (from == to && vx == 0 && vy == 0);
+    }
+
+    // Bullets moving along the same direction, whatever their speed
+    private boolean sameHeading(BulletStore bullets, int first, int second) {
+        return Integer.signum(bullets.getDx(first)) == Integer.signum(bullets.getDx(second)) &&
+                Integer.signum(bullets.getDy(first)) == Integer.signum(bullets.getDy(second));
+    }
+
+    private void ensureCapacity(int count) {
+        if (keys.length >= count) return;
+        int capacity = Math.max(count, keys.length * 2);
+        keys = new long[capacity];
+        minX = new int[capacity];
+        maxX = new int[capacity];
+        minY = new int[capacity];
+        maxY = new int[capacity];
+        pairs = new int[capacity * 2];
+    }
+
+    // Slots (in the store passed to collide) of every bullet that hit another one
+    public BitSet getRemoved() {
+        return removed;
+    }
+
+    // Indices of the two bullets of a colliding pair
+    public int getPairFirst(int pair) { return pairs[pair * 2]; }
+    public int getPairSecond(int pair) { return pairs[pair * 2 + 1]; }
+}
@@ -0,0 +1,337 @@
+package tut01.physics;
+
+import tut01.environments.TerrainGrid;
+import tut01.tanks.Bullet;
+import tut01.tanks.BulletStore;
+import tut01.tanks.Tank;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Continuous bullet collision. Each bullet is swept along its whole move this tick instead of
+ * being tested at its end position, so fast bullets can't skip over thin walls or tanks.
+ * Walls are found by walking the terrain's sub-cell lines along the path, tanks and the base
+ * by a swept box-versus-box test; the earliest hit wins. Piercing bullets (power 2+) break
+ * through brick and keep sweeping from the point of impact.
+ *
+ * Collision runs in two phases. detect() only reads the world and writes one hit record per
+ * bullet, so it can run over batches of bullets in parallel. resolve() is then called for
+ * each bullet in id order and applies the record; a record made stale by an earlier bullet
+ * this tick (its wall already broken, its tank moved away) is thrown away and the bullet is
+ * swept again on the spot, so the outcome is the same as sweeping every bullet serially.
+ */
+public class BulletSweep {
+    // What stopped a bullet
+    public static final int HIT_NONE = 0;
+    public static final int HIT_WALL = 1;
+    public static final int HIT_TANK = 2;
+    public static final int HIT_BASE = 3;
+
+    // Record kind for bullets detection leaves to a serial sweep
+    private static final int RESOLVE_SERIALLY = -1;
+
+    private static final int HALF_SIZE = Bullet.SIZE / 2;
+    private static final int PIERCING_POWER = 2;
+    private static final int BATCH_SIZE = 256; // Bullets per parallel detection task
+
+    private final TerrainGrid terrain;
+    private final SpatialHash<Tank> tanks;
+    private Rectangle base;
+
+    // Scratch state of the serial sweep
+    private final Rectangle swept = new Rectangle();
+    private final Rectangle contactBounds = new Rectangle(0, 0, Bullet.SIZE, Bullet.SIZE);
+    private final List<Tank> candidates = new ArrayList<>();
+
+    // Hit records from detect(), indexed by bullet slot
+    private int[] recordKinds = new int[64];
+    private int[] recordDistances = new int[64];
+    private Tank[] recordTanks = new Tank[64];
+
+    // What resolve() changed so far this tick
+    private final BitSet dirtyTiles = new BitSet();
+    private final List<Tank> invalidatedTanks = new ArrayList<>();
+
+    // Result of the last sweep or resolve
+    private Tank hitTank;
+    private int hitDistance;
+
+    public BulletSweep(TerrainGrid terrain, SpatialHash<Tank> tanks) {
+        this.terrain = terrain;
+        this.tanks = tanks;
+    }
+
+    public void setBase(Rectangle base) {
+        this.base = base;
+    }
+
+    // Phase 1 - record what every bullet would hit, without changing anything. Large bullet
+    // counts are split into batches that run on the common fork-join pool.
+    // Tanks and the base are only looked at for bullets marked in the store by the bulk
+    // overlap pass (BulletStore.markSweptOverlaps), which skips most bullets cheaply.
+    public void detect(BulletStore bullets) {
+        int count = bullets.size();
+        if (recordKinds.length < count) {
+            int capacity = Math.max(count, recordKinds.length * 2);
+            recordKinds = new int[capacity];
+            recordDistances = new int[capacity];
+            recordTanks = new Tank[capacity];
+        }
+        dirtyTiles.clear();
+        invalidatedTanks.clear();
+
+        int batches = (count + BATCH_SIZE - 1) / BATCH_SIZE;
+        if (batches <= 1) {
+            detectRange(bullets, 0, count, candidates);
+        } else {
+            IntStream.range(0, batches).parallel().forEach(batch -> detectRange(bullets,
+                    batch * BATCH_SIZE, Math.min(count, (batch + 1) * BATCH_SIZE), new ArrayList<>()));
+        }
+    }
+
+    // Detection for one batch - only reads the terrain, the tank hash and the store
+    private void detectRange(BulletStore bullets, int from, int to, List<Tank> scratch) {
+        for (int i = from; i < to; i++) {
+            recordTanks[i] = null;
+            recordDistances[i] = -1;
+
+            // Piercing bullets break several walls on the way, leave them to the serial sweep
+            if (bullets.getPower(i) >= PIERCING_POWER) {
+                recordKinds[i] = RESOLVE_SERIALLY;
+                continue;
+            }
+
+            int dx = Integer.signum(bullets.getDx(i));
+            int dy = Integer.signum(bullets.getDy(i));
+            int distance = bullets.getSpeed(i);
+            int startX = bullets.getX(i) - bullets.getDx(i) - HALF_SIZE;
+            int startY = bullets.getY(i) - bullets.getDy(i) - HALF_SIZE;
+
+            int target = HIT_NONE;
+            int targetDistance = Integer.MAX_VALUE;
+            Tank targetTank = null;
+            if (bullets.isMarked(i)) {
+                scratch.clear();
+                tanks.query(sweptBounds(startX, startY, dx, dy, distance, new Rectangle()), scratch);
+                for (Tank tank : scratch) {
+                    int contact = tankContact(startX, startY, dx, dy, distance, tank);
+                    if (contact >= 0 && contact < targetDistance) {
+                        targetDistance = contact;
+                        target = HIT_TANK;
+                        targetTank = tank;
+                    }
+                }
+                int contact = base != null ? contactDistance(startX, startY, dx, dy, distance, base) : -1;
+                if (contact >= 0 && contact < targetDistance) {
+                    targetDistance = contact;
+                    target = HIT_BASE;
+                    targetTank = null;
+                }
+            }
+
+            // On a tie the wall is struck first
+            int wall = terrain.findWallAlong(startX, startY, Bullet.SIZE, Bullet.SIZE, dx, dy, distance);
+            if (wall >= 0 && wall <= targetDistance) {
+                target = HIT_WALL;
+                targetDistance = wall;
+                targetTank = null;
+            }
+
+            recordKinds[i] = target;
+            recordDistances[i] = target == HIT_NONE ? -1 : targetDistance;
+            recordTanks[i] = targetTank;
+        }
+    }
+
+    // Phase 2 - apply the record of one bullet. Bullets must be resolved in id order; slots
+    // are only valid until the caller removes bullets, so removals wait until every bullet
+    // has been resolved. Returns what stopped the bullet, HIT_NONE if it flies on.
+    public int resolve(BulletStore bullets, int i) {
+        if (!isRecordValid(bullets, i)) {
+            return sweep(bullets, i);
+        }
+
+        hitTank = recordTanks[i];
+        hitDistance = recordDistances[i];
+        if (recordKinds[i] != HIT_WALL) {
+            return recordKinds[i];
+        }
+
+        // Non-piercing bullet against a wall that is known to be still standing
+        int dx = Integer.signum(bullets.getDx(i));
+        int dy = Integer.signum(bullets.getDy(i));
+        contactBounds.setLocation(bullets.getX(i) - bullets.getDx(i) - HALF_SIZE + dx * hitDistance,
+                bullets.getY(i) - bullets.getDy(i) - HALF_SIZE + dy * hitDistance);
+        if (breakWall(contactBounds, dx, dy, bullets.getDamage(i)) == 0) {
+            return sweep(bullets, i); // Can't happen with an untouched path, but stay safe
+        }
+        return HIT_WALL;
+    }
+
+    // A record stays valid as long as nothing resolved earlier this tick touched its path:
+    // no broken wall in the tiles it sweeps over and no tank that moved or left
+    private boolean isRecordValid(BulletStore bullets, int i) {
+        if (recordKinds[i] == RESOLVE_SERIALLY) return false;
+        if (dirtyTiles.isEmpty() && invalidatedTanks.isEmpty()) return true;
+
+        int dx = Integer.signum(bullets.getDx(i));
+        int dy = Integer.signum(bullets.getDy(i));
+        int startX = bullets.getX(i) - bullets.getDx(i) - HALF_SIZE;
+        int startY = bullets.getY(i) - bullets.getDy(i) - HALF_SIZE;
+        sweptBounds(startX, startY, dx, dy, bullets.getSpeed(i), swept);
+
+        if (!dirtyTiles.isEmpty() && touchesDirtyTile(swept)) return false;
+        for (Tank tank : invalidatedTanks) {
+            if (recordTanks[i] == tank || swept.intersects(tank.getBounds())) return false;
+        }
+        return true;
+    }
+
+    // A tank moved or was taken out of the tank hash while resolving (a player respawned or
+    // lost their last life) - bullets recorded against it, or now crossing it, are swept again
+    public void invalidate(Tank tank) {
+        invalidatedTanks.add(tank);
+    }
+
+    // Sweep one bullet from where it was at the start of the tick to where it is now, breaking
+    // the walls it passes through. Returns what stopped it, HIT_NONE if it flies on.
+    public int sweep(BulletStore bullets, int i) {
+        hitTank = null;
+        hitDistance = -1;
+
+        int dx = Integer.signum(bullets.getDx(i));
+        int dy = Integer.signum(bullets.getDy(i));
+        int distance = bullets.getSpeed(i);
+        int startX = bullets.getX(i) - bullets.getDx(i) - HALF_SIZE;
+        int startY = bullets.getY(i) - bullets.getDy(i) - HALF_SIZE;
+
+        // Earliest tank and base contact along the whole move
+        int targetDistance = Integer.MAX_VALUE;
+        int target = HIT_NONE;
+
+        candidates.clear();
+        if (bullets.isMarked(i) || !invalidatedTanks.isEmpty()) {
+            tanks.query(sweptBounds(startX, startY, dx, dy, distance, swept), candidates);
+        }
+        for (Tank tank : candidates) {
+            int contact = tankContact(startX, startY, dx, dy, distance, tank);
+            if (contact < 0 || contact >= targetDistance) continue;
+
+            targetDistance = contact;
+            target = HIT_TANK;
+            hitTank = tank;
+        }
+        if (base != null && bullets.isMarked(i)) {
+            int contact = contactDistance(startX, startY, dx, dy, distance, base);
+            if (contact >= 0 && contact < targetDistance) {
+                targetDistance = contact;
+                target = HIT_BASE;
+                hitTank = null;
+            }
+        }
+
+        // Walk the walls up to the first target - on a tie the wall is struck first
+        boolean piercing = bullets.getPower(i) >= PIERCING_POWER;
+        int damage = bullets.getDamage(i);
+        int travelled = 0;
+        while (travelled <= distance) {
+            int x = startX + dx * travelled;
+            int y = startY + dy * travelled;
+            int wall = terrain.findWallAlong(x, y, Bullet.SIZE, Bullet.SIZE, dx, dy, distance - travelled);
+            if (wall < 0 || travelled + wall > targetDistance) break;
+
+            travelled += wall;
+            contactBounds.setLocation(startX + dx * travelled, startY + dy * travelled);
+            int hit = breakWall(contactBounds, dx, dy, damage);
+            if (hit == 0) break; // Nothing left to break in the bullet's way
+
+            // All bullets stop at steel walls regardless of power, only piercing ones go on through brick
+            if ((hit & TerrainGrid.HIT_STEEL) != 0 || !piercing) {
+                hitTank = null;
+                hitDistance = travelled;
+                return HIT_WALL;
+            }
+        }
+
+        hitDistance = target == HIT_NONE ? -1 : targetDistance;
+        return target;
+    }
+
+    // Let the terrain take a bullet impact and remember the tiles whose walls may have changed
+    private int breakWall(Rectangle bounds, int dx, int dy, int damage) {
+        int hit = terrain.hitByBullet(bounds, dx, dy, damage);
+        if (hit != 0) {
+            // The grid erases a strip one tile wide centred on the bullet
+            int cellSize = terrain.getCellSize();
+            int centerX = bounds.x + bounds.width / 2;
+            int centerY = bounds.y + bounds.height / 2;
+            markDirtyTiles(centerX - cellSize / 2, centerY - cellSize / 2, cellSize, cellSize);
+        }
+        return hit;
+    }
+
+    private void markDirtyTiles(int x, int y, int width, int height) {
+        int cellSize = terrain.getCellSize();
+        int cols = terrain.getCols();
+        int minCol = Math.max(0, Math.floorDiv(x, cellSize));
+        int maxCol = Math.min(cols - 1, Math.floorDiv(x + width - 1, cellSize));
+        int minRow = Math.max(0, Math.floorDiv(y, cellSize));
+        int maxRow = Math.min(terrain.getRows() - 1, Math.floorDiv(y + height - 1, cellSize));
+        for (int row = minRow; row <= maxRow; row++) {
+            dirtyTiles.set(row * cols + minCol, row * cols + maxCol + 1);
+        }
+    }
+
+    private boolean touchesDirtyTile(Rectangle area) {
+        int cellSize = terrain.getCellSize();
+        int cols = terrain.getCols();
+        int minCol = Math.max(0, Math.floorDiv(area.x, cellSize));
+        int maxCol = Math.min(cols - 1, Math.floorDiv(area.x + area.width - 1, cellSize));
+        int minRow = Math.max(0, Math.floorDiv(area.y, cellSize));
+        int maxRow = Math.min(terrain.getRows() - 1, Math.floorDiv(area.y + area.height - 1, cellSize));
+        for (int row = minRow; row <= maxRow; row++) {
+            int next = dirtyTiles.nextSetBit(row * cols + minCol);
+            if (next >= 0 && next <= row * cols + maxCol) return true;
+        }
+        return false;
+    }
+
+    // Box covering the bullet over its whole move
+    private Rectangle sweptBounds(int startX, int startY, int dx, int dy, int distance, Rectangle out) {
+        out.setBounds(Math.min(startX, startX + dx * distance), Math.min(startY, startY + dy * distance),
+                Bullet.SIZE + Math.abs(dx) * distance, Bullet.SIZE + Math.abs(dy) * distance);
+        return out;
+    }
+
+    // Contact distance with a tank, -1 if missed. A tank the bullet only overlaps at the start
+    // of its move is the one that fired it.
+    private int tankContact(int x, int y, int dx, int dy, int distance, Tank tank) {
+        Rectangle bounds = tank.getBounds();
+        int contact = contactDistance(x, y, dx, dy, distance, bounds);
+        if (contact == 0 && !overlapsAt(x, y, dx, dy, distance, bounds)) return -1;
+        return contact;
+    }
+
+    // Distance the bullet box travels before it first overlaps a rectangle, -1 if it never does
+    private int contactDistance(int x, int y, int dx, int dy, int distance, Rectangle r) {
+        return PhysicsQueries.contactDistance(x, y, Bullet.SIZE, Bullet.SIZE, dx, dy, distance, r);
+    }
+
+    // Does the bullet box still overlap a rectangle at the end of its move?
+    private boolean overlapsAt(int x, int y, int dx, int dy, int distance, Rectangle r) {
+        int endX = x + dx * distance;
+        int endY = y + dy * distance;
+        return endX < r.x + r.width && r.x < endX + Bullet.SIZE &&
+                endY < r.y + r.height && r.y < endY + Bullet.SIZE;
+    }
+
+    // Tank struck by the last sweep or resolve, if it returned HIT_TANK
+    public Tank getHitTank() { return hitTank; }
+
+    // How far the last bullet travelled before it was stopped, -1 if it wasn't
+    public int getHitDistance() { return hitDistance; }
+}
@@ -0,0 +1,105 @@
+package tut01.physics;
+
+import tut01.environments.TerrainChange;
+import tut01.environments.TerrainGrid;
+import tut01.environments.TerrainListener;
+
+import java.util.List;
+
+/**
+ * Configuration-space obstacle map for one tank size. Bit (x, y) is set when a tank whose
+ * top-left corner sits at pixel (x, y) would overlap a wall, water or the map edge.
+ * Built from the terrain bitboards at load and patched around every journaled change, so
+ * moving a tank is one bit test per pixel of travel.
+ */
+public class ConfigurationSpace implements TerrainListener {
+    private final TerrainGrid terrain;
+    private final int tankSize;
+    private final int subSize;
+    private final int positionsX;   // Valid top-left x positions: 0 .. width - tankSize
+    private final int positionsY;
+    private final int wordsPerRow;
+    private final long[] blocked;
+    private final long[] band;      // Scratch - blocking sub-columns under one row of positions
+
+    public ConfigurationSpace(TerrainGrid terrain, int tankSize) {
+        this.terrain = terrain;
+        this.tankSize = tankSize;
+        this.subSize = terrain.getSubCellSize();
+        this.positionsX = terrain.getCols() * terrain.getCellSize() - tankSize + 1;
+        this.positionsY = terrain.getRows() * terrain.getCellSize() - tankSize + 1;
+        this.wordsPerRow = (positionsX + Long.SIZE - 1) / Long.SIZE;
+        this.blocked = new long[wordsPerRow * positionsY];
+        this.band = new long[terrain.getWordsPerRow()];
+    }
+
+    @Override
+    public void onTerrainChanged(List<TerrainChange> changes, long version) {
+        for (TerrainChange change : changes) {
+            // Every top-left position from which the tank would touch the changed tile
+            rebuildRegion(change.getX() - tankSize + 1, change.getY() - tankSize + 1,
+                    change.getX() + change.getSize() - 1, change.getY() + change.getSize() - 1);
+        }
+    }
+
+    @Override
+    public void onTerrainReset(long version) {
+        rebuildRegion(0, 0, positionsX - 1, positionsY - 1);
+    }
+
+    // Recompute the positions x0..x1, y0..y1 (inclusive, clamped to the map)
+    private void rebuildRegion(int x0, int y0, int x1, int y1) {
+        x0 = Math.max(0, x0);
+        y0 = Math.max(0, y0);
+        x1 = Math.min(positionsX - 1, x1);
+        y1 = Math.min(positionsY - 1, y1);
+
+        for (int y = y0; y <= y1; y++) {
+            // Blocking sub-columns anywhere in the band of rows the tank covers
+            terrain.getTankBlockingBits(y, y + tankSize - 1, band);
+            int rowStart = y * wordsPerRow;
+
+            for (int x = x0; x <= x1; x++) {
+                long bit = 1L << (x & (Long.SIZE - 1));
+                int word = rowStart + (x >>> 6);
+                if (bandBlocks(x / subSize, (x + tankSize - 1) / subSize)) {
+                    blocked[word] |= bit;
+                } else {
+                    blocked[word] &= ~bit;
+                }
+            }
+        }
+    }
+
+    // Any blocking sub-column c0..c1 in the current band - the span may cross a word boundary
+    private boolean bandBlocks(int c0, int c1) {
+        for (int w = c0 >>> 6; w <= c1 >>> 6; w++) {
+            int lo = Math.max(c0 - w * Long.SIZE, 0);
+            int hi = Math.min(c1 - w * Long.SIZE, Long.SIZE - 1);
+            if ((band[w] & (-1L >>> (Long.SIZE - 1 - (hi - lo))) << lo) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Does a tank fit with its top-left corner at (x, y)?
+    public boolean isFree(int x, int y) {
+        if (x < 0 || y < 0 || x >= positionsX || y >= positionsY) return false;
+        return (blocked[y * wordsPerRow + (x >>> 6)] & (1L << (x & (Long.SIZE - 1)))) == 0;
+    }
+
+    // How many pixels (0..distance) a tank at (x, y) can move along (dx, dy) before it
+    // touches an obstacle - lets tanks slide into contact instead of stopping short
+    public int travel(int x, int y, int dx, int dy, int distance) {
+        int moved = 0;
+        while (moved < distance && isFree(x + dx * (moved + 1), y + dy * (moved + 1))) {
+            moved++;
+        }
+        return moved;
+    }
+
+    public int getTankSize() {
+        return tankSize;
+    }
+}
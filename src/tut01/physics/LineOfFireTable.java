@@ -0,0 +1,101 @@
+package tut01.physics;
+
+import tut01.environments.TerrainChange;
+import tut01.environments.TerrainGrid;
+import tut01.environments.TerrainListener;
+
+import java.util.List;
+
+/**
+ * Prefix counts of bullet-blocking sub-cells along every sub-row and sub-column. A shot only
+ * ever travels along one of them, so asking "is the way between these two points clear?" is
+ * two array reads and a subtraction instead of a walk across the map.
+ *
+ * Only the rows and columns through a changed tile are recounted when walls are destroyed or
+ * placed, from that tile onwards.
+ */
+public class LineOfFireTable implements TerrainListener {
+    private final TerrainGrid terrain;
+    private final int subCols;
+    private final int subRows;
+    private final int subSize;
+    private final int subPerTile;
+
+    // rowCounts[subRow][i] - blocking sub-cells in sub-columns [0, i) of the row, and the same
+    // down each column
+    private final int[][] rowCounts;
+    private final int[][] colCounts;
+
+    public LineOfFireTable(TerrainGrid terrain) {
+        this.terrain = terrain;
+        this.subCols = terrain.getSubCols();
+        this.subRows = terrain.getSubRows();
+        this.subSize = terrain.getSubCellSize();
+        this.subPerTile = terrain.getCellSize() / subSize;
+        this.rowCounts = new int[subRows][subCols + 1];
+        this.colCounts = new int[subCols][subRows + 1];
+    }
+
+    @Override
+    public void onTerrainChanged(List<TerrainChange> changes, long version) {
+        for (TerrainChange change : changes) {
+            int firstSubCol = change.getCol() * subPerTile;
+            int firstSubRow = change.getRow() * subPerTile;
+            for (int i = 0; i < subPerTile; i++) {
+                recountRow(firstSubRow + i, firstSubCol);
+                recountColumn(firstSubCol + i, firstSubRow);
+            }
+        }
+    }
+
+    @Override
+    public void onTerrainReset(long version) {
+        for (int subRow = 0; subRow < subRows; subRow++) {
+            recountRow(subRow, 0);
+        }
+        for (int subCol = 0; subCol < subCols; subCol++) {
+            recountColumn(subCol, 0);
+        }
+    }
+
+    // Recount a row from a sub-column onwards - the counts before it are unchanged
+    private void recountRow(int subRow, int fromSubCol) {
+        if (subRow < 0 || subRow >= subRows || fromSubCol < 0) return;
+
+        int[] counts = rowCounts[subRow];
+        for (int subCol = fromSubCol; subCol < subCols; subCol++) {
+            counts[subCol + 1] = counts[subCol] + (blocks(subCol, subRow) ? 1 : 0);
+        }
+    }
+
+    private void recountColumn(int subCol, int fromSubRow) {
+        if (subCol < 0 || subCol >= subCols || fromSubRow < 0) return;
+
+        int[] counts = colCounts[subCol];
+        for (int subRow = fromSubRow; subRow < subRows; subRow++) {
+            counts[subRow + 1] = counts[subRow] + (blocks(subCol, subRow) ? 1 : 0);
+        }
+    }
+
+    private boolean blocks(int subCol, int subRow) {
+        return (terrain.getSubCellFlags(subCol, subRow) & TerrainGrid.BULLET_BLOCKING) != 0;
+    }
+
+    // No bullet-blocking sub-cell between two points on the same row or column, both ends
+    // included. Like a raycast, only the part of the segment on the map counts and a segment
+    // that starts off the map is clear.
+    public boolean isSegmentClear(int x1, int y1, int x2, int y2) {
+        int col = Math.floorDiv(x1, subSize);
+        int row = Math.floorDiv(y1, subSize);
+        if (col < 0 || row < 0 || col >= subCols || row >= subRows) return true;
+
+        int endCol = Math.max(0, Math.min(subCols - 1, Math.floorDiv(x2, subSize)));
+        int endRow = Math.max(0, Math.min(subRows - 1, Math.floorDiv(y2, subSize)));
+        if (row == endRow) {
+            int[] counts = rowCounts[row];
+            return counts[Math.max(col, endCol) + 1] == counts[Math.min(col, endCol)];
+        }
+        int[] counts = colCounts[col];
+        return counts[Math.max(row, endRow) + 1] == counts[Math.min(row, endRow)];
+    }
+}
@@ -0,0 +1,244 @@
+package tut01.physics;
+
+import tut01.environments.TerrainGrid;
+import tut01.tanks.Tank;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One place to ask the world "what is here / what is in the way". Overlap, raycast and
+ * box-sweep queries are filtered by a bitmask of collision layers. The terrain layers are the
+ * terrain flags themselves; tank bodies are an extra layer served by the tank hash.
+ *
+ * Walls and water are answered from the terrain bitboards at sub-cell resolution (so a
+ * half-broken brick tile only blocks where brick is left), tank-sized sweeps from the tank
+ * configuration space, and straight shots along a row or column from the line-of-fire
+ * table. Queries don't keep any state between calls; the tank layer reuses a scratch list per
+ * thread, since the enemy tanks ask from the parallel think pass.
+ */
+public class PhysicsQueries {
+    // Collision layers
+    public static final int TANK_BLOCKING = TerrainGrid.TANK_BLOCKING;     // Walls and water
+    public static final int BULLET_BLOCKING = TerrainGrid.BULLET_BLOCKING; // Walls
+    public static final int CONCEALING = TerrainGrid.CONCEALING;           // Trees
+    public static final int SLIPPERY = TerrainGrid.SLIPPERY;               // Ice
+    public static final int TANKS = 1 << 8;                                // Tank bodies
+
+    private static final int TILE_COVER = CONCEALING | SLIPPERY;
+
+    private final TerrainGrid terrain;
+    private final ConfigurationSpace tankSpace;
+    private final SpatialHash<Tank> tanks;
+    private final LineOfFireTable lineOfFire;
+    private final int width;
+    private final int height;
+    private final ThreadLocal<List<Tank>> nearbyTanks = ThreadLocal.withInitial(ArrayList::new);
+
+    public PhysicsQueries(TerrainGrid terrain, ConfigurationSpace tankSpace, SpatialHash<Tank> tanks,
+                          LineOfFireTable lineOfFire) {
+        this.terrain = terrain;
+        this.tankSpace = tankSpace;
+        this.tanks = tanks;
+        this.lineOfFire = lineOfFire;
+        this.width = terrain.getCols() * terrain.getCellSize();
+        this.height = terrain.getRows() * terrain.getCellSize();
+    }
+
+    // Does anything on the given layers overlap the area?
+    public boolean overlaps(Rectangle area, int mask) {
+        return overlaps(area, mask, null);
+    }
+
+    // Same, leaving one tank (usually the one asking) out of the TANKS layer
+    public boolean overlaps(Rectangle area, int mask, Tank ignore) {
+        if ((mask & TANK_BLOCKING) != 0 && terrain.blocksTank(area)) return true;
+        if ((mask & BULLET_BLOCKING) != 0 && terrain.blocksBullet(area)) return true;
+        if ((mask & TILE_COVER) != 0 && terrain.overlaps(area, mask & TILE_COVER)) return true;
+
+        if ((mask & TANKS) != 0) {
+            List<Tank> found = nearbyTanks.get();
+            found.clear();
+            tanks.query(area, found);
+            for (int i = 0; i < found.size(); i++) {
+                if (found.get(i) != ignore) return true;
+            }
+        }
+        return false;
+    }
+
+    // Walk the sub-cells a segment crosses, in order from (x1, y1) to (x2, y2), and return the
+    // first one on the given terrain layers (index subRow * subCols + subCol), -1 if the line is
+    // clear. The walk stops at the map edge.
+    public int raycast(int x1, int y1, int x2, int y2, int mask) {
+        int subSize = terrain.getSubCellSize();
+        int subCols = terrain.getSubCols();
+        int subRows = terrain.getSubRows();
+
+        int col = Math.floorDiv(x1, subSize);
+        int row = Math.floorDiv(y1, subSize);
+        int endCol = Math.floorDiv(x2, subSize);
+        int endRow = Math.floorDiv(y2, subSize);
+        int stepX = Integer.signum(x2 - x1);
+        int stepY = Integer.signum(y2 - y1);
+        long lengthX = Math.abs(x2 - x1);
+        long lengthY = Math.abs(y2 - y1);
+
+        // Distance along each axis to the next sub-cell border - the line crosses whichever
+        // border it reaches first, compared as tX / lengthX against tY / lengthY
+        long tX = stepX > 0 ? (col + 1) * subSize - x1 : x1 - col * subSize;
+        long tY = stepY > 0 ? (row + 1) * subSize - y1 : y1 - row * subSize;
+
+        while (col >= 0 && row >= 0 && col < subCols && row < subRows) {
+            if ((terrain.getSubCellFlags(col, row) & mask) != 0) {
+                return row * subCols + col;
+            }
+            if (col == endCol && row == endRow) break;
+
+            if (stepY == 0 || stepX != 0 && tX * lengthY < tY * lengthX) {
+                col += stepX;
+                tX += subSize;
+            } else {
+                row += stepY;
+                tY += subSize;
+            }
+        }
+        return -1;
+    }
+
+    // Nothing on the given terrain layers between the two points? Walls along a row or column
+    // are a table lookup.
+    public boolean isLineClear(int x1, int y1, int x2, int y2, int mask) {
+        if (mask == BULLET_BLOCKING && (x1 == x2 || y1 == y2)) {
+            return lineOfFire.isSegmentClear(x1, y1, x2, y2);
+        }
+        return raycast(x1, y1, x2, y2, mask) < 0;
+    }
+
+    // How many pixels (0..distance) a box can move along (dx, dy) - one axis only - before it
+    // touches something on the given layers. The map edge stops walls and water sweeps.
+    public int sweep(Rectangle box, int dx, int dy, int distance, int mask) {
+        return sweep(box, dx, dy, distance, mask, null);
+    }
+
+    public int sweep(Rectangle box, int dx, int dy, int distance, int mask, Tank ignore) {
+        int free = distance;
+
+        if ((mask & TANK_BLOCKING) != 0) {
+            if (box.width == tankSpace.getTankSize() && box.height == box.width) {
+                // Tank-sized boxes have their obstacles grown into the configuration space
+                free = tankSpace.travel(box.x, box.y, dx, dy, free);
+            } else {
+                free = stepSweep(box, dx, dy, free, TANK_BLOCKING);
+            }
+        }
+        if ((mask & BULLET_BLOCKING) != 0 && free > 0) {
+            free = Math.min(free, edgeDistance(box, dx, dy));
+            int wall = terrain.findWallAlong(box.x, box.y, box.width, box.height, dx, dy, free);
+            if (wall >= 0) {
+                free = Math.max(0, wall - 1);
+            }
+        }
+        if ((mask & TILE_COVER) != 0 && free > 0) {
+            free = stepSweep(box, dx, dy, free, mask & TILE_COVER);
+        }
+
+        if ((mask & TANKS) != 0 && free > 0) {
+            Rectangle swept = new Rectangle(Math.min(box.x, box.x + dx * free), Math.min(box.y, box.y + dy * free),
+                    box.width + Math.abs(dx) * free, box.height + Math.abs(dy) * free);
+            List<Tank> found = nearbyTanks.get();
+            found.clear();
+            tanks.query(swept, found);
+            for (int i = 0; i < found.size(); i++) {
+                Tank tank = found.get(i);
+                if (tank == ignore) continue;
+                int contact = contactDistance(box.x, box.y, box.width, box.height, dx, dy, free, tank.getBounds());
+                if (contact >= 0) {
+                    free = Math.max(0, contact - 1);
+                }
+            }
+        }
+        return free;
+    }
+
+    // Can the box get (dx, dy) away? Tanks only move along the axes, so the route is an L -
+    // either leg may come first.
+    public boolean isRouteClear(Rectangle box, int dx, int dy, int mask) {
+        Rectangle corner = new Rectangle(box.x + dx, box.y, box.width, box.height);
+        if (isLegClear(box, dx, 0, mask) && isLegClear(corner, 0, dy, mask)) return true;
+
+        corner.setLocation(box.x, box.y + dy);
+        return isLegClear(box, 0, dy, mask) && isLegClear(corner, dx, 0, mask);
+    }
+
+    private boolean isLegClear(Rectangle box, int dx, int dy, int mask) {
+        int distance = Math.abs(dx) + Math.abs(dy);
+        return distance == 0 || sweep(box, Integer.signum(dx), Integer.signum(dy), distance, mask) == distance;
+    }
+
+    // Direction a shooter has to face to hit the target, or null if the two aren't lined up on
+    // a row or column or something on the given layers sits between their centres
+    public Tank.Direction lineOfFire(Rectangle shooter, Rectangle target, int mask) {
+        int shooterX = shooter.x + shooter.width / 2;
+        int shooterY = shooter.y + shooter.height / 2;
+        int targetX = target.x + target.width / 2;
+        int targetY = target.y + target.height / 2;
+
+        Tank.Direction direction;
+        if (Math.abs(targetX - shooterX) < shooter.width / 2) {
+            direction = targetY < shooterY ? Tank.Direction.UP : Tank.Direction.DOWN;
+            targetX = shooterX;
+        } else if (Math.abs(targetY - shooterY) < shooter.height / 2) {
+            direction = targetX < shooterX ? Tank.Direction.LEFT : Tank.Direction.RIGHT;
+            targetY = shooterY;
+        } else {
+            return null;
+        }
+
+        return isLineClear(shooterX, shooterY, targetX, targetY, mask) ? direction : null;
+    }
+
+    // Distance a box travels before it first overlaps a rectangle, -1 if it never does
+    // within the given distance
+    public static int contactDistance(int x, int y, int width, int height, int dx, int dy, int distance, Rectangle r) {
+        int contact;
+        if (dx != 0) {
+            if (y >= r.y + r.height || r.y >= y + height) return -1;
+            contact = dx > 0 ? r.x - (x + width) + 1 : x - (r.x + r.width) + 1;
+            contact = Math.max(0, contact);
+            int front = x + dx * contact;
+            if (front >= r.x + r.width || r.x >= front + width) return -1; // Already past it
+        } else {
+            if (x >= r.x + r.width || r.x >= x + width) return -1;
+            contact = dy > 0 ? r.y - (y + height) + 1 : y - (r.y + r.height) + 1;
+            contact = Math.max(0, contact);
+            int front = y + dy * contact;
+            if (front >= r.y + r.height || r.y >= front + height) return -1;
+        }
+        return contact <= distance ? contact : -1;
+    }
+
+    // Pixel-by-pixel sweep against the tile-level layers (and walls for boxes that aren't
+    // tank-sized) - only used for short moves
+    private int stepSweep(Rectangle box, int dx, int dy, int distance, int mask) {
+        if ((mask & TANK_BLOCKING) != 0) {
+            distance = Math.min(distance, edgeDistance(box, dx, dy));
+        }
+
+        Rectangle moved = new Rectangle(box);
+        for (int step = 1; step <= distance; step++) {
+            moved.setLocation(box.x + dx * step, box.y + dy * step);
+            if (overlaps(moved, mask)) return step - 1;
+        }
+        return distance;
+    }
+
+    // Pixels left between the box and the map edge it is moving toward
+    private int edgeDistance(Rectangle box, int dx, int dy) {
+        if (dx > 0) return Math.max(0, width - (box.x + box.width));
+        if (dx < 0) return Math.max(0, box.x);
+        if (dy > 0) return Math.max(0, height - (box.y + box.height));
+        return Math.max(0, box.y);
+    }
+}
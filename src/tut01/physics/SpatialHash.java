@@ -0,0 +1,136 @@
+package tut01.physics;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Uniform-grid broadphase for dynamic entities. Each entry is filed with a copy of its
+ * bounds in every cell it touches; a query only looks at the cells under the query area,
+ * so overlap tests scale with local density instead of with the entity count.
+ */
+public class SpatialHash<T> {
+    private final int cellSize;
+    private final int cols;
+    private final int rows;
+    private final Object[][] items;
+    private final int[][] boxes;   // x, y, width, height per entry
+    private final int[] counts;
+    private int size = 0;
+
+    public SpatialHash(int width, int height, int cellSize) {
+        this.cellSize = cellSize;
+        this.cols = (width + cellSize - 1) / cellSize;
+        this.rows = (height + cellSize - 1) / cellSize;
+        this.items = new Object[cols * rows][4];
+        this.boxes = new int[cols * rows][16];
+        this.counts = new int[cols * rows];
+    }
+
+    // Forget every entry
+    public void clear() {
+        for (int cell = 0; cell < counts.length; cell++) {
+            Arrays.fill(items[cell], 0, counts[cell], null);
+        }
+        Arrays.fill(counts, 0);
+        size = 0;
+    }
+
+    public void insert(T item, Rectangle bounds) {
+        int minCol = col(bounds.x), maxCol = col(bounds.x + bounds.width - 1);
+        int minRow = row(bounds.y), maxRow = row(bounds.y + bounds.height - 1);
+
+        for (int r = minRow; r <= maxRow; r++) {
+            for (int c = minCol; c <= maxCol; c++) {
+                int cell = r * cols + c;
+                int n = counts[cell];
+                if (n == items[cell].length) {
+                    items[cell] = Arrays.copyOf(items[cell], n * 2);
+                    boxes[cell] = Arrays.copyOf(boxes[cell], n * 8);
+                }
+                items[cell][n] = item;
+                boxes[cell][n * 4] = bounds.x;
+                boxes[cell][n * 4 + 1] = bounds.y;
+                boxes[cell][n * 4 + 2] = bounds.width;
+                boxes[cell][n * 4 + 3] = bounds.height;
+                counts[cell] = n + 1;
+            }
+        }
+        size++;
+    }
+
+    // Remove an entry - bounds must be the ones it was inserted with
+    public void remove(T item, Rectangle bounds) {
+        int minCol = col(bounds.x), maxCol = col(bounds.x + bounds.width - 1);
+        int minRow = row(bounds.y), maxRow = row(bounds.y + bounds.height - 1);
+        boolean found = false;
+
+        for (int r = minRow; r <= maxRow; r++) {
+            for (int c = minCol; c <= maxCol; c++) {
+                int cell = r * cols + c;
+                for (int i = 0; i < counts[cell]; i++) {
+                    if (items[cell][i] == item) {
+                        // Swap-remove with the last entry of the cell
+                        int last = --counts[cell];
+                        items[cell][i] = items[cell][last];
+                        items[cell][last] = null;
+                        System.arraycopy(boxes[cell], last * 4, boxes[cell], i * 4, 4);
+                        found = true;
+                        break;
+                    }
+                }
+            }
+        }
+        if (found) size--;
+    }
+
+    // Re-file an entry that moved
+    public void move(T item, Rectangle oldBounds, Rectangle newBounds) {
+        remove(item, oldBounds);
+        insert(item, newBounds);
+    }
+
+    // Append every entry overlapping the area to out (each entry once) - returns how many were added
+    @SuppressWarnings("unchecked")
+    public int query(Rectangle area, List<T> out) {
+        int minCol = col(area.x), maxCol = col(area.x + area.width - 1);
+        int minRow = row(area.y), maxRow = row(area.y + area.height - 1);
+        int found = 0;
+
+        for (int r = minRow; r <= maxRow; r++) {
+            for (int c = minCol; c <= maxCol; c++) {
+                int cell = r * cols + c;
+                int[] cellBoxes = boxes[cell];
+                for (int i = 0; i < counts[cell]; i++) {
+                    int bx = cellBoxes[i * 4], by = cellBoxes[i * 4 + 1];
+                    int bw = cellBoxes[i * 4 + 2], bh = cellBoxes[i * 4 + 3];
+                    if (bx >= area.x + area.width || area.x >= bx + bw ||
+                            by >= area.y + area.height || area.y >= by + bh) {
+                        continue;
+                    }
+
+                    // An entry spanning several queried cells is only reported from the first of them
+                    if (c != Math.max(minCol, col(bx)) || r != Math.max(minRow, row(by))) {
+                        continue;
+                    }
+
+                    out.add((T) items[cell][i]);
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    private int col(int x) {
+        return Math.max(0, Math.min(cols - 1, Math.floorDiv(x, cellSize)));
+    }
+
+    private int row(int y) {
+        return Math.max(0, Math.min(rows - 1, Math.floorDiv(y, cellSize)));
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -9,7 +9,7 @@ import tut01.tanks.PlayerTank;
  */
 public class Grenade extends PowerUp {
     public Grenade(int x, int y) {
-        super(x, y);
+        super(GRENADE, x, y);
         this.color = Color.RED;
     }
 
@@ -9,7 +9,7 @@ import tut01.tanks.PlayerTank;
  */
 public class Helmet extends PowerUp {
     public Helmet(int x, int y) {
-        super(x, y);
+        super(HELMET, x, y);
         this.color = Color.LIGHT_GRAY;
     }
 
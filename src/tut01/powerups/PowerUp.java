@@ -8,6 +8,15 @@ import java.awt.Rectangle;
  * Base class for all power-ups
  */
 public abstract class PowerUp {
+    // Type codes - also the power-up pool indices
+    public static final int GRENADE = 0;
+    public static final int HELMET = 1;
+    public static final int SHOVEL = 2;
+    public static final int STAR = 3;
+    public static final int EXTRA_LIFE = 4;
+    public static final int TIMER = 5;
+
+    protected final int type;
     protected int x, y;
     protected boolean active = true;
     protected Color color;
@@ -16,9 +25,17 @@ public abstract class PowerUp {
     protected static final Color BACKGROUND_COLOR = Color.BLACK;
     protected static final Color BORDER_COLOR = Color.WHITE;
 
-    public PowerUp(int x, int y) {
+    public PowerUp(int type, int x, int y) {
+        this.type = type;
+        this.x = x;
+        this.y = y;
+    }
+
+    // Re-initialise a recycled power-up at a new location
+    public void reset(int x, int y) {
         this.x = x;
         this.y = y;
+        this.active = true;
     }
 
     public void draw(Graphics g) {
@@ -55,4 +72,5 @@ public abstract class PowerUp {
     public boolean isActive() { return active; }
     public void setActive(boolean active) { this.active = active; }
     public int getPoints() { return points; }
+    public int getType() { return type; }
 }
\ No newline at end of file
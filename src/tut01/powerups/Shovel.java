@@ -9,7 +9,7 @@ import tut01.tanks.PlayerTank;
  */
 public class Shovel extends PowerUp {
     public Shovel(int x, int y) {
-        super(x, y);
+        super(SHOVEL, x, y);
         this.color = new Color(139, 69, 19); // Brown
     }
 
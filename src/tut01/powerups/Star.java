@@ -9,7 +9,7 @@ import tut01.tanks.PlayerTank;
  */
 public class Star extends PowerUp {
     public Star(int x, int y) {
-        super(x, y);
+        super(STAR, x, y);
         this.color = Color.YELLOW;
     }
 
@@ -10,7 +10,7 @@ import tut01.tanks.PlayerTank;
  */
 public class TankPowerUp extends PowerUp {
     public TankPowerUp(int x, int y) {
-        super(x, y);
+        super(EXTRA_LIFE, x, y);
         this.color = Color.GREEN;
     }
 
@@ -10,7 +10,7 @@ import tut01.tanks.PlayerTank;
  */
 public class TimerPowerUp extends PowerUp {
     public TimerPowerUp(int x, int y) {
-        super(x, y);
+        super(TIMER, x, y);
         this.color = Color.WHITE;
     }
 
@@ -8,6 +8,7 @@ import java.awt.Color;
 public class ArmorTank extends EnemyTank {
     public ArmorTank(int x, int y) {
         super(
+                TankType.ARMOR,
                 x,
                 y,
                 2, // Normal movement
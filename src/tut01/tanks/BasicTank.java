@@ -8,6 +8,7 @@ import java.awt.Color;
 public class BasicTank extends EnemyTank {
     public BasicTank(int x, int y) {
         super(
+                TankType.BASIC,
                 x,
                 y,
                 2, // Slow movement
@@ -3,30 +3,30 @@ package tut01.tanks;
 import java.awt.*;
 
 /**
- * Bullet class for tank projectiles
+ * Bullet view - reads one slot of a BulletStore, used for rendering and hit tests
  */
 public class Bullet {
-    private int x, y;
-    private int speed;
-    private Tank.Direction direction;
-    private boolean active = true;
-    private int powerLevel = 0;
-    private final int size = 6;
-
-    public Bullet(int x, int y, int speed, Tank.Direction direction) {
-        this.x = x;
-        this.y = y;
-        this.speed = speed;
-        this.direction = direction;
+    public static final int SIZE = 6;
+
+    private final BulletStore store;
+    private int index;
+
+    Bullet(BulletStore store) {
+        this.store = store;
     }
 
-    public void move() {
-        x += direction.getDx() * speed;
-        y += direction.getDy() * speed;
+    // Point the view at another slot
+    Bullet at(int index) {
+        this.index = index;
+        return this;
     }
 
     public void draw(Graphics g) {
         Color originalColor = g.getColor();
+        int x = getX();
+        int y = getY();
+        int powerLevel = getPowerLevel();
+        Tank.Direction direction = getDirection();
 
         // Set color based on power level
         switch (powerLevel) {
@@ -48,7 +48,7 @@ public class Bullet {
 
         // Draw a more detailed bullet with a tail
         // Main bullet
-        g.fillOval(x - size/2, y - size/2, size, size);
+        g.fillOval(x - SIZE/2, y - SIZE/2, SIZE, SIZE);
 
         // Draw a tail based on direction (motion blur effect)
         int tailLength = 3 + powerLevel * 2; // Longer tail for more powerful bullets
@@ -62,26 +62,31 @@ public class Bullet {
         // For higher power levels, add a glow effect
         if (powerLevel > 0) {
             g.setColor(new Color(255, 255, 200, 100)); // Transparent yellow glow
-            g.fillOval(x - size/2 - 2, y - size/2 - 2, size + 4, size + 4);
+            g.fillOval(x - SIZE/2 - 2, y - SIZE/2 - 2, SIZE + 4, SIZE + 4);
         }
 
         g.setColor(originalColor);
     }
 
     public Rectangle getBounds() {
-        return new Rectangle(x - size/2, y - size/2, size, size);
+        return new Rectangle(getX() - SIZE/2, getY() - SIZE/2, SIZE, SIZE);
     }
 
-    // Getters and setters
-    public int getX() { return x; }
-    public int getY() { return y; }
-    public boolean isActive() { return active; }
-    public void setActive(boolean active) { this.active = active; }
-    public Tank.Direction getDirection() { return direction; }
-    public int getPowerLevel() { return powerLevel; }
-    public void setPowerLevel(int powerLevel) { this.powerLevel = powerLevel; }
-
-    public int getDamage() {
-        return powerLevel + 1; // Base damage plus power level
+    // Getters
+    public int getIndex() { return index; }
+    public int getX() { return store.getX(index); }
+    public int getY() { return store.getY(index); }
+    public int getSpeed() { return store.getSpeed(index); }
+    public int getPowerLevel() { return store.getPower(index); }
+    public int getOwner() { return store.getOwner(index); }
+    public int getId() { return store.getId(index); }
+    public int getDamage() { return store.getDamage(index); }
+
+    public Tank.Direction getDirection() {
+        int dx = store.getDx(index);
+        int dy = store.getDy(index);
+        if (dx > 0) return Tank.Direction.RIGHT;
+        if (dx < 0) return Tank.Direction.LEFT;
+        return dy > 0 ? Tank.Direction.DOWN : Tank.Direction.UP;
     }
-}
\ No newline at end of file
+}
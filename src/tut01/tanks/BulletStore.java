@@ -0,0 +1,232 @@
+package tut01.tanks;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Struct-of-arrays storage for every bullet in flight. Each column is a primitive array
+ * indexed by bullet slot; removal swaps the last bullet into the freed slot, so the live
+ * bullets always occupy slots 0 .. size - 1 and loops run over packed arrays.
+ *
+ * The bulk passes (advance, bounds and overlap marking) are written as straight loops of
+ * int arithmetic with no branches - comparisons are turned into sign bits - so the JIT can
+ * unroll them and run several bullets per instruction.
+ */
+public class BulletStore {
+    // Owner codes
+    public static final int OWNER_PLAYER1 = 1;
+    public static final int OWNER_PLAYER2 = 2;
+    public static final int OWNER_ENEMY = 3;
+
+    private int[] x;
+    private int[] y;
+    private int[] dx;       // Velocity in pixels per tick
+    private int[] dy;
+    private int[] power;
+    private int[] owner;
+    private int[] ids;      // Stable id, increases with every bullet fired
+    private int[] marks;    // Scratch flags set by the bulk passes, 0 or 1
+    private int size = 0;
+    private int nextId = 1;
+    private int highWater = 0;
+    private long[] orderKeys = new long[64]; // Scratch for orderById: id << 32 | slot
+
+    // Half the bullet size. Assigned in the constructor rather than initialised with the constant
+    // expression, which would make it a compile-time constant: folded into the overlap kernel,
+    // it stops the JIT packing that loop into vector lanes (see tools.check.BulletKernelBench)
+    private final int halfSize;
+
+    // Shared view handed out for rendering and hit tests
+    private final Bullet view = new Bullet(this);
+
+    public BulletStore() {
+        this(64);
+    }
+
+    public BulletStore(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        x = new int[capacity];
+        y = new int[capacity];
+        dx = new int[capacity];
+        dy = new int[capacity];
+        power = new int[capacity];
+        owner = new int[capacity];
+        ids = new int[capacity];
+        marks = new int[capacity];
+        halfSize = Bullet.SIZE / 2;
+    }
+
+    // Add a bullet - returns its slot
+    public int add(int bulletX, int bulletY, int velocityX, int velocityY, int powerLevel, int ownerCode) {
+        if (size == x.length) {
+            grow();
+        }
+
+        int i = size++;
+        x[i] = bulletX;
+        y[i] = bulletY;
+        dx[i] = velocityX;
+        dy[i] = velocityY;
+        power[i] = powerLevel;
+        owner[i] = ownerCode;
+        ids[i] = nextId++;
+        marks[i] = 0;
+        highWater = Math.max(highWater, size);
+        return i;
+    }
+
+    // Remove the bullet in a slot - the last bullet moves into it
+    public void remove(int i) {
+        int last = --size;
+        x[i] = x[last];
+        y[i] = y[last];
+        dx[i] = dx[last];
+        dy[i] = dy[last];
+        power[i] = power[last];
+        owner[i] = owner[last];
+        ids[i] = ids[last];
+        marks[i] = marks[last];
+    }
+
+    // Remove every bullet in a set of slots - highest slot first, so the bullet swapped
+    // into a freed slot is never one still waiting to be removed
+    public void removeAll(BitSet slots) {
+        for (int i = slots.previousSetBit(slots.length() - 1); i >= 0; i = slots.previousSetBit(i - 1)) {
+            remove(i);
+        }
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    // Fill out with the live slots ordered by bullet id, i.e. by firing order - returns the count
+    public int orderById(int[] out) {
+        if (orderKeys.length < size) {
+            orderKeys = new long[Math.max(size, orderKeys.length * 2)];
+        }
+        for (int i = 0; i < size; i++) {
+            orderKeys[i] = ((long) ids[i] << 32) | i;
+        }
+        Arrays.sort(orderKeys, 0, size);
+        for (int i = 0; i < size; i++) {
+            out[i] = (int) orderKeys[i];
+        }
+        return size;
+    }
+
+    // Move every bullet one tick along its velocity
+    public void advance() {
+        int[] xs = x, ys = y, vxs = dx, vys = dy;
+        int n = size;
+        for (int i = 0; i < n; i++) {
+            xs[i] += vxs[i];
+            ys[i] += vys[i];
+        }
+    }
+
+    // Drop bullets whose centre left the 0..width x 0..height area - returns how many
+    public int removeOutOfBounds(int width, int height) {
+        // Outside when any of x, y, width - x, height - y is negative: OR the sign bits
+        int[] xs = x, ys = y, flags = marks;
+        int n = size;
+        int outside = 0;
+        for (int i = 0; i < n; i++) {
+            int out = (xs[i] | ys[i] | (width - xs[i]) | (height - ys[i])) >>> 31;
+            flags[i] = out;
+            outside |= out;
+        }
+        if (outside == 0) return 0;
+
+        int removed = 0;
+        for (int i = size - 1; i >= 0; i--) {
+            if (marks[i] != 0) {
+                remove(i);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    // Forget every mark
+    public void clearMarks() {
+        Arrays.fill(marks, 0, size, 0);
+    }
+
+    // Mark every bullet whose box, swept over its move this tick, overlaps a rectangle.
+    // Overlap needs four strict inequalities; each becomes the sign bit of a difference, and
+    // each side of the swept box holds if it holds at either end of the move (start or now).
+    public void markSweptOverlaps(Rectangle r) {
+        int half = halfSize;
+        int left = r.x + r.width + half;    // Centre must be left of this on some end...
+        int right = r.x - half;             // ...and right of this
+        int top = r.y + r.height + half;
+        int bottom = r.y - half;
+
+        // Columns in locals, so the loop body is pure array arithmetic
+        int[] xs = x, ys = y, vxs = dx, vys = dy, flags = marks;
+        int n = size;
+        for (int i = 0; i < n; i++) {
+            int endX = xs[i];
+            int endY = ys[i];
+            int startX = endX - vxs[i];
+            int startY = endY - vys[i];
+            flags[i] |= (((endX - left) | (startX - left)) & ((right - endX) | (right - startX)) &
+                    ((endY - top) | (startY - top)) & ((bottom - endY) | (bottom - startY))) >>> 31;
+        }
+    }
+
+    // Does any bullet's box overlap a rectangle?
+    public boolean anyOverlaps(Rectangle r) {
+        for (int i = 0; i < size; i++) {
+            int left = x[i] - Bullet.SIZE / 2;
+            int top = y[i] - Bullet.SIZE / 2;
+            if (left < r.x + r.width && left + Bullet.SIZE > r.x &&
+                    top < r.y + r.height && top + Bullet.SIZE > r.y) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Was the bullet marked by the last bulk pass?
+    public boolean isMarked(int i) {
+        return marks[i] != 0;
+    }
+
+    private void grow() {
+        int capacity = x.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        dx = Arrays.copyOf(dx, capacity);
+        dy = Arrays.copyOf(dy, capacity);
+        power = Arrays.copyOf(power, capacity);
+        owner = Arrays.copyOf(owner, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        marks = Arrays.copyOf(marks, capacity);
+    }
+
+    // The shared view positioned on a slot - only valid until the next call
+    public Bullet view(int i) {
+        return view.at(i);
+    }
+
+    // Column accessors
+    public int size() { return size; }
+    public int getX(int i) { return x[i]; }
+    public int getY(int i) { return y[i]; }
+    public int getDx(int i) { return dx[i]; }
+    public int getDy(int i) { return dy[i]; }
+    public int getPower(int i) { return power[i]; }
+    public void setPower(int i, int powerLevel) { power[i] = powerLevel; }
+    public int getOwner(int i) { return owner[i]; }
+    public int getId(int i) { return ids[i]; }
+    public int getDamage(int i) { return power[i] + 1; } // Base damage plus power level
+    public int getSpeed(int i) { return Math.abs(dx[i]) + Math.abs(dy[i]); }
+
+    // e.g. "Bullets: 12 live / 128 slots (peak 18)"
+    public String getSummary() {
+        return "Bullets: " + size + " live / " + x.length + " slots (peak " + highWater + ")";
+    }
+}
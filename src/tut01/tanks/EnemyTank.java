@@ -1,15 +1,24 @@
 package tut01.tanks;
 
-import tut01.environments.Environment;
-import tut01.environments.BrickWall;
-import tut01.environments.SteelWall;
-import tut01.environments.Water;
+import tut01.ai.AiBlackboard;
+import tut01.ai.BulletThreatMap;
+import tut01.ai.ChasePlanner;
+import tut01.ai.CooperativePlanner;
+import tut01.ai.FlowField;
+import tut01.ai.HierarchicalPathfinder;
+import tut01.ai.InfluenceMap;
+import tut01.ai.PathRequest;
+import tut01.ai.PathRequestQueue;
+import tut01.ai.TileCosts;
+import tut01.physics.PhysicsQueries;
 
 import java.awt.Color;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.function.IntUnaryOperator;
 
 /**
  * Base class for all enemy tanks with improved AI
@@ -17,9 +26,9 @@ import java.util.ArrayList;
 public abstract class EnemyTank extends Tank {
     protected boolean isFlashing;
     protected int aiState = 0; // 0 = patrol, 1 = chase player, 2 = attack base
-    protected long lastStateChange = 0;
-    protected long lastDirectionChange = 0;
-    protected long lastFireTime = 0;
+    protected long lastStateChange = LONG_AGO; // Game clock times (ms)
+    protected long lastDirectionChange = LONG_AGO;
+    protected long lastFireTime = LONG_AGO;
     protected int stuckCounter = 0;
     protected int previousX = 0;
     protected int previousY = 0;
@@ -27,6 +36,26 @@ public abstract class EnemyTank extends Tank {
     protected List<Point> pathWaypoints = new ArrayList<>();
     protected int currentWaypointIndex = 0;
     protected boolean pathFollowing = false;
+    protected ChasePlanner chasePlanner = null; // Created on the first long-range chase
+    protected final PathRequest pathRequest = new PathRequest(); // Waypoint search in the planning queue
+    protected int reservationOwner = -1;        // Id in the shared space-time reservation table, kept across respawns
+    protected boolean waiting = false;          // Standing still to let another tank through
+    protected boolean planned = false;          // Reserved a cooperative route this update
+    protected boolean onTarget = false;         // This update's target is in the line of fire
+    protected boolean returningFire = false;    // Facing an incoming bullet to shoot it down
+    protected Direction dodgeDirection = null;  // Side last stepped to out of a bullet lane
+    protected SplittableRandom random = new SplittableRandom(); // This tank's own stream
+
+    // What think() decided for act() to carry out
+    protected boolean evading = false;          // Dodging or facing a bullet - no route, no aim
+    protected Direction aimDirection = null;    // Way to face for a target in the line of fire
+    protected int claimedPlayer = -1;           // Player whose squad to join
+    protected int routeCell = -1;               // Next cell of a flow field or chase route
+    protected IntUnaryOperator routeCostToGoal = null; // ... and the route's cost from any cell
+    protected Point pathGoal = null;            // Waypoint path target when there is no route
+    protected int squadPlayer = -1;             // Squad joined in the last act(), and the slot in it
+    protected int squadSlot = 0;
+    protected final int baseHealth; // Health when (re)spawned
 
     // Added fields for invulnerability
     protected boolean isInvulnerable = false;
@@ -40,15 +69,22 @@ public abstract class EnemyTank extends Tank {
     // Constants for AI behavior
     private static final long STATE_CHANGE_DELAY = 5000; // 5 seconds between state changes
     private static final long DIRECTION_CHANGE_DELAY = 2000; // 2 seconds between random direction changes
-    private static final long FIRE_COOLDOWN = 1000; // 1 second between firing attempts
     private static final int STUCK_THRESHOLD = 10; // After 10 updates of no movement, consider stuck
-    private static final double FIRE_CHANCE_BASE = 0.05; // Base chance to fire when in patrol state
-    private static final double FIRE_CHANCE_CHASE = 0.15; // Higher chance when chasing player
-    private static final double FIRE_CHANCE_BASE_ATTACK = 0.25; // Highest chance when attacking base
+    private static final double FIRE_CHANCE_IDLE = 0.1; // Patrolling, or nothing in the line of fire
+    private static final double FIRE_CHANCE_PLAYER = 0.8; // Chasing with a player in the line of fire
+    private static final double FIRE_CHANCE_BASE = 0.9; // Attacking with the base in the line of fire
     private static final int PATH_FINDING_DISTANCE = 200; // Distance threshold for pathfinding
-
-    public EnemyTank(int x, int y, int speed, int bulletSpeed, int health, int points) {
-        super(x, y, speed, bulletSpeed, health, points);
+    private static final double BASE_PULL = 0.3; // Shifts the state roll toward the base when close to it
+    private static final float ENGAGE_THREAT = 0.5f; // In a player's sights this much, fight instead of patrolling
+    private static final float CROWD_WEIGHT = 0.5f; // Patrol turns avoid tiles other enemies crowd
+    private static final float BLOCKED_PENALTY = 2f; // ... and directions a wall blocks right away
+    private static final float PATROL_JITTER = 0.3f; // Randomness left in patrol turns
+    private static final int DODGE_HORIZON = 24; // React to bullets this many ticks out
+    private static final int LARGE_MAP_CELLS = 64 * 64; // Bigger maps chase over the hierarchical path finder
+
+    public EnemyTank(int type, int x, int y, int speed, int bulletSpeed, int health, int points) {
+        super(type, x, y, speed, bulletSpeed, health, points);
+        this.baseHealth = health;
         this.isFlashing = false;
         this.previousX = x;
         this.previousY = y;
@@ -58,6 +94,43 @@ public abstract class EnemyTank extends Tank {
         }
     }
 
+    // Re-initialise a pooled tank so it can be spawned again as a fresh enemy
+    public void reset(int x, int y) {
+        this.x = x;
+        this.y = y;
+        this.health = baseHealth;
+        this.direction = Direction.UP;
+        this.isMoving = false;
+        resetSliding();
+
+        this.isFlashing = false;
+        this.aiState = 0;
+        this.lastStateChange = LONG_AGO;
+        this.lastDirectionChange = LONG_AGO;
+        this.lastFireTime = LONG_AGO;
+        this.stuckCounter = 0;
+        this.previousX = x;
+        this.previousY = y;
+        this.targetPosition = null;
+        this.pathWaypoints.clear();
+        this.currentWaypointIndex = 0;
+        this.pathFollowing = false;
+        this.squadPlayer = -1;
+        this.dodgeDirection = null;
+        if (chasePlanner != null) {
+            chasePlanner.reset();
+        }
+        this.isInvulnerable = false;
+        this.invulnerableUntil = 0;
+        this.lastAction = "Created";
+    }
+
+    // Random stream for this tank's decisions. Every tank gets a stream split off one seeded
+    // generator, so the AI plays out the same however the decisions are scheduled.
+    public void setRandom(SplittableRandom random) {
+        this.random = random;
+    }
+
     public void setFlashing(boolean flashing) {
         this.isFlashing = flashing;
     }
@@ -71,9 +144,9 @@ public abstract class EnemyTank extends Tank {
         return this.isInvulnerable;
     }
 
-    public void checkInvulnerabilityExpired() {
+    public void checkInvulnerabilityExpired(long currentTime) {
         // Check if invulnerability has expired
-        if (isInvulnerable && System.currentTimeMillis() > invulnerableUntil) {
+        if (isInvulnerable && currentTime > invulnerableUntil) {
             isInvulnerable = false;
             if (debug) {
                 System.out.println("Tank invulnerability expired");
@@ -81,10 +154,11 @@ public abstract class EnemyTank extends Tank {
         }
     }
 
-    public void setInvulnerable(boolean invulnerable) {
+    // currentTime is the game clock, as for every other timer of the tank
+    public void setInvulnerable(boolean invulnerable, long currentTime) {
         this.isInvulnerable = invulnerable;
         if (invulnerable) {
-            this.invulnerableUntil = System.currentTimeMillis() + INVULNERABLE_DURATION;
+            this.invulnerableUntil = currentTime + INVULNERABLE_DURATION;
             if (debug) {
                 System.out.println("Tank is now invulnerable until " + invulnerableUntil);
             }
@@ -116,15 +190,22 @@ public abstract class EnemyTank extends Tank {
         return destroyed;
     }
 
-    // Advanced AI update method - takes player locations and base location as parameters
-    public void updateAI(PlayerTank player1, PlayerTank player2, Point baseLocation, List<Environment> environments) {
-        long currentTime = System.currentTimeMillis();
-
-        // Check invulnerability first
-        checkInvulnerabilityExpired();
-
-        // Detect if tank is stuck
-        if (Math.abs(x - previousX) < 2 && Math.abs(y - previousY) < 2) {
+    // Think - decide this tick's move from the frozen blackboard. Only this tank's own AI state
+    // changes (its heading and plans, never its position) and the shared structures are only
+    // read, so every enemy can think at the same time. act() carries the decision out.
+    public void think(AiBlackboard board) {
+        long currentTime = board.getTime();
+        Point baseLocation = board.getBaseLocation();
+        PhysicsQueries physics = board.getPhysics();
+        TileCosts costs = board.getCosts();
+        FlowField baseFlow = board.getBaseFlow();
+        InfluenceMap influence = board.getInfluence();
+        BulletThreatMap threats = board.getThreats();
+
+        // Detect if tank is stuck - giving way to another tank doesn't count
+        if (waiting) {
+            stuckCounter = 0;
+        } else if (Math.abs(x - previousX) < 2 && Math.abs(y - previousY) < 2) {
             stuckCounter++;
         } else {
             stuckCounter = 0;
@@ -133,47 +214,50 @@ public abstract class EnemyTank extends Tank {
         // Remember current position for next update
         previousX = x;
         previousY = y;
+        waiting = false;
+        planned = false;
+        onTarget = false;
+        returningFire = false;
+        evading = false;
+        aimDirection = null;
+        claimedPlayer = -1;
+        routeCell = -1;
+        routeCostToGoal = null;
+        pathGoal = null;
 
         // If stuck for too long, change direction or try to avoid obstacle
         if (stuckCounter > STUCK_THRESHOLD) {
-            handleStuckSituation(environments);
+            handleStuckSituation(physics);
             stuckCounter = 0;
         }
 
         // Periodically change AI state
         if (currentTime - lastStateChange > STATE_CHANGE_DELAY) {
             // Adapt state selection based on tank type
-            double stateRandom = Math.random();
-
-            // Power tanks and fast tanks are more aggressive toward players
-            if (this instanceof PowerTank || this instanceof FastTank) {
-                if (stateRandom < 0.3) {
-                    aiState = 0; // Patrol
-                } else if (stateRandom < 0.8) {
-                    aiState = 1; // Chase player
-                } else {
-                    aiState = 2; // Target base
-                }
+            double stateRandom = random.nextDouble();
+            int col = -1;
+            int row = -1;
+            if (influence != null) {
+                // Tanks near the base lean toward attacking it
+                col = (x + size/2) / influence.getCellSize();
+                row = (y + size/2) / influence.getCellSize();
+                stateRandom += BASE_PULL * influence.get(InfluenceMap.BASE_PROXIMITY, col, row);
             }
-            // Armor tanks prioritize base destruction
-            else if (this instanceof ArmorTank) {
-                if (stateRandom < 0.3) {
-                    aiState = 0; // Patrol
-                } else if (stateRandom < 0.5) {
-                    aiState = 1; // Chase player
-                } else {
-                    aiState = 2; // Target base
-                }
+
+            // Power tanks and fast tanks are more aggressive toward players, armor tanks
+            // prioritize base destruction and basic tanks are more evenly distributed
+            if (stateRandom < TankType.getPatrolThreshold(type)) {
+                aiState = 0; // Patrol
+            } else if (stateRandom < TankType.getChaseThreshold(type)) {
+                aiState = 1; // Chase player
+            } else {
+                aiState = 2; // Target base
             }
-            // Basic tanks are more evenly distributed
-            else {
-                if (stateRandom < 0.5) {
-                    aiState = 0; // Patrol
-                } else if (stateRandom < 0.8) {
-                    aiState = 1; // Chase player
-                } else {
-                    aiState = 2; // Target base
-                }
+
+            // A tank already in a player's sights fights back instead of wandering off
+            if (aiState == 0 && influence != null
+                    && influence.get(InfluenceMap.PLAYER_THREAT, col, row) >= ENGAGE_THREAT) {
+                aiState = 1;
             }
 
             lastStateChange = currentTime;
@@ -189,47 +273,44 @@ public abstract class EnemyTank extends Tank {
         switch (aiState) {
             case 0: // Patrol mode - move randomly, occasionally fire
                 if (currentTime - lastDirectionChange > DIRECTION_CHANGE_DELAY) {
-                    changeToRandomDirection();
+                    if (influence != null) {
+                        changeToSaferDirection(influence, physics);
+                    } else {
+                        changeToRandomDirection();
+                    }
                     lastDirectionChange = currentTime;
                     lastAction = "Random direction change";
                 }
-
-                // Random chance to fire in patrol mode
-                if (currentTime - lastFireTime > FIRE_COOLDOWN && Math.random() < FIRE_CHANCE_BASE) {
-                    fire();
-                    lastFireTime = currentTime;
-                }
                 break;
 
             case 1: // Chase player mode - target nearest player
-                PlayerTank target = choosePlayerTarget(player1, player2);
-                if (target != null) {
-                    // Determine if we should use pathfinding
-                    double distanceToTarget = calculateDistance(target);
+                int cell = costs.getCellSize();
+                int targetIndex = board.choosePlayer((x + size/2) / cell, (y + size/2) / cell);
+                if (targetIndex >= 0) {
+                    PlayerTank target = board.getPlayer(targetIndex);
 
-                    if (distanceToTarget <= PATH_FINDING_DISTANCE) {
+                    // act() joins the player's squad - a tank already chasing this player keeps
+                    // last tick's slot in it
+                    claimedPlayer = targetIndex;
+                    int slot = squadPlayer == targetIndex ? squadSlot : 0;
+
+                    // Determine if we should use pathfinding
+                    if (isWithin(target.getX(), target.getY(), PATH_FINDING_DISTANCE)) {
                         // If close enough, use direct targeting
-                        moveTowardTarget(target.getX(), target.getY(), environments);
+                        moveTowardTarget(target.getX(), target.getY(), physics);
                         lastAction = "Moving toward player";
-
-                        // Check if player is aligned (horizontally or vertically)
-                        if (isAligned(target)) {
-                            // Higher chance to fire when aligned with player
-                            if (currentTime - lastFireTime > FIRE_COOLDOWN && Math.random() < FIRE_CHANCE_CHASE) {
-                                fire();
-                                lastFireTime = currentTime;
-                            }
-                        }
+                    } else if (costs != null && !isLargeMap(costs) && planChase(board.getFlankCell(targetIndex, slot), costs)) {
+                        // For distant targets, the incremental planner keeps the route current -
+                        // to the player itself or, further down the squad, to a flanking cell
+                        lastAction = slot == 0 ? "Following chase plan" : "Flanking player";
                     } else {
-                        // For distant targets, use intermittent path recalculation
-                        if (!pathFollowing || pathWaypoints.isEmpty()) {
-                            // Calculate path to target
-                            calculatePathTo(target.getX(), target.getY(), environments);
-                            pathFollowing = true;
-                            lastAction = "Calculated path to player";
-                        }
-                        followPath();
+                        // Large maps, or no route to the player - act() runs waypoint path finding
+                        pathGoal = new Point(target.getX(), target.getY());
                     }
+
+                    // Check if either player is aligned (horizontally or vertically) for firing
+                    PlayerTank other = board.getPlayer(1 - targetIndex);
+                    onTarget = isAligned(target, physics) || other != null && isAligned(other, physics);
                 } else {
                     // No players? Fall back to patrol mode
                     aiState = 0;
@@ -239,32 +320,20 @@ public abstract class EnemyTank extends Tank {
 
             case 2: // Target base mode - move toward base
                 if (baseLocation != null) {
-                    double distanceToBase = Math.sqrt(
-                            Math.pow(baseLocation.getX() - this.x, 2) +
-                                    Math.pow(baseLocation.getY() - this.y, 2));
-
-                    if (distanceToBase <= PATH_FINDING_DISTANCE) {
+                    if (isWithin(baseLocation.x, baseLocation.y, PATH_FINDING_DISTANCE)) {
                         // Direct approach to base when close
-                        moveTowardTarget((int)baseLocation.getX(), (int)baseLocation.getY(), environments);
+                        moveTowardTarget((int)baseLocation.getX(), (int)baseLocation.getY(), physics);
                         lastAction = "Moving toward base";
+                    } else if (baseFlow != null && planFlowField(baseFlow)) {
+                        // Longer distances follow the shared flow field - real routes around walls
+                        lastAction = "Following flow field to base";
                     } else {
-                        // Path finding for longer distances
-                        if (!pathFollowing || pathWaypoints.isEmpty()) {
-                            calculatePathTo((int)baseLocation.getX(), (int)baseLocation.getY(), environments);
-                            pathFollowing = true;
-                            lastAction = "Calculated path to base";
-                        }
-                        followPath();
+                        // Path finding if the flow field has no route from here
+                        pathGoal = new Point(baseLocation);
                     }
 
                     // Check if aligned with base for firing
-                    if (isAlignedWithBase(baseLocation)) {
-                        // High chance to fire when targeting base
-                        if (currentTime - lastFireTime > FIRE_COOLDOWN && Math.random() < FIRE_CHANCE_BASE_ATTACK) {
-                            fire();
-                            lastFireTime = currentTime;
-                        }
-                    }
+                    onTarget = isAlignedWithBase(baseLocation, physics);
                 } else {
                     // No base? Fall back to patrol mode
                     aiState = 0;
@@ -273,28 +342,79 @@ public abstract class EnemyTank extends Tank {
                 break;
         }
 
+        // Incoming fire overrides the move
+        if (threats != null) {
+            evadeIncomingFire(threats, physics, currentTime);
+        }
+    }
+
+    // Act - carry out what think() decided. The game loop calls this for one tank after the
+    // other in a fixed order, since it writes to shared structures: the squad claims, the
+    // reservation table, the waypoint path finder's search, and the tank's own position when
+    // it snaps onto a grid line.
+    public void act(AiBlackboard board) {
+        PhysicsQueries physics = board.getPhysics();
+        TileCosts costs = board.getCosts();
+        CooperativePlanner cooperation = board.getCooperation();
+
+        if (claimedPlayer >= 0) {
+            squadSlot = board.claim(claimedPlayer);
+        }
+        squadPlayer = claimedPlayer;
+
+        // A waypoint search asked for earlier is no use once another route has taken over
+        if (pathGoal == null && pathRequest.getState() != PathRequest.IDLE) {
+            board.getPathQueue().cancel(pathRequest);
+        }
+
+        if (!evading) {
+            if (routeCell >= 0) {
+                int next = cooperativeStep(routeCell, routeCostToGoal, costs, cooperation);
+                if (next != CooperativePlanner.WAIT) {
+                    steerToCell(next % costs.getCols(), next / costs.getCols(), costs.getCellSize(), physics);
+                }
+            } else if (pathGoal != null) {
+                followPathTo(pathGoal, board.getPathQueue(), board.getPaths(), costs, physics);
+            }
+
+            // Face whatever think() found in the line of fire
+            if (aimDirection != null) {
+                setDirection(aimDirection);
+            }
+        }
+
+        // Tanks that didn't plan a cooperative route this update still reserve the cells they
+        // cover, so the ones that did route around them
+        if (cooperation != null && !planned) {
+            cooperation.hold(ownerIn(cooperation), getBounds(), stepTicks(costs));
+        }
+        if (waiting && !returningFire) {
+            lastAction = "Giving way";
+        }
+
         // Just set the direction and moving flag, let the game engine handle actual movement
         // This prevents diagonal movement and ensures tanks move in cardinal directions only
-        setMoving(true);
+        setMoving(!waiting);
     }
 
-    // Choose the best player to target
-    private PlayerTank choosePlayerTarget(PlayerTank player1, PlayerTank player2) {
-        // If only one player exists, return that one
-        if (player1 == null && player2 == null) return null;
-        if (player1 == null) return player2;
-        if (player2 == null) return player1;
+    // Fire decision for this update, asked by the game loop after the tank has moved. The
+    // type's cooldown has to have passed; the chance is high when the AI found its target in
+    // the line of fire and low otherwise.
+    public boolean shouldFire(long currentTime) {
+        // Don't fire if tank is invulnerable (newly spawned)
+        if (isInvulnerable) return false;
+        if (currentTime - lastFireTime < TankType.getFireCooldown(type)) return false;
 
-        // Otherwise compare distances
-        double dist1 = calculateDistance(player1);
-        double dist2 = calculateDistance(player2);
+        double chance = returningFire ? 1.0
+                : !onTarget ? FIRE_CHANCE_IDLE : aiState == 2 ? FIRE_CHANCE_BASE : FIRE_CHANCE_PLAYER;
+        if (random.nextDouble() >= chance) return false;
 
-        // Target the closer player
-        return (dist1 <= dist2) ? player1 : player2;
+        lastFireTime = currentTime;
+        return true;
     }
 
     // Handle stuck situations
-    private void handleStuckSituation(List<Environment> environments) {
+    private void handleStuckSituation(PhysicsQueries physics) {
         // First, try to find a clear direction to move
         for (Direction dir : Direction.values()) {
             // Skip current direction and opposite
@@ -303,7 +423,7 @@ public abstract class EnemyTank extends Tank {
             }
 
             // Check if direction is clear
-            if (isDirectionClear(dir, environments)) {
+            if (isDirectionClear(dir, physics)) {
                 setDirection(dir);
                 lastAction = "Unstuck: Found clear direction";
                 return;
@@ -315,103 +435,260 @@ public abstract class EnemyTank extends Tank {
         lastAction = "Unstuck: Random direction";
     }
 
-    // Check if a direction is clear of obstacles
-    private boolean isDirectionClear(Direction dir, List<Environment> environments) {
-        // Calculate new position in that direction
-        int newX = x + dir.getDx() * speed * 2;
-        int newY = y + dir.getDy() * speed * 2;
+    // A player bullet will reach this tank soon. With the gun ready and the bullet coming
+    // down the middle, stop, face it and shoot it down; otherwise step sideways out of its
+    // lane, keeping to the side picked before while it stays open.
+    private void evadeIncomingFire(BulletThreatMap threats, PhysicsQueries physics, long currentTime) {
+        Rectangle bounds = getBounds();
+        if (threats.getTimeToImpact(bounds) > DODGE_HORIZON) {
+            dodgeDirection = null;
+            return;
+        }
+
+        Direction travel = threats.getThreatDirection(bounds);
+        boolean horizontal = travel.getDx() != 0;
+        int lane = threats.getThreatLane(bounds);
+        int centre = horizontal ? y + size/2 : x + size/2;
+        boolean gunReady = !isInvulnerable && currentTime - lastFireTime >= TankType.getFireCooldown(type);
+
+        evading = true; // act() drops the route and the aim
+        if (gunReady && Math.abs(lane - centre) < Bullet.SIZE) {
+            setDirection(opposite(travel));
+            returningFire = true;
+            waiting = true;
+            lastAction = "Returning fire";
+            return;
+        }
+
+        // Away from the lane is the shorter way out
+        Direction away = horizontal ? (lane < centre ? Direction.DOWN : Direction.UP)
+                : (lane < centre ? Direction.RIGHT : Direction.LEFT);
+        Direction side = dodgeDirection != null && dodgeDirection.getDx() == 0 == horizontal ? dodgeDirection : away;
+        if (!isDirectionClear(side, physics)) {
+            side = opposite(side);
+        }
+        if (!isDirectionClear(side, physics)) {
+            // Boxed in - face the shooter and hope the gun is ready in time
+            setDirection(opposite(travel));
+            onTarget = true;
+            lastAction = "Facing incoming fire";
+            return;
+        }
+
+        dodgeDirection = side;
+        setDirection(side);
+        waiting = false;
+        lastAction = "Dodging bullet";
+    }
+
+    private static Direction opposite(Direction direction) {
+        return Direction.values()[(direction.ordinal() + 2) % 4];
+    }
 
-        // Create a test rectangle
-        Rectangle testBounds = new Rectangle(newX, newY, size, size);
+    // Check if a direction is clear of obstacles - the tank could move two steps that way
+    private boolean isDirectionClear(Direction dir, PhysicsQueries physics) {
+        int distance = speed * 2;
+        return physics.sweep(getBounds(), dir.getDx(), dir.getDy(), distance, PhysicsQueries.TANK_BLOCKING) == distance;
+    }
 
-        // Check for collisions with impassable objects
-        for (Environment env : environments) {
-            if (!env.isPassable() && env.getBounds().intersects(testBounds)) {
-                return false;
-            }
+    // Check if target is aligned horizontally or vertically with this tank, with nothing
+    // a bullet can't pass in between - act() turns to face it if so
+    private boolean isAligned(Tank target, PhysicsQueries physics) {
+        return faceIfInLineOfFire(target.getBounds(), physics);
+    }
+
+    // Check if aligned with base for shooting
+    private boolean isAlignedWithBase(Point baseLocation, PhysicsQueries physics) {
+        Rectangle base = new Rectangle((int)baseLocation.getX(), (int)baseLocation.getY(), size, size);
+        return faceIfInLineOfFire(base, physics);
+    }
+
+    private boolean faceIfInLineOfFire(Rectangle target, PhysicsQueries physics) {
+        Direction direction = physics.lineOfFire(getBounds(), target, PhysicsQueries.BULLET_BLOCKING);
+        if (direction == null) return false;
+
+        aimDirection = direction;
+        return true;
+    }
+
+    // Route through the neighbouring cell the flow field points to - returns false if the
+    // tank's cell has no route to the base
+    private boolean planFlowField(FlowField field) {
+        int cell = field.getCellSize();
+        int cols = field.getCols();
+        int next = field.getNext((x + size/2) / cell, (y + size/2) / cell);
+        if (next < 0) return false;
+
+        routeCell = next;
+        routeCostToGoal = c -> field.getDistance(c % cols, c / cols);
+        return true;
+    }
+
+    // Route through the next cell of the D* Lite route to a goal cell near the player - returns
+    // false if there is none
+    private boolean planChase(int goalCell, TileCosts costs) {
+        if (chasePlanner == null) {
+            chasePlanner = new ChasePlanner(costs);
         }
 
+        int cell = costs.getCellSize();
+        int next = chasePlanner.nextCell((x + size/2) / cell, (y + size/2) / cell,
+                goalCell % costs.getCols(), goalCell / costs.getCols());
+        if (next < 0) return false;
+
+        routeCell = next;
+        routeCostToGoal = chasePlanner::getCostToGoal;
         return true;
     }
 
-    // Check if target is aligned horizontally or vertically with this tank
-    private boolean isAligned(Tank target) {
-        // Check if in the same column (x position)
-        boolean alignedX = Math.abs(target.getX() + target.getSize()/2 - (this.x + this.size/2)) < size/2;
+    // Let the reservation table have the last word on the planner's next cell - it may pick a
+    // detour cell or WAIT when another tank has the way reserved. Without a table, or when the
+    // window has no safe plan, the planner's cell stands.
+    private int cooperativeStep(int next, IntUnaryOperator costToGoal, TileCosts costs, CooperativePlanner cooperation) {
+        if (cooperation == null) return next;
 
-        // Check if in the same row (y position)
-        boolean alignedY = Math.abs(target.getY() + target.getSize()/2 - (this.y + this.size/2)) < size/2;
+        int cell = costs.getCellSize();
+        int start = ((y + size/2) / cell) * costs.getCols() + (x + size/2) / cell;
+        int step = cooperation.plan(ownerIn(cooperation), getBounds(), start, stepTicks(costs), costToGoal, costs);
+        if (step == -1) return next;
 
-        if (alignedX) {
-            // Set direction to face the target vertically
-            if (target.getY() < this.y) {
-                setDirection(Direction.UP);
+        planned = true;
+        waiting = step == CooperativePlanner.WAIT;
+        return step;
+    }
+
+    private int ownerIn(CooperativePlanner cooperation) {
+        if (reservationOwner < 0) {
+            reservationOwner = cooperation.register();
+        }
+        return reservationOwner;
+    }
+
+    // Ticks this tank takes to cross a cell
+    private int stepTicks(TileCosts costs) {
+        int cell = costs != null ? costs.getCellSize() : size;
+        return (cell + speed - 1) / speed;
+    }
+
+    public int getReservationOwner() {
+        return reservationOwner;
+    }
+
+    public PathRequest getPathRequest() {
+        return pathRequest;
+    }
+
+    // A per-tank D* Lite search gets expensive on big custom maps - those chase over the
+    // shared hierarchical path finder instead
+    private boolean isLargeMap(TileCosts costs) {
+        return costs.getCols() * costs.getRows() > LARGE_MAP_CELLS;
+    }
+
+    // Turn toward a neighbouring cell. The tank lines up with the cell on the other axis first
+    // so it doesn't clip corners; like the arcade game, a tank at most one step off the line
+    // snaps onto it.
+    private void steerToCell(int nextCol, int nextRow, int cell, PhysicsQueries physics) {
+        int col = (x + size/2) / cell;
+        int row = (y + size/2) / cell;
+        Direction heading;
+        if (nextCol != col) {
+            heading = nextCol > col ? Direction.RIGHT : Direction.LEFT;
+        } else {
+            heading = nextRow > row ? Direction.DOWN : Direction.UP;
+        }
+
+        boolean horizontal = heading.getDx() != 0;
+        int offset = horizontal ? row * cell - y : col * cell - x;
+        if (Math.abs(offset) > speed) {
+            if (horizontal) {
+                setDirection(offset < 0 ? Direction.UP : Direction.DOWN);
             } else {
-                setDirection(Direction.DOWN);
+                setDirection(offset < 0 ? Direction.LEFT : Direction.RIGHT);
             }
-            return true;
-        } else if (alignedY) {
-            // Set direction to face the target horizontally
-            if (target.getX() < this.x) {
-                setDirection(Direction.LEFT);
-            } else {
-                setDirection(Direction.RIGHT);
+            return;
+        }
+        if (offset != 0) {
+            Rectangle snapped = horizontal ? new Rectangle(x, y + offset, size, size) : new Rectangle(x + offset, y, size, size);
+            if (!physics.overlaps(snapped, PhysicsQueries.TANK_BLOCKING | PhysicsQueries.TANKS, this)) {
+                x = snapped.x;
+                y = snapped.y;
             }
-            return true;
         }
 
-        return false;
+        setDirection(heading);
     }
 
-    // Check if aligned with base for shooting
-    private boolean isAlignedWithBase(Point baseLocation) {
-        int baseX = (int)baseLocation.getX() + size/2;
-        int baseY = (int)baseLocation.getY() + size/2;
-        int tankCenterX = this.x + this.size/2;
-        int tankCenterY = this.y + this.size/2;
-
-        // Check if in the same column (x position)
-        boolean alignedX = Math.abs(baseX - tankCenterX) < size/2;
+    // Is a position (top-left of a tank-sized box) within a distance of this tank's?
+    private boolean isWithin(int targetX, int targetY, int distance) {
+        long dx = targetX - x;
+        long dy = targetY - y;
+        return dx * dx + dy * dy <= (long) distance * distance;
+    }
 
-        // Check if in the same row (y position)
-        boolean alignedY = Math.abs(baseY - tankCenterY) < size/2;
+    // Waypoint path to a target (top-left of a tank-sized box). The search runs in the shared
+    // planning queue, within its per-tick budget; until the answer comes the tank keeps to what
+    // is left of its last path, or heads straight for the target if nothing is.
+    private void followPathTo(Point target, PathRequestQueue queue, HierarchicalPathfinder paths, TileCosts costs,
+                              PhysicsQueries physics) {
+        int cell = paths.getCellSize();
+        int cols = paths.getCols();
+        int goal = ((target.y + size/2) / cell) * cols + (target.x + size/2) / cell;
+
+        // An answer for a goal the target has since moved away from is thrown out and asked
+        // again - a step to the next cell is close enough, or a moving player would never get one
+        int state = pathRequest.getState();
+        if ((state == PathRequest.READY || state == PathRequest.NO_ROUTE) && costs.heuristic(pathRequest.getGoal(), goal) > 1) {
+            pathRequest.clear();
+            state = PathRequest.IDLE;
+        }
 
-        if (alignedX) {
-            // Set direction to face the base vertically
-            setDirection(baseY < tankCenterY ? Direction.UP : Direction.DOWN);
-            return true;
-        } else if (alignedY) {
-            // Set direction to face the base horizontally
-            setDirection(baseX < tankCenterX ? Direction.LEFT : Direction.RIGHT);
-            return true;
+        boolean pathDone = !pathFollowing || currentWaypointIndex >= pathWaypoints.size();
+        if (pathDone && state == PathRequest.IDLE) {
+            int start = ((y + size/2) / cell) * cols + (x + size/2) / cell;
+            queue.submit(pathRequest, start, goal);
+            state = pathRequest.getState();
         }
 
-        return false;
-    }
+        if (state == PathRequest.READY || state == PathRequest.NO_ROUTE) {
+            setPathTo(target.x, target.y, paths, physics);
+            pathFollowing = true;
+            lastAction = aiState == 1 ? "Calculated path to player" : "Calculated path to base";
+        }
 
-    // Calculate distance to target
-    private double calculateDistance(Tank target) {
-        return Math.sqrt(Math.pow(target.getX() - this.x, 2) + Math.pow(target.getY() - this.y, 2));
+        if (currentWaypointIndex < pathWaypoints.size()) {
+            followPath(paths, physics);
+        } else {
+            moveTowardTarget(target.x, target.y, physics);
+            lastAction = "Waiting for path";
+        }
     }
 
-    // Basic path finding to target
-    private void calculatePathTo(int targetX, int targetY, List<Environment> environments) {
-        // Simple waypoint generation - we'll create a few intermediate waypoints
+    // Turn the answer to the path request into waypoints. They are the cluster entrances the
+    // hierarchical path finder routes through, as cell centres; followPath refines them into
+    // cell steps as it goes.
+    private void setPathTo(int targetX, int targetY, HierarchicalPathfinder paths, PhysicsQueries physics) {
         pathWaypoints.clear();
+        currentWaypointIndex = 0;
+
+        int count = pathRequest.getCount();
+        int cell = paths.getCellSize();
+        int cols = paths.getCols();
+        for (int i = 0; i < count; i++) {
+            int waypoint = pathRequest.getCell(i);
+            pathWaypoints.add(new Point((waypoint % cols) * cell + cell/2, (waypoint / cols) * cell + cell/2));
+        }
+        pathRequest.clear();
+        if (count > 0) return;
+
+        // No route - simple waypoint generation, we'll create a few intermediate waypoints
 
         // Start with direct path
         pathWaypoints.add(new Point(targetX, targetY));
 
-        // Find obstacles in the direct path and create alternative waypoints
-        Rectangle directPath = createPathRectangle(this.x + size/2, this.y + size/2, targetX + size/2, targetY + size/2);
-
-        boolean hasObstacle = false;
-        for (Environment env : environments) {
-            if (!env.isPassable() && directPath.intersects(env.getBounds())) {
-                hasObstacle = true;
-                break;
-            }
-        }
+        // Sweep the tank along the direct route and create alternative waypoints if it's blocked
+        Rectangle bounds = getBounds();
+        boolean hasObstacle = !physics.isRouteClear(bounds, targetX - this.x, targetY - this.y,
+                PhysicsQueries.TANK_BLOCKING);
 
         if (hasObstacle) {
             // Add intermediate waypoints to navigate around obstacles
@@ -427,19 +704,9 @@ public abstract class EnemyTank extends Tank {
             };
 
             for (Point waypoint : potentialWaypoints) {
-                // Check if path to this waypoint is clear
-                Rectangle pathToWaypoint = createPathRectangle(
-                        this.x + size/2, this.y + size/2,
-                        waypoint.x, waypoint.y
-                );
-
-                boolean waypointClear = true;
-                for (Environment env : environments) {
-                    if (!env.isPassable() && pathToWaypoint.intersects(env.getBounds())) {
-                        waypointClear = false;
-                        break;
-                    }
-                }
+                // Check if the tank can reach this waypoint (waypoints are tank centres)
+                boolean waypointClear = physics.isRouteClear(bounds,
+                        waypoint.x - size/2 - this.x, waypoint.y - size/2 - this.y, PhysicsQueries.TANK_BLOCKING);
 
                 if (waypointClear) {
                     // Insert this waypoint before the target
@@ -452,22 +719,9 @@ public abstract class EnemyTank extends Tank {
         currentWaypointIndex = 0;
     }
 
-    // Create a rectangle representing a path between two points
-    private Rectangle createPathRectangle(int x1, int y1, int x2, int y2) {
-        int minX = Math.min(x1, x2);
-        int minY = Math.min(y1, y2);
-        int width = Math.abs(x2 - x1);
-        int height = Math.abs(y2 - y1);
-
-        // Ensure minimum dimensions
-        width = Math.max(width, 10);
-        height = Math.max(height, 10);
-
-        return new Rectangle(minX, minY, width, height);
-    }
-
-    // Follow the calculated path
-    private void followPath() {
+    // Follow the calculated path - a cell at a time while the path finder has a route to the
+    // current waypoint, straight at it otherwise
+    private void followPath(HierarchicalPathfinder paths, PhysicsQueries physics) {
         if (pathWaypoints.isEmpty() || currentWaypointIndex >= pathWaypoints.size()) {
             pathFollowing = false;
             lastAction = "Path following ended";
@@ -475,16 +729,31 @@ public abstract class EnemyTank extends Tank {
         }
 
         Point currentTarget = pathWaypoints.get(currentWaypointIndex);
+        if (paths != null) {
+            int cell = paths.getCellSize();
+            int cols = paths.getCols();
+            int here = ((y + size/2) / cell) * cols + (x + size/2) / cell;
+            int waypoint = (currentTarget.y / cell) * cols + currentTarget.x / cell;
+            if (here == waypoint) {
+                currentWaypointIndex++;
+                return;
+            }
+
+            int next = paths.nextStep(here, waypoint);
+            if (next >= 0) {
+                steerToCell(next % cols, next / cols, cell, physics);
+                lastAction = "Following path";
+                return;
+            }
+        }
+
         moveTowardTarget(currentTarget.x, currentTarget.y, null);
         lastAction = "Following path";
 
-        // Check if we've reached the current waypoint
-        double distToWaypoint = Math.sqrt(
-                Math.pow(currentTarget.x - (this.x + size/2), 2) +
-                        Math.pow(currentTarget.y - (this.y + size/2), 2)
-        );
-
-        if (distToWaypoint < size) {
+        // Check if we've reached the current waypoint - within one tank size, compared squared
+        int toWaypointX = currentTarget.x - (this.x + size/2);
+        int toWaypointY = currentTarget.y - (this.y + size/2);
+        if (toWaypointX * toWaypointX + toWaypointY * toWaypointY < size * size) {
             currentWaypointIndex++;
             if (debug) {
                 System.out.println("Tank reached waypoint, moving to next one");
@@ -493,7 +762,7 @@ public abstract class EnemyTank extends Tank {
     }
 
     // Move toward a target position with improved obstacle avoidance
-    private void moveTowardTarget(int targetX, int targetY, List<Environment> environments) {
+    private void moveTowardTarget(int targetX, int targetY, PhysicsQueries physics) {
         int tankCenterX = this.x + size/2;
         int tankCenterY = this.y + size/2;
 
@@ -516,13 +785,13 @@ public abstract class EnemyTank extends Tank {
             // This creates a more direct path while still using only cardinal directions
             moveHorizontally = Math.abs(distX) > Math.abs(distY);
 
-            // If there are environments to check, see if there's an obstacle in the way
-            if (environments != null) {
+            // If there is terrain to check, see if there's an obstacle in the way
+            if (physics != null) {
                 Direction horizontalDir = distX < 0 ? Direction.LEFT : Direction.RIGHT;
                 Direction verticalDir = distY < 0 ? Direction.UP : Direction.DOWN;
 
-                boolean horizontalClear = isDirectionClear(horizontalDir, environments);
-                boolean verticalClear = isDirectionClear(verticalDir, environments);
+                boolean horizontalClear = isDirectionClear(horizontalDir, physics);
+                boolean verticalClear = isDirectionClear(verticalDir, physics);
 
                 // If one direction is clear and the other isn't, choose the clear one
                 if (horizontalClear && !verticalClear) {
@@ -557,7 +826,7 @@ public abstract class EnemyTank extends Tank {
         Direction newDir;
 
         do {
-            int dirValue = (int)(Math.random() * 4);
+            int dirValue = random.nextInt(4);
             Direction[] directions = Direction.values();
             newDir = directions[dirValue];
 
@@ -571,6 +840,34 @@ public abstract class EnemyTank extends Tank {
         }
     }
 
+    // Patrol turn - of the directions that don't reverse, prefer the neighbouring tile least in
+    // the players' sights and least crowded with other enemies. Some randomness stays so the
+    // patrols don't all take the same route.
+    private void changeToSaferDirection(InfluenceMap influence, PhysicsQueries physics) {
+        int cell = influence.getCellSize();
+        int col = (x + size/2) / cell;
+        int row = (y + size/2) / cell;
+        Direction best = null;
+        float bestScore = Float.MAX_VALUE;
+        for (Direction dir : Direction.values()) {
+            if (isOppositeDirection(getDirection(), dir)) continue;
+
+            int nextCol = col + dir.getDx();
+            int nextRow = row + dir.getDy();
+            float score = influence.getDanger(nextCol, nextRow)
+                    + CROWD_WEIGHT * influence.get(InfluenceMap.ENEMY_DENSITY, nextCol, nextRow)
+                    + PATROL_JITTER * (float) random.nextDouble();
+            if (!isDirectionClear(dir, physics)) {
+                score += BLOCKED_PENALTY;
+            }
+            if (score < bestScore) {
+                bestScore = score;
+                best = dir;
+            }
+        }
+        setDirection(best);
+    }
+
     // Check if two directions are opposites
     private boolean isOppositeDirection(Direction dir1, Direction dir2) {
         return (dir1 == Direction.UP && dir2 == Direction.DOWN) ||
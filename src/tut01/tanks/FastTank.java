@@ -8,6 +8,7 @@ import java.awt.Color;
 public class FastTank extends EnemyTank {
     public FastTank(int x, int y) {
         super(
+                TankType.FAST,
                 x,
                 y,
                 4, // Fast movement
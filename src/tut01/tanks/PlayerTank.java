@@ -13,13 +13,14 @@ public class PlayerTank extends Tank {
     private int lives = 3;
     private int powerLevel = 0; // Default power level
     // PlayerTank.java - Add cooldown logic
-    private long lastFireTime = 0;
+    private long lastFireTime = LONG_AGO;
     private static final long FIRE_COOLDOWN = 500; // 0.5 seconds in milliseconds
     private boolean wantsToFire = false;
 
 
     public PlayerTank(int x, int y, int playerNumber) {
         super(
+                TankType.PLAYER,
                 x,
                 y,
                 3,                  // Default movement speed
@@ -45,26 +46,29 @@ public class PlayerTank extends Tank {
         return this.wantsToFire;
     }
 
-    @Override
-    public Bullet fire() {
-        long currentTime = System.currentTimeMillis();
-
+    // Fire unless the gun is still cooling down - currentTime is the game clock
+    public int fire(BulletStore bullets, long currentTime) {
         // Check if enough time has passed since last bullet was fired
         if (currentTime - lastFireTime < FIRE_COOLDOWN) {
-            return null; // Still in cooldown, can't fire
+            return -1; // Still in cooldown, can't fire
         }
 
         // Update last fire time
         lastFireTime = currentTime;
 
-        // Create and return the bullet
-        Bullet bullet = super.fire();
-        if (bullet != null) {
-            bullet.setPowerLevel(powerLevel);
+        // Create the bullet with this player's power level
+        int bullet = super.fire(bullets);
+        if (bullet >= 0) {
+            bullets.setPower(bullet, powerLevel);
         }
         return bullet;
     }
 
+    @Override
+    protected int getBulletOwner() {
+        return playerNumber == 1 ? BulletStore.OWNER_PLAYER1 : BulletStore.OWNER_PLAYER2;
+    }
+
     public void upgrade() {
         if (powerLevel < 3) {
             powerLevel++;
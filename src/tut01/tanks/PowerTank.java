@@ -8,6 +8,7 @@ import java.awt.Color;
 public class PowerTank extends EnemyTank {
     public PowerTank(int x, int y) {
         super(
+                TankType.POWER,
                 x,
                 y,
                 3, // Normal movement
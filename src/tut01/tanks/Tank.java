@@ -21,6 +21,10 @@ public abstract class Tank {
     protected Color color;         // Tank color
     protected boolean isMoving;    // Movement status
     protected int size = 40;       // Default tank size (pixels)
+    protected final int type;      // TankType code
+
+    // Game clock reading (ms) long before any tick - a cooldown stamped with it is ready
+    protected static final long LONG_AGO = Long.MIN_VALUE / 2;
 
     // Added for ice sliding effect
     protected boolean sliding = false;
@@ -46,7 +50,8 @@ public abstract class Tank {
     }
 
     // Constructor
-    public Tank(int x, int y, int speed, int bulletSpeed, int health, int points) {
+    public Tank(int type, int x, int y, int speed, int bulletSpeed, int health, int points) {
+        this.type = type;
         this.x = x;
         this.y = y;
         this.speed = speed;
@@ -69,8 +74,8 @@ public abstract class Tank {
         }
     }
 
-    // Fire bullet
-    public Bullet fire() {
+    // Fire bullet - adds it to the store and returns its slot, or -1 if none was fired
+    public int fire(BulletStore bullets) {
         // Calculate bullet's starting position at the front of the tank
         int bulletX = x + (size / 2);
         int bulletY = y + (size / 2);
@@ -91,7 +96,13 @@ public abstract class Tank {
                 break;
         }
 
-        return new Bullet(bulletX, bulletY, bulletSpeed, direction);
+        return bullets.add(bulletX, bulletY, direction.getDx() * bulletSpeed, direction.getDy() * bulletSpeed,
+                0, getBulletOwner());
+    }
+
+    // Owner code stamped on this tank's bullets
+    protected int getBulletOwner() {
+        return BulletStore.OWNER_ENEMY;
     }
 
     // Take damage
@@ -100,89 +111,45 @@ public abstract class Tank {
         return health <= 0;
     }
 
-    // Draw tank
+    // Draw tank - players and enemies share one routine, the shape comes from the type tables
     public void draw(Graphics g) {
         Color originalColor = g.getColor();
+        int inset = TankType.getBodyInset(type);
+
+        // Draw tank body
+        g.setColor(color);
+        g.fillRect(x + inset, y + inset, size - 2 * inset, size - 2 * inset);
+
+        // Draw tracks
+        g.setColor(Color.DARK_GRAY);
+        g.fillRect(x, y, 4, size);
+        g.fillRect(x + size - 4, y, 4, size);
+
+        // Draw turret based on direction
+        g.setColor(Color.BLACK);
+        int turretWidth = 6;
+        int turretLength = TankType.getTurretLength(type);
+        int overlap = TankType.getTurretOverlap(type);
+
+        switch (direction) {
+            case UP:
+                g.fillRect(x + (size/2) - (turretWidth/2), y - turretLength + overlap, turretWidth, turretLength);
+                break;
+            case RIGHT:
+                g.fillRect(x + size - overlap, y + (size/2) - (turretWidth/2), turretLength, turretWidth);
+                break;
+            case DOWN:
+                g.fillRect(x + (size/2) - (turretWidth/2), y + size - overlap, turretWidth, turretLength);
+                break;
+            case LEFT:
+                g.fillRect(x - turretLength + overlap, y + (size/2) - (turretWidth/2), turretLength, turretWidth);
+                break;
+        }
 
-        // Draw different tank based on type
-        if (this instanceof PlayerTank) {
-            PlayerTank playerTank = (PlayerTank) this;
-
-            // Base color based on player number
-            if (playerTank.getPlayerNumber() == 1) {
-                g.setColor(Color.YELLOW);
-            } else {
-                g.setColor(Color.GREEN);
-            }
-
-            // Draw tank body
-            g.fillRect(x + 4, y + 4, size - 8, size - 8);
-
-            // Draw tracks
-            g.setColor(Color.DARK_GRAY);
-            g.fillRect(x, y, 4, size);
-            g.fillRect(x + size - 4, y, 4, size);
-
-            // Draw turret based on direction
-            g.setColor(Color.BLACK);
-            int turretWidth = 6;
-            int turretLength = 14;
-
-            switch (direction) {
-                case UP:
-                    g.fillRect(x + (size/2) - (turretWidth/2), y - turretLength + 4, turretWidth, turretLength);
-                    break;
-                case RIGHT:
-                    g.fillRect(x + size - 4, y + (size/2) - (turretWidth/2), turretLength, turretWidth);
-                    break;
-                case DOWN:
-                    g.fillRect(x + (size/2) - (turretWidth/2), y + size - 4, turretWidth, turretLength);
-                    break;
-                case LEFT:
-                    g.fillRect(x - turretLength + 4, y + (size/2) - (turretWidth/2), turretLength, turretWidth);
-                    break;
-            }
-
-            // Draw sliding indicator if applicable
-            if (sliding) {
-                g.setColor(new Color(100, 200, 255, (int)(100 * slideFactor)));
-                g.drawRect(x - 1, y - 1, size + 2, size + 2);
-            }
-        } else {
-            // Enemy tank drawing
-            g.setColor(color);
-            g.fillRect(x + 2, y + 2, size - 4, size - 4);
-
-            // Draw tracks
-            g.setColor(Color.DARK_GRAY);
-            g.fillRect(x, y, 4, size);
-            g.fillRect(x + size - 4, y, 4, size);
-
-            // Draw turret
-            g.setColor(Color.BLACK);
-            int turretWidth = 6;
-            int turretLength = 12;
-
-            switch (direction) {
-                case UP:
-                    g.fillRect(x + (size/2) - (turretWidth/2), y - turretLength + 6, turretWidth, turretLength);
-                    break;
-                case RIGHT:
-                    g.fillRect(x + size - 6, y + (size/2) - (turretWidth/2), turretLength, turretWidth);
-                    break;
-                case DOWN:
-                    g.fillRect(x + (size/2) - (turretWidth/2), y + size - 6, turretWidth, turretLength);
-                    break;
-                case LEFT:
-                    g.fillRect(x - turretLength + 6, y + (size/2) - (turretWidth/2), turretLength, turretWidth);
-                    break;
-            }
-
-            // Draw sliding indicator if applicable
-            if (sliding) {
-                g.setColor(new Color(100, 200, 255, (int)(100 * slideFactor)));
-                g.drawRect(x - 1, y - 1, size + 2, size + 2);
-            }
+        // Draw sliding indicator if applicable
+        if (sliding) {
+            g.setColor(new Color(100, 200, 255, (int)(100 * slideFactor)));
+            g.drawRect(x - 1, y - 1, size + 2, size + 2);
         }
 
         g.setColor(originalColor);
@@ -240,4 +207,6 @@ public abstract class Tank {
     public void setMoving(boolean moving) { isMoving = moving; }
 
     public int getSize() { return size; }
+
+    public int getType() { return type; }
 }
\ No newline at end of file
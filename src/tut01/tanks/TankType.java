@@ -0,0 +1,76 @@
+package tut01.tanks;
+
+/**
+ * Type codes for tanks and the per-type tuning tables they index. Every tank carries its
+ * code, so behaviour that differs by type is a table lookup instead of an instanceof chain.
+ * Enemy codes are also the wave director's codes and the enemy pool indices.
+ */
+public final class TankType {
+    // Type codes
+    public static final int BASIC = 0;
+    public static final int FAST = 1;
+    public static final int POWER = 2;
+    public static final int ARMOR = 3;
+    public static final int PLAYER = 4;
+    public static final int COUNT = 5;
+
+    // Minimum time (ms) between enemy shots
+    private static final long[] FIRE_COOLDOWNS = {3500, 2500, 2000, 3000, 0};
+
+    // AI state roll: below the patrol threshold the tank patrols, below the chase threshold
+    // it chases a player, otherwise it goes for the base
+    private static final double[] PATROL_THRESHOLDS = {0.5, 0.3, 0.3, 0.3, 0};
+    private static final double[] CHASE_THRESHOLDS = {0.8, 0.8, 0.8, 0.5, 0};
+
+    // Collision response - BLOCKED_BY[mover][other]: enemies are stopped by every tank,
+    // players only by enemies (they can pass through each other)
+    private static final boolean[][] BLOCKED_BY = {
+            {true, true, true, true, true},
+            {true, true, true, true, true},
+            {true, true, true, true, true},
+            {true, true, true, true, true},
+            {true, true, true, true, false}
+    };
+
+    // Draw routine parameters - how far the body is inset from the tracks' outer edge, the
+    // turret length and how far the turret starts inside the body
+    private static final int[] BODY_INSETS = {2, 2, 2, 2, 4};
+    private static final int[] TURRET_LENGTHS = {12, 12, 12, 12, 14};
+    private static final int[] TURRET_OVERLAPS = {6, 6, 6, 6, 4};
+
+    private TankType() {
+    }
+
+    public static boolean isEnemy(int type) {
+        return type != PLAYER;
+    }
+
+    public static long getFireCooldown(int type) {
+        return FIRE_COOLDOWNS[type];
+    }
+
+    public static double getPatrolThreshold(int type) {
+        return PATROL_THRESHOLDS[type];
+    }
+
+    public static double getChaseThreshold(int type) {
+        return CHASE_THRESHOLDS[type];
+    }
+
+    // Is a tank of the mover's type stopped by a tank of the other type?
+    public static boolean isBlockedBy(int mover, int other) {
+        return BLOCKED_BY[mover][other];
+    }
+
+    public static int getBodyInset(int type) {
+        return BODY_INSETS[type];
+    }
+
+    public static int getTurretLength(int type) {
+        return TURRET_LENGTHS[type];
+    }
+
+    public static int getTurretOverlap(int type) {
+        return TURRET_OVERLAPS[type];
+    }
+}